@@ -0,0 +1,91 @@
+#!/usr/bin/env bash
+# Startup time and time to first request of the jar, AOT, AOT + CDS and native builds.
+#
+#   scripts/startup-benchmark.sh [runs]       builds every variant into target/startup-benchmark, then measures
+#   SKIP_BUILD=1 scripts/startup-benchmark.sh  measures the variants built before
+#
+# Every run starts the variant on a free port against the databases in application.properties and records:
+#   started  - what Spring Boot logs as "Started ... in"
+#   ready    - launch until /actuator/health answers UP
+#   first    - launch until the first POST /api/accounts/create-account has answered
+#   rss      - resident memory right after the first request
+# The median of each over the runs is printed. The native variant is left out when native-image is not on the PATH.
+set -euo pipefail
+
+RUNS=${1:-5}
+PORT=${PORT:-18080}
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+OUT="$ROOT/target/startup-benchmark"
+JAR_NAME="banking-app-0.0.1-SNAPSHOT.jar"
+MAIN_CLASS="com.med.banking.BankingAppApplication"
+
+build() {
+    rm -rf "$OUT" && mkdir -p "$OUT/jar" "$OUT/aot"
+    cd "$ROOT"
+    mvn -q -B -DskipTests package
+    cp "target/$JAR_NAME" "$OUT/jar/app.jar"
+    mvn -q -B -DskipTests -Paot package
+    cp "target/$JAR_NAME" "$OUT/aot/app.jar"
+    mvn -q -B -DskipTests -Paot,cds package
+    cp -r target/cds "$OUT/cds"
+    if command -v native-image > /dev/null; then
+        mkdir -p "$OUT/native"
+        mvn -q -B -DskipTests -Pnative native:compile
+        cp target/banking-app "$OUT/native/banking-app"
+    fi
+}
+
+command_for() {
+    case "$1" in
+        jar)    echo "java -jar $OUT/jar/app.jar" ;;
+        aot)    echo "java -Dspring.aot.enabled=true -jar $OUT/aot/app.jar" ;;
+        cds)    echo "java -XX:SharedArchiveFile=$OUT/cds/application.jsa -Dspring.aot.enabled=true -cp $OUT/cds/application.jar:$OUT/cds/lib/* $MAIN_CLASS" ;;
+        native) echo "$OUT/native/banking-app" ;;
+    esac
+}
+
+now_millis() {
+    echo $(( $(date +%s%N) / 1000000 ))
+}
+
+# Prints "started ready first rss" for one run of a variant
+measure() {
+    local log="$OUT/$1.log" launched pid ready first started rss
+    launched=$(now_millis)
+    # shellcheck disable=SC2046
+    $(command_for "$1") --server.port="$PORT" > "$log" 2>&1 &
+    pid=$!
+    until curl -sf "http://localhost:$PORT/actuator/health" > /dev/null; do
+        if ! kill -0 "$pid" 2> /dev/null; then
+            echo "$1 exited during startup, see $log" >&2
+            exit 1
+        fi
+        sleep 0.02
+    done
+    ready=$(( $(now_millis) - launched ))
+    curl -sf -o /dev/null -H 'Content-Type: application/json' \
+        -d '{"accountHolderName":"Startup Benchmark","balance":0}' \
+        "http://localhost:$PORT/api/accounts/create-account"
+    first=$(( $(now_millis) - launched ))
+    rss=$(awk '/VmRSS/ {print int($2 / 1024)}' "/proc/$pid/status")
+    kill "$pid" && wait "$pid" 2> /dev/null || true
+    started=$(sed -n 's/.*Started BankingAppApplication in \([0-9.]*\) seconds.*/\1/p' "$log" | awk '{print int($1 * 1000)}')
+    echo "$started $ready $first $rss"
+}
+
+median() {
+    sort -n | awk '{values[NR] = $1} END {print values[int((NR + 1) / 2)]}'
+}
+
+[ -n "${SKIP_BUILD:-}" ] || build
+
+printf '%-8s %12s %12s %12s %10s\n' variant started-ms ready-ms first-ms rss-mb
+for variant in jar aot cds native; do
+    [ -e "$OUT/$variant" ] || continue
+    results=$(for _ in $(seq "$RUNS"); do measure "$variant"; done)
+    printf '%-8s %12s %12s %12s %10s\n' "$variant" \
+        "$(cut -d' ' -f1 <<< "$results" | median)" \
+        "$(cut -d' ' -f2 <<< "$results" | median)" \
+        "$(cut -d' ' -f3 <<< "$results" | median)" \
+        "$(cut -d' ' -f4 <<< "$results" | median)"
+done
@@ -0,0 +1,93 @@
+package com.med.banking.admission;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.med.banking.exception.ErrorDetails;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+/**
+ * Sheds load on the account endpoints before it reaches a Tomcat thread's database work.
+ * <p>
+ * Money-moving requests (deposit, withdraw, transfer) and account reads each pass through their own
+ * {@link GradientConcurrencyLimit}, so a backlog of writes does not starve reads or the other way round. A request
+ * that finds its limit full is answered at once with 503 and a {@code Retry-After} header. Streaming endpoints
+ * (import, statement export) are left out: their duration is not a latency signal.
+ */
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    private static final String ACCOUNTS_PATH = "/api/accounts";
+
+    private final GradientConcurrencyLimit writeLimit;
+    private final GradientConcurrencyLimit readLimit;
+    private final ObjectMapper objectMapper;
+    private final String retryAfterSeconds;
+
+    public AdmissionControlFilter(GradientConcurrencyLimit writeLimit, GradientConcurrencyLimit readLimit,
+                                  ObjectMapper objectMapper, int retryAfterSeconds) {
+        this.writeLimit = writeLimit;
+        this.readLimit = readLimit;
+        this.objectMapper = objectMapper;
+        this.retryAfterSeconds = String.valueOf(retryAfterSeconds);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        GradientConcurrencyLimit limit = limitFor(request);
+        if (limit == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        if (!limit.tryAcquire()) {
+            reject(request, response);
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            limit.release(System.nanoTime() - start);
+        }
+    }
+
+    // Null for requests that are not limited
+    GradientConcurrencyLimit limitFor(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (!path.startsWith(ACCOUNTS_PATH)) {
+            return null;
+        }
+        String method = request.getMethod();
+        if ((HttpMethod.PUT.matches(method) && (path.endsWith("/deposit") || path.endsWith("/withdraw")))
+                || (HttpMethod.POST.matches(method) && path.equals(ACCOUNTS_PATH + "/transfer"))) {
+            return writeLimit;
+        }
+        if ((HttpMethod.GET.matches(method) && !path.endsWith(".csv"))
+                || (HttpMethod.POST.matches(method) && path.equals(ACCOUNTS_PATH + "/batch-get"))) {
+            return readLimit;
+        }
+        return null;
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ErrorDetails errorDetails = new ErrorDetails(
+                LocalDateTime.now(),
+                "The service is overloaded, please retry later",
+                "uri=" + request.getRequestURI(),
+                "OVERLOADED"
+        );
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write(objectMapper.writeValueAsString(errorDetails));
+    }
+}
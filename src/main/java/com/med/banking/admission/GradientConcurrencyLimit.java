@@ -0,0 +1,91 @@
+package com.med.banking.admission;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Adaptive limit on concurrent requests, adjusted from their latency with the gradient algorithm.
+ * <p>
+ * A slow moving average of the latency is the baseline. Each completed request compares its own latency with it:
+ * while latency stays within {@code rttTolerance} times the baseline the limit grows by a fraction of its square
+ * root, and when latency rises the limit shrinks in proportion, smoothed over a few samples. During a database
+ * brownout the limit therefore drops to what the database still absorbs instead of letting requests queue on
+ * threads and connections, and it climbs back steadily once latency recovers. The baseline is pulled down
+ * quickly when latency falls far below it, so a brownout does not become the new normal.
+ */
+public class GradientConcurrencyLimit {
+
+    private static final double SMOOTHING = 0.2;
+    private static final int BASELINE_SAMPLES = 600;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double rttTolerance;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+    private volatile int limit;
+    private double estimatedLimit;
+    private double baselineRttNanos;
+
+    public GradientConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double rttTolerance) {
+        if (minLimit < 1 || maxLimit < minLimit || rttTolerance < 1) {
+            throw new IllegalArgumentException("Needs 1 <= minLimit <= maxLimit and rttTolerance >= 1");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.rttTolerance = rttTolerance;
+        this.estimatedLimit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.limit = (int) estimatedLimit;
+    }
+
+    // Takes a slot if one is free; a caller that gets true must call release
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                rejected.incrementAndGet();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void release(long rttNanos) {
+        int concurrent = inFlight.getAndDecrement();
+        update(Math.max(1, rttNanos), concurrent);
+    }
+
+    public int limit() {
+        return limit;
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    public long rejected() {
+        return rejected.get();
+    }
+
+    private synchronized void update(long rttNanos, int concurrent) {
+        if (baselineRttNanos == 0) {
+            baselineRttNanos = rttNanos;
+        } else {
+            baselineRttNanos += (rttNanos - baselineRttNanos) / BASELINE_SAMPLES;
+            if (baselineRttNanos / rttNanos > 2) {
+                baselineRttNanos *= 0.95;
+            }
+        }
+        // A limit that is not being used says nothing about whether it could be higher
+        if (concurrent < estimatedLimit / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, rttTolerance * baselineRttNanos / rttNanos));
+        double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        newLimit = estimatedLimit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+        limit = (int) estimatedLimit;
+    }
+}
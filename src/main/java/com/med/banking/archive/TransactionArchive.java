@@ -0,0 +1,125 @@
+package com.med.banking.archive;
+
+import com.med.banking.entity.Transaction;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Archived months of the transactions table, one segment file per shard and month.
+ * <p>
+ * The horizon of a shard is the first instant that is not archived yet. History reads take rows before the
+ * horizon from segments and rows from the horizon on from the live partitions, so a month is never read twice
+ * while it is being moved. In a multi-node deployment the archive directory has to be shared storage: every node
+ * rescans it, and {@link TransactionPartitionManager} only drops a month once its segment has been on disk for
+ * longer than the rescan interval, so no node can still be reading the month from a partition that is gone.
+ */
+@Component
+public class TransactionArchive {
+
+    public static final LocalDateTime NO_HORIZON = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private static final Pattern SEGMENT_NAME = Pattern.compile("transactions-s(\\d+)-(\\d{4})-(\\d{2})\\.seg");
+
+    private final Path archiveDir;
+    private final Map<Integer, NavigableMap<YearMonth, Path>> segments = new ConcurrentHashMap<>();
+    private final Map<Path, TransactionSegmentReader.Header> headers = new ConcurrentHashMap<>();
+
+    public TransactionArchive(@Value("${banking.transactions.archive-dir:archive}") String archiveDir) throws IOException {
+        this.archiveDir = Paths.get(archiveDir);
+        Files.createDirectories(this.archiveDir);
+        rescan();
+    }
+
+    // Picks up segments that other nodes have written since the last scan
+    @Scheduled(fixedDelayString = "${banking.transactions.archive-rescan-ms:60000}",
+            initialDelayString = "${banking.transactions.archive-rescan-ms:60000}")
+    public void rescan() throws IOException {
+        try (Stream<Path> files = Files.list(archiveDir)) {
+            files.forEach(file -> {
+                Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    YearMonth month = YearMonth.of(Integer.parseInt(matcher.group(2)), Integer.parseInt(matcher.group(3)));
+                    register(Integer.parseInt(matcher.group(1)), month, file);
+                }
+            });
+        }
+    }
+
+    public LocalDateTime horizon(int shard) {
+        NavigableMap<YearMonth, Path> shardSegments = segments.get(shard);
+        if (shardSegments == null || shardSegments.isEmpty()) {
+            return NO_HORIZON;
+        }
+        return shardSegments.lastKey().plusMonths(1).atDay(1).atStartOfDay();
+    }
+
+    // Archived rows of the account, newest month first
+    public List<Transaction> readHistory(int shard, long accountId) {
+        NavigableMap<YearMonth, Path> shardSegments = segments.get(shard);
+        if (shardSegments == null) {
+            return List.of();
+        }
+        List<Transaction> transactions = new ArrayList<>();
+        for (Path segment : shardSegments.descendingMap().values()) {
+            try {
+                TransactionSegmentReader.scanAccount(segment, header(segment), accountId,
+                        (transactionId, rowAccountId, amount, transactionType, timestamp) ->
+                                transactions.add(new Transaction(transactionId, rowAccountId, amount, transactionType, timestamp)));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read archived transactions from " + segment, e);
+            }
+        }
+        return transactions;
+    }
+
+    // Archived rows of the account in [from, to), oldest first, streamed segment by segment
+    public void scanHistory(int shard, long accountId, LocalDateTime from, LocalDateTime to,
+                            TransactionRowHandler handler) throws IOException {
+        NavigableMap<YearMonth, Path> shardSegments = segments.get(shard);
+        if (shardSegments == null || !from.isBefore(to)) {
+            return;
+        }
+        for (Map.Entry<YearMonth, Path> segment : shardSegments.subMap(YearMonth.from(from), true, YearMonth.from(to), true).entrySet()) {
+            TransactionSegmentReader.scanAccount(segment.getValue(), header(segment.getValue()), accountId, (transactionId, rowAccountId, amount, transactionType, timestamp) -> {
+                if (!timestamp.isBefore(from) && timestamp.isBefore(to)) {
+                    handler.row(transactionId, rowAccountId, amount, transactionType, timestamp);
+                }
+            });
+        }
+    }
+
+    public Path segmentPath(int shard, YearMonth month) {
+        return archiveDir.resolve(String.format("transactions-s%d-%04d-%02d.seg", shard, month.getYear(), month.getMonthValue()));
+    }
+
+    public void register(int shard, YearMonth month, Path segment) {
+        segments.computeIfAbsent(shard, key -> new ConcurrentSkipListMap<>()).put(month, segment);
+    }
+
+    private TransactionSegmentReader.Header header(Path segment) throws IOException {
+        TransactionSegmentReader.Header header = headers.get(segment);
+        if (header == null) {
+            header = TransactionSegmentReader.readHeader(segment);
+            headers.put(segment, header);
+        }
+        return header;
+    }
+}
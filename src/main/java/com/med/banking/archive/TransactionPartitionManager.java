@@ -0,0 +1,277 @@
+package com.med.banking.archive;
+
+import com.med.banking.constants.TransactionType;
+import com.med.banking.sharding.ShardRouter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps the monthly partitions of the transactions table: creates upcoming months ahead of time and moves months
+ * older than the retention period into the {@link TransactionArchive}, then detaches and drops them so the live
+ * table and its indexes only ever cover recent months.
+ * <p>
+ * Every node schedules the job; a session-level advisory lock per shard lets one of them do the work. A month is
+ * archived in two runs: the first writes its segment, a later one drops the partition once the segment is older
+ * than the drop delay, by when every node has rescanned the archive and reads the month from the segment.
+ */
+@Component
+public class TransactionPartitionManager {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionPartitionManager.class);
+
+    private static final Pattern PARTITION_NAME = Pattern.compile("transactions_p(\\d{4})(\\d{2})");
+    private static final int EXPORT_FETCH_SIZE = 10_000;
+    // pg_try_advisory_lock key of the maintenance job, the same on every shard
+    private static final long MAINTENANCE_LOCK = 0x5452414e53L;
+
+    private final ShardRouter shardRouter;
+    private final TransactionArchive transactionArchive;
+    private final int retentionMonths;
+    private final int premadeMonths;
+    private final Duration dropDelay;
+    private final long detachLockTimeoutMillis;
+
+    @Autowired
+    public TransactionPartitionManager(ShardRouter shardRouter, TransactionArchive transactionArchive,
+                                       @Value("${banking.transactions.retention-months:12}") int retentionMonths,
+                                       @Value("${banking.transactions.premade-months:2}") int premadeMonths,
+                                       @Value("${banking.transactions.archive-drop-delay-minutes:10}") long dropDelayMinutes,
+                                       @Value("${banking.transactions.detach-lock-timeout-ms:2000}") long detachLockTimeoutMillis) {
+        this.shardRouter = shardRouter;
+        this.transactionArchive = transactionArchive;
+        this.retentionMonths = retentionMonths;
+        this.premadeMonths = premadeMonths;
+        this.dropDelay = Duration.ofMinutes(dropDelayMinutes);
+        this.detachLockTimeoutMillis = Math.max(1, detachLockTimeoutMillis);
+    }
+
+    // Shard 0 gets schema.sql through spring.sql.init; the additional shards get it here
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        for (int shard = 1; shard < shardRouter.shardCount(); shard++) {
+            new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(shardRouter.primaryDataSource(shard));
+        }
+        maintainPartitions();
+    }
+
+    // A shard whose months cannot be given their partition fails the run after the other shards are done
+    @Scheduled(cron = "${banking.transactions.partition-maintenance-cron:0 15 1 * * *}")
+    public void maintainPartitions() {
+        List<Integer> failedShards = new ArrayList<>();
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            // The advisory lock belongs to the session, so all statements of the run go through the one connection
+            try (Connection connection = shardRouter.primaryDataSource(shard).getConnection()) {
+                JdbcTemplate jdbcTemplate = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+                if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT pg_try_advisory_lock(?)", Boolean.class, MAINTENANCE_LOCK))) {
+                    log.info("Partition maintenance of shard {} is running on another node", shard);
+                    continue;
+                }
+                try {
+                    maintainShard(jdbcTemplate, shard);
+                } finally {
+                    jdbcTemplate.queryForObject("SELECT pg_advisory_unlock(?)", Boolean.class, MAINTENANCE_LOCK);
+                }
+            } catch (SQLException | RuntimeException e) {
+                log.error("Could not maintain the partitions of shard {}", shard, e);
+                failedShards.add(shard);
+            }
+        }
+        if (!failedShards.isEmpty()) {
+            throw new IllegalStateException("Partition maintenance failed on shards " + failedShards);
+        }
+    }
+
+    private void maintainShard(JdbcTemplate jdbcTemplate, int shard) {
+        Boolean partitioned = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = to_regclass('transactions'))",
+                Boolean.class);
+        if (!Boolean.TRUE.equals(partitioned)) {
+            log.warn("transactions on shard {} is not partitioned; see db/partition-transactions.sql", shard);
+            return;
+        }
+        createUpcomingPartitions(jdbcTemplate, shard);
+        archiveExpiredPartitions(jdbcTemplate, shard);
+    }
+
+    // Months with rows in the DEFAULT partition get a partition as well, so their rows are archived like any other
+    private void createUpcomingPartitions(JdbcTemplate jdbcTemplate, int shard) {
+        SortedSet<YearMonth> months = new TreeSet<>();
+        for (LocalDate day : jdbcTemplate.queryForList(
+                "SELECT DISTINCT date_trunc('month', \"timestamp\")::date FROM transactions_default", LocalDate.class)) {
+            YearMonth month = YearMonth.from(day);
+            if (Files.exists(transactionArchive.segmentPath(shard, month))) {
+                throw new IllegalStateException("transactions_default on shard " + shard + " holds rows of " + month
+                        + ", which is already archived");
+            }
+            months.add(month);
+        }
+        YearMonth current = YearMonth.now();
+        for (int ahead = 0; ahead <= premadeMonths; ahead++) {
+            months.add(current.plusMonths(ahead));
+        }
+        for (YearMonth month : months) {
+            try {
+                createPartition(jdbcTemplate, month);
+            } catch (DataAccessException e) {
+                throw new IllegalStateException("Could not create partition " + partitionName(month) + " on shard " + shard, e);
+            }
+        }
+    }
+
+    // PostgreSQL refuses a partition while the DEFAULT partition holds rows of its range, so those rows move into
+    // the new table before it is attached, all in one transaction
+    private static void createPartition(JdbcTemplate jdbcTemplate, YearMonth month) {
+        String partition = partitionName(month);
+        if (Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, partition))) {
+            return;
+        }
+        String from = "'" + month.atDay(1) + "'";
+        String to = "'" + month.plusMonths(1).atDay(1) + "'";
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("LOCK TABLE transactions_default IN ACCESS EXCLUSIVE MODE");
+                statement.execute("CREATE TABLE " + partition + " (LIKE transactions INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+                int moved = statement.executeUpdate("WITH moved AS (DELETE FROM transactions_default WHERE \"timestamp\" >= "
+                        + from + " AND \"timestamp\" < " + to + " RETURNING *) INSERT INTO " + partition + " SELECT * FROM moved");
+                statement.execute("ALTER TABLE transactions ATTACH PARTITION " + partition + " FOR VALUES FROM (" + from + ") TO (" + to + ")");
+                connection.commit();
+                if (moved > 0) {
+                    log.warn("Moved {} rows of {} out of transactions_default", moved, month);
+                }
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+            return null;
+        });
+    }
+
+    // Oldest month first, stopping at the first failure so archived months always stay contiguous
+    private void archiveExpiredPartitions(JdbcTemplate jdbcTemplate, int shard) {
+        YearMonth oldestLiveMonth = YearMonth.now().minusMonths(retentionMonths);
+        List<String> partitions = jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid "
+                        + "WHERE i.inhparent = to_regclass('transactions') ORDER BY c.relname", String.class);
+        for (String partition : partitions) {
+            Matcher matcher = PARTITION_NAME.matcher(partition);
+            if (!matcher.matches()) {
+                continue;
+            }
+            YearMonth month = YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+            if (!month.isBefore(oldestLiveMonth)) {
+                break;
+            }
+            try {
+                Path segment = transactionArchive.segmentPath(shard, month);
+                if (!Files.exists(segment)) {
+                    exportPartition(shardRouter.primaryDataSource(shard), partition, segment);
+                    transactionArchive.register(shard, month, segment);
+                    log.info("Archived partition {} of shard {} to {}; it is dropped after {}", partition, shard, segment, dropDelay);
+                    continue;
+                }
+                if (Files.getLastModifiedTime(segment).toInstant().isAfter(Instant.now().minus(dropDelay))) {
+                    continue;
+                }
+                detachPartition(jdbcTemplate, partition);
+                jdbcTemplate.execute("DROP TABLE " + partition);
+                log.info("Dropped partition {} of shard {}, archived in {}", partition, shard, segment);
+            } catch (RuntimeException | IOException | SQLException e) {
+                log.error("Could not archive partition {} of shard {}", partition, shard, e);
+                return;
+            }
+        }
+    }
+
+    // CONCURRENTLY only takes SHARE UPDATE EXCLUSIVE on transactions, but PostgreSQL refuses it while the table has
+    // a DEFAULT partition. The plain form needs ACCESS EXCLUSIVE, so it gives up after the lock timeout instead of
+    // queueing every query on transactions behind it, and a later run tries again. Each statement is its own
+    // transaction on the autocommit connection, as CONCURRENTLY requires.
+    private void detachPartition(JdbcTemplate jdbcTemplate, String partition) {
+        if (Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT bool_or(inhdetachpending) FROM pg_inherits WHERE inhrelid = to_regclass(?)", Boolean.class, partition))) {
+            // A concurrent detach that was interrupted half-way
+            jdbcTemplate.execute("ALTER TABLE transactions DETACH PARTITION " + partition + " FINALIZE");
+            return;
+        }
+        if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT partdefid <> 0 FROM pg_partitioned_table WHERE partrelid = to_regclass('transactions')", Boolean.class))) {
+            jdbcTemplate.execute("ALTER TABLE transactions DETACH PARTITION " + partition + " CONCURRENTLY");
+            return;
+        }
+        jdbcTemplate.execute("SET lock_timeout = " + detachLockTimeoutMillis);
+        try {
+            jdbcTemplate.execute("ALTER TABLE transactions DETACH PARTITION " + partition);
+        } finally {
+            jdbcTemplate.execute("RESET lock_timeout");
+        }
+    }
+
+    // Rows without an account cannot be read back by any account, and would break the writer's account order, so
+    // they are left out of the segment and go with the partition
+    private Path exportPartition(DataSource dataSource, String partition, Path target) throws IOException, SQLException {
+        try (Connection connection = dataSource.getConnection();
+             TransactionSegmentWriter writer = new TransactionSegmentWriter(target)) {
+            connection.setAutoCommit(false);
+            try (Statement count = connection.createStatement();
+                 ResultSet orphans = count.executeQuery("SELECT count(*) FROM " + partition + " WHERE account_id IS NULL")) {
+                if (orphans.next() && orphans.getLong(1) > 0) {
+                    log.warn("{} rows of {} have no account and are not archived", orphans.getLong(1), partition);
+                }
+            }
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT transaction_id, account_id, amount, transaction_type, \"timestamp\" FROM " + partition
+                            + " WHERE account_id IS NOT NULL ORDER BY account_id, \"timestamp\"")) {
+                statement.setFetchSize(EXPORT_FETCH_SIZE);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        writer.append(resultSet.getLong(1), resultSet.getLong(2), resultSet.getDouble(3),
+                                TransactionType.valueOf(resultSet.getString(4)), resultSet.getTimestamp(5).toLocalDateTime());
+                    }
+                }
+            } finally {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+            return writer.finish();
+        }
+    }
+
+    private static String partitionName(YearMonth month) {
+        return String.format("transactions_p%04d%02d", month.getYear(), month.getMonthValue());
+    }
+}
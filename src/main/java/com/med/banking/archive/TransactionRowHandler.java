@@ -0,0 +1,14 @@
+package com.med.banking.archive;
+
+import com.med.banking.constants.TransactionType;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+// Receives archived rows one at a time without a Transaction being built for them
+@FunctionalInterface
+public interface TransactionRowHandler {
+
+    void row(long transactionId, long accountId, double amount, TransactionType transactionType,
+             LocalDateTime timestamp) throws IOException;
+}
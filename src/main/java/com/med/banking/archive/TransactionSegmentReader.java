@@ -0,0 +1,165 @@
+package com.med.banking.archive;
+
+import com.med.banking.constants.TransactionType;
+import com.med.banking.entity.Transaction;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads the rows of one account back from a segment written by {@link TransactionSegmentWriter}.
+ * The chunk index in the header leads to the one run chunk that can hold the account and to the column chunks
+ * with its rows, so a lookup decompresses a few kilobytes whatever the size of the segment. The columns are
+ * streamed side by side so scanning an account never holds more than one row.
+ */
+public final class TransactionSegmentReader {
+
+    private TransactionSegmentReader() {
+    }
+
+    // The parsed header of a segment; segments never change, so it can be kept for the next lookup
+    record Header(long runCount, long minAccountId, long maxAccountId, TransactionType[] types,
+                  long rowsPerChunk, long runsPerChunk, long[] runChunkAccounts, long[] runChunkRows,
+                  long[] runChunkOffsets, long[][] columnChunkOffsets, long[] blockOffsets) {
+    }
+
+    public static List<Transaction> readAccount(Path segment, long accountId) throws IOException {
+        List<Transaction> transactions = new ArrayList<>();
+        scanAccount(segment, accountId, (transactionId, rowAccountId, amount, transactionType, timestamp) ->
+                transactions.add(new Transaction(transactionId, rowAccountId, amount, transactionType, timestamp)));
+        return transactions;
+    }
+
+    public static void scanAccount(Path segment, long accountId, TransactionRowHandler handler) throws IOException {
+        scanAccount(segment, readHeader(segment), accountId, handler);
+    }
+
+    static Header readHeader(Path segment) throws IOException {
+        try (DataInputStream header = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment)))) {
+            int headerLength = header.readInt();
+            if (header.readInt() != TransactionSegmentWriter.MAGIC || header.readInt() != TransactionSegmentWriter.VERSION) {
+                throw new IOException("Not a transaction segment: " + segment);
+            }
+            header.readLong();
+            long runCount = header.readLong();
+            long minAccountId = header.readLong();
+            long maxAccountId = header.readLong();
+            TransactionType[] types = new TransactionType[header.readInt()];
+            for (int i = 0; i < types.length; i++) {
+                types[i] = TransactionType.valueOf(header.readUTF());
+            }
+            long rowsPerChunk = header.readInt();
+            long runsPerChunk = header.readInt();
+            int runChunks = header.readInt();
+            long[] runChunkAccounts = new long[runChunks];
+            long[] runChunkRows = new long[runChunks];
+            long[] runChunkOffsets = new long[runChunks];
+            for (int chunk = 0; chunk < runChunks; chunk++) {
+                runChunkAccounts[chunk] = header.readLong();
+                runChunkRows[chunk] = header.readLong();
+                runChunkOffsets[chunk] = header.readLong();
+            }
+            int columnChunks = header.readInt();
+            long[][] columnChunkOffsets = new long[TransactionSegmentWriter.BLOCK_COUNT - 1][columnChunks];
+            for (long[] column : columnChunkOffsets) {
+                for (int chunk = 0; chunk < columnChunks; chunk++) {
+                    column[chunk] = header.readLong();
+                }
+            }
+            long[] blockOffsets = new long[TransactionSegmentWriter.BLOCK_COUNT];
+            long offset = 4L + headerLength;
+            for (int block = 0; block < blockOffsets.length; block++) {
+                blockOffsets[block] = offset;
+                offset += header.readLong();
+            }
+            return new Header(runCount, minAccountId, maxAccountId, types, rowsPerChunk, runsPerChunk,
+                    runChunkAccounts, runChunkRows, runChunkOffsets, columnChunkOffsets, blockOffsets);
+        }
+    }
+
+    // Hands the rows of the account to the handler in segment order, reading all columns in step
+    static void scanAccount(Path segment, Header header, long accountId, TransactionRowHandler handler) throws IOException {
+        if (accountId < header.minAccountId() || accountId > header.maxAccountId()) {
+            return;
+        }
+        // The last run chunk starting at or before the account
+        int runChunk = Arrays.binarySearch(header.runChunkAccounts(), accountId);
+        if (runChunk < 0) {
+            runChunk = -runChunk - 2;
+        }
+        if (runChunk < 0) {
+            return;
+        }
+
+        long firstRow = header.runChunkRows()[runChunk];
+        int rows = 0;
+        long runs = Math.min(header.runsPerChunk(), header.runCount() - runChunk * header.runsPerChunk());
+        try (DataInputStream runsIn = openBlock(segment, header.blockOffsets()[0] + header.runChunkOffsets()[runChunk])) {
+            for (long run = 0; run < runs; run++) {
+                long runAccountId = runsIn.readLong();
+                int runLength = runsIn.readInt();
+                if (runAccountId == accountId) {
+                    rows = runLength;
+                    break;
+                }
+                if (runAccountId > accountId) {
+                    break;
+                }
+                firstRow += runLength;
+            }
+        }
+        if (rows == 0) {
+            return;
+        }
+
+        // Column chunks follow each other as gzip members, so a run that crosses into the next chunk reads on
+        int columnChunk = (int) (firstRow / header.rowsPerChunk());
+        long skipRows = firstRow - columnChunk * header.rowsPerChunk();
+        long[][] chunkOffsets = header.columnChunkOffsets();
+        long[] blockOffsets = header.blockOffsets();
+        try (DataInputStream ids = openBlock(segment, blockOffsets[1] + chunkOffsets[0][columnChunk]);
+             DataInputStream timestamps = openBlock(segment, blockOffsets[2] + chunkOffsets[1][columnChunk]);
+             DataInputStream amounts = openBlock(segment, blockOffsets[3] + chunkOffsets[2][columnChunk]);
+             DataInputStream typeCodes = openBlock(segment, blockOffsets[4] + chunkOffsets[3][columnChunk])) {
+            ids.skipNBytes(skipRows * Long.BYTES);
+            timestamps.skipNBytes(skipRows * Long.BYTES);
+            amounts.skipNBytes(skipRows * Double.BYTES);
+            typeCodes.skipNBytes(skipRows);
+            TransactionType[] types = header.types();
+            for (int row = 0; row < rows; row++) {
+                handler.row(ids.readLong(), accountId, amounts.readDouble(), types[typeCodes.readUnsignedByte()],
+                        fromEpochMicros(timestamps.readLong()));
+            }
+        }
+    }
+
+    static long toEpochMicros(LocalDateTime timestamp) {
+        return timestamp.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + timestamp.getNano() / 1_000;
+    }
+
+    static LocalDateTime fromEpochMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+
+    private static DataInputStream openBlock(Path segment, long offset) throws IOException {
+        InputStream in = Files.newInputStream(segment);
+        try {
+            in.skipNBytes(offset);
+            return new DataInputStream(new BufferedInputStream(new GZIPInputStream(in, 1 << 16), 1 << 16));
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.med.banking.archive;
+
+import com.med.banking.constants.TransactionType;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes an archived month of transactions as a compressed columnar segment.
+ * <p>
+ * Rows must be appended ordered by account id and timestamp. Each column is gzip-compressed on its own, in chunks
+ * of {@link #ROWS_PER_CHUNK} rows ({@link #RUNS_PER_CHUNK} runs for the account column) that are separate gzip
+ * members. The header indexes the chunks: the first account and first row of every run chunk and the offset of
+ * every chunk, so a reader decompresses one run chunk to find the account and then only the column chunks that
+ * hold its rows.
+ * Layout: {@code int headerLength | header | accounts block | ids block | timestamps block | amounts block | types block},
+ * where the accounts block holds (accountId, rowCount) runs.
+ */
+public class TransactionSegmentWriter implements Closeable {
+
+    static final int MAGIC = 0x42545853;
+    static final int VERSION = 2;
+    static final int BLOCK_COUNT = 5;
+    static final int ROWS_PER_CHUNK = 4096;
+    static final int RUNS_PER_CHUNK = 1024;
+
+    private final Path target;
+    private final ChunkedBlock[] blocks = new ChunkedBlock[BLOCK_COUNT];
+    private final List<Long> runChunkAccounts = new ArrayList<>();
+    private final List<Long> runChunkRows = new ArrayList<>();
+
+    private long currentAccountId;
+    private int currentRunLength;
+    private long rowCount;
+    private long runCount;
+    private long minAccountId = Long.MAX_VALUE;
+    private long maxAccountId = Long.MIN_VALUE;
+    private boolean finished;
+
+    public TransactionSegmentWriter(Path target) throws IOException {
+        this.target = target;
+        Files.createDirectories(target.toAbsolutePath().getParent());
+        for (int block = 0; block < BLOCK_COUNT; block++) {
+            blocks[block] = new ChunkedBlock(Files.createTempFile(target.toAbsolutePath().getParent(), target.getFileName().toString(), ".col" + block));
+        }
+    }
+
+    public void append(long transactionId, long accountId, double amount, TransactionType transactionType,
+                       LocalDateTime timestamp) throws IOException {
+        if (rowCount > 0 && accountId < currentAccountId) {
+            throw new IllegalArgumentException("Rows must be appended in account id order");
+        }
+        if (rowCount == 0 || accountId != currentAccountId) {
+            flushRun();
+            currentAccountId = accountId;
+            minAccountId = Math.min(minAccountId, accountId);
+            maxAccountId = Math.max(maxAccountId, accountId);
+        }
+        if (rowCount > 0 && rowCount % ROWS_PER_CHUNK == 0) {
+            for (int block = 1; block < BLOCK_COUNT; block++) {
+                blocks[block].nextChunk();
+            }
+        }
+        currentRunLength++;
+        rowCount++;
+        blocks[1].data.writeLong(transactionId);
+        blocks[2].data.writeLong(TransactionSegmentReader.toEpochMicros(timestamp));
+        blocks[3].data.writeDouble(amount);
+        blocks[4].data.writeByte(transactionType.ordinal());
+    }
+
+    // Assembles the segment and moves it into place atomically
+    public Path finish() throws IOException {
+        flushRun();
+        for (ChunkedBlock block : blocks) {
+            block.close();
+        }
+        Path temporary = Files.createTempFile(target.toAbsolutePath().getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 16))) {
+                ByteArrayOutputStream header = header();
+                out.writeInt(header.size());
+                header.writeTo(out);
+                for (ChunkedBlock block : blocks) {
+                    Files.copy(block.file, out);
+                }
+            }
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        finished = true;
+        return target;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!finished) {
+            for (ChunkedBlock block : blocks) {
+                block.close();
+            }
+        }
+        for (ChunkedBlock block : blocks) {
+            Files.deleteIfExists(block.file);
+        }
+    }
+
+    private ByteArrayOutputStream header() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream header = new DataOutputStream(bytes);
+        header.writeInt(MAGIC);
+        header.writeInt(VERSION);
+        header.writeLong(rowCount);
+        header.writeLong(runCount);
+        header.writeLong(rowCount == 0 ? 0 : minAccountId);
+        header.writeLong(rowCount == 0 ? -1 : maxAccountId);
+        TransactionType[] types = TransactionType.values();
+        header.writeInt(types.length);
+        for (TransactionType type : types) {
+            header.writeUTF(type.name());
+        }
+        header.writeInt(ROWS_PER_CHUNK);
+        header.writeInt(RUNS_PER_CHUNK);
+        header.writeInt(runChunkAccounts.size());
+        for (int chunk = 0; chunk < runChunkAccounts.size(); chunk++) {
+            header.writeLong(runChunkAccounts.get(chunk));
+            header.writeLong(runChunkRows.get(chunk));
+            header.writeLong(blocks[0].chunkOffsets.get(chunk));
+        }
+        header.writeInt(blocks[1].chunkOffsets.size());
+        for (int block = 1; block < BLOCK_COUNT; block++) {
+            for (long offset : blocks[block].chunkOffsets) {
+                header.writeLong(offset);
+            }
+        }
+        for (ChunkedBlock block : blocks) {
+            header.writeLong(block.length);
+        }
+        header.flush();
+        return bytes;
+    }
+
+    private void flushRun() throws IOException {
+        if (currentRunLength > 0) {
+            if (runCount % RUNS_PER_CHUNK == 0) {
+                if (runCount > 0) {
+                    blocks[0].nextChunk();
+                }
+                runChunkAccounts.add(currentAccountId);
+                runChunkRows.add(rowCount - currentRunLength);
+            }
+            blocks[0].data.writeLong(currentAccountId);
+            blocks[0].data.writeInt(currentRunLength);
+            runCount++;
+            currentRunLength = 0;
+        }
+    }
+
+    // One column in a temporary file, written as a sequence of gzip members whose offsets are kept for the header
+    private static final class ChunkedBlock extends FilterOutputStream {
+
+        private final Path file;
+        private final List<Long> chunkOffsets = new ArrayList<>();
+        private GZIPOutputStream gzip;
+        private DataOutputStream data;
+        private long length;
+        private boolean closed;
+
+        ChunkedBlock(Path file) throws IOException {
+            super(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16));
+            this.file = file;
+            startChunk();
+        }
+
+        void nextChunk() throws IOException {
+            finishChunk();
+            startChunk();
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            length++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            length += len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                try {
+                    finishChunk();
+                } finally {
+                    out.close();
+                }
+            }
+        }
+
+        private void startChunk() throws IOException {
+            chunkOffsets.add(length);
+            gzip = new GZIPOutputStream(this, 1 << 16);
+            data = new DataOutputStream(new BufferedOutputStream(gzip, 1 << 16));
+        }
+
+        // Ends the gzip member without closing the file underneath
+        private void finishChunk() throws IOException {
+            data.flush();
+            gzip.finish();
+        }
+    }
+}
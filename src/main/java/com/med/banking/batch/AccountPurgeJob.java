@@ -0,0 +1,167 @@
+package com.med.banking.batch;
+
+import com.med.banking.sharding.ShardRouter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Removes deleted accounts and their history in the background.
+ * <p>
+ * Deleting an account only sets {@code deleted_at}. This job walks the tombstones of every shard, oldest first, and
+ * deletes each account's transactions in batches of {@code banking.purge.batch-size} rows, each batch its own short
+ * transaction and paced to {@code banking.purge.max-rows-per-second}, so an account with millions of rows never holds
+ * locks or a connection for long. Standing orders to the account from accounts on other shards are then deactivated
+ * there; those on its own shard were deactivated with the tombstone. The activity aggregates, the standing orders from
+ * the account and the account row itself go last, in one transaction. Rows already moved to the transaction archive stay in their segments. Every
+ * step is idempotent, so a purge cut short by a restart, or run by two nodes at once, is simply finished later.
+ */
+@Component
+public class AccountPurgeJob {
+
+    private static final Logger log = LoggerFactory.getLogger(AccountPurgeJob.class);
+
+    static final String SELECT_TOMBSTONES = "SELECT id FROM accounts WHERE deleted_at IS NOT NULL AND deleted_at < ? "
+            + "ORDER BY deleted_at LIMIT ?";
+    static final String DELETE_TRANSACTIONS = "DELETE FROM transactions WHERE (transaction_id, \"timestamp\") IN "
+            + "(SELECT transaction_id, \"timestamp\" FROM transactions WHERE account_id = ? LIMIT ?)";
+    static final String DELETE_ACTIVITY = "DELETE FROM account_activity WHERE account_id = ?";
+    static final String DELETE_STANDING_ORDERS = "DELETE FROM standing_orders WHERE from_account_id = ?";
+    static final String DEACTIVATE_INCOMING_STANDING_ORDERS = "UPDATE standing_orders SET active = false "
+            + "WHERE to_account_id = ? AND active";
+    static final String DELETE_ACCOUNT = "DELETE FROM accounts WHERE id = ? AND deleted_at IS NOT NULL";
+
+    private static final int ACCOUNTS_PER_PASS = 100;
+    // Requests that loaded the account just before it was deleted finish well within this
+    private static final Duration GRACE_PERIOD = Duration.ofMinutes(1);
+
+    private final ShardRouter shardRouter;
+    private final int batchSize;
+    private final int maxRowsPerSecond;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Autowired
+    public AccountPurgeJob(ShardRouter shardRouter,
+                           @Value("${banking.purge.batch-size:5000}") int batchSize,
+                           @Value("${banking.purge.max-rows-per-second:50000}") int maxRowsPerSecond) {
+        this.shardRouter = shardRouter;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxRowsPerSecond = maxRowsPerSecond;
+    }
+
+    @Scheduled(fixedDelayString = "${banking.purge.interval-seconds:60}", timeUnit = TimeUnit.SECONDS)
+    public void purgeDeletedAccounts() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            AccrualThrottle throttle = new AccrualThrottle(maxRowsPerSecond);
+            for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+                int purged = purgeShard(shard, throttle);
+                if (purged > 0) {
+                    log.info("Purged {} deleted accounts from shard {}", purged, shard);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            running.set(false);
+        }
+    }
+
+    int purgeShard(int shard, AccrualThrottle throttle) throws InterruptedException {
+        List<Long> ids;
+        try {
+            ids = tombstones(shard);
+        } catch (SQLException e) {
+            log.warn("Could not look up deleted accounts on shard {}", shard, e);
+            return 0;
+        }
+        int purged = 0;
+        for (Long id : ids) {
+            try {
+                purgeAccount(shard, id, throttle);
+                purged++;
+            } catch (SQLException e) {
+                log.warn("Could not purge account {} on shard {}, retrying on the next run", id, shard, e);
+            }
+        }
+        return purged;
+    }
+
+    private List<Long> tombstones(int shard) throws SQLException {
+        List<Long> ids = new ArrayList<>();
+        try (Connection connection = dataSource(shard).getConnection();
+             PreparedStatement select = connection.prepareStatement(SELECT_TOMBSTONES)) {
+            select.setTimestamp(1, Timestamp.valueOf(LocalDateTime.now().minus(GRACE_PERIOD)));
+            select.setInt(2, ACCOUNTS_PER_PASS);
+            try (ResultSet resultSet = select.executeQuery()) {
+                while (resultSet.next()) {
+                    ids.add(resultSet.getLong(1));
+                }
+            }
+        }
+        return ids;
+    }
+
+    private void purgeAccount(int shard, long id, AccrualThrottle throttle) throws SQLException, InterruptedException {
+        try (Connection connection = dataSource(shard).getConnection()) {
+            // Autocommit: every batch commits on its own
+            try (PreparedStatement delete = connection.prepareStatement(DELETE_TRANSACTIONS)) {
+                delete.setLong(1, id);
+                delete.setInt(2, batchSize);
+                int deleted;
+                do {
+                    throttle.acquire(batchSize);
+                    deleted = delete.executeUpdate();
+                } while (deleted == batchSize);
+            }
+            for (int other = 0; other < shardRouter.shardCount(); other++) {
+                if (other != shard) {
+                    try (Connection otherConnection = dataSource(other).getConnection()) {
+                        executeForAccount(otherConnection, DEACTIVATE_INCOMING_STANDING_ORDERS, id);
+                    }
+                }
+            }
+            connection.setAutoCommit(false);
+            try {
+                executeForAccount(connection, DELETE_ACTIVITY, id);
+                executeForAccount(connection, DELETE_STANDING_ORDERS, id);
+                executeForAccount(connection, DELETE_ACCOUNT, id);
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    private static void executeForAccount(Connection connection, String sql, long id) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, id);
+            statement.executeUpdate();
+        }
+    }
+
+    private DataSource dataSource(int shard) {
+        return shardRouter.primaryDataSource(shard);
+    }
+}
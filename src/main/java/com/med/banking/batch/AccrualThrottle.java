@@ -0,0 +1,34 @@
+package com.med.banking.batch;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Paces the accrual workers to a maximum number of accounts per second across all threads, so the batch never
+ * takes more of the database than the online traffic can spare.
+ */
+class AccrualThrottle {
+
+    private final double nanosPerAccount;
+    private long nextFreeNanos = Long.MIN_VALUE;
+
+    AccrualThrottle(int maxAccountsPerSecond) {
+        this.nanosPerAccount = maxAccountsPerSecond > 0 ? (double) TimeUnit.SECONDS.toNanos(1) / maxAccountsPerSecond : 0;
+    }
+
+    void acquire(int accounts) throws InterruptedException {
+        long waitNanos = reserve(accounts, System.nanoTime());
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    // Books the accounts right after the ones already booked and returns how long the caller has to wait
+    synchronized long reserve(int accounts, long nowNanos) {
+        if (nanosPerAccount == 0) {
+            return 0;
+        }
+        long start = Math.max(nowNanos, nextFreeNanos);
+        nextFreeNanos = start + (long) (accounts * nanosPerAccount);
+        return start - nowNanos;
+    }
+}
@@ -0,0 +1,404 @@
+package com.med.banking.batch;
+
+import com.med.banking.cache.AccountCacheInvalidator;
+import com.med.banking.constants.TransactionType;
+import com.med.banking.sharding.ShardIds;
+import com.med.banking.sharding.ShardRouter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Credits monthly interest to every account without going through {@code deposit} one account at a time.
+ * <p>
+ * Each shard's accounts are split into id-range partitions when a run starts, and the partitions are worked on in
+ * parallel in chunks. A chunk is one transaction on its shard that:
+ * <ul>
+ *     <li>updates the balances of the whole chunk with one statement,</li>
+ *     <li>adds the credits to the activity aggregates,</li>
+ *     <li>inserts the interest transactions as one batch,</li>
+ *     <li>advances the partition checkpoint.</li>
+ * </ul>
+ * A run that crashed or failed is picked up after its last committed chunk by {@link #resumeUnfinishedRuns()}, which
+ * runs shortly after startup and then every few minutes for every month whose run is not DONE on some shard.
+ * Workers are paced by {@link AccrualThrottle} and back off when chunks get slow, so online traffic keeps its
+ * latency. Interest is recorded as a DEPOSIT transaction.
+ */
+@Component
+public class InterestAccrualJob {
+
+    private static final Logger log = LoggerFactory.getLogger(InterestAccrualJob.class);
+
+    static final String SELECT_UNFINISHED_RUNS = "SELECT run_month FROM interest_runs WHERE status <> 'DONE' ORDER BY run_month";
+    static final String OPEN_RUN = "INSERT INTO interest_runs (run_month, monthly_rate, status, started_at) "
+            + "VALUES (?, ?, 'RUNNING', now()) ON CONFLICT (run_month) DO NOTHING";
+    static final String PLAN_BOUNDS = "SELECT max(id) FROM (SELECT id, ntile(?) OVER (ORDER BY id) AS bucket "
+            + "FROM accounts) t GROUP BY bucket ORDER BY bucket";
+    static final String INSERT_PARTITION = "INSERT INTO interest_run_partitions "
+            + "(run_month, partition_no, lower_id, upper_id, last_id) VALUES (?, ?, ?, ?, ?)";
+    static final String SELECT_OPEN_PARTITIONS = "SELECT p.partition_no, p.last_id, p.upper_id, r.monthly_rate "
+            + "FROM interest_run_partitions p JOIN interest_runs r ON r.run_month = p.run_month "
+            + "WHERE p.run_month = ? AND NOT p.completed ORDER BY p.partition_no";
+    static final String CHUNK_END = "SELECT id FROM accounts WHERE id > ? AND id <= ? ORDER BY id OFFSET ? LIMIT 1";
+    static final String CREDIT_CHUNK = """
+            WITH credited AS (
+                UPDATE accounts a SET balance = a.balance + c.interest, version = a.version + 1
+                FROM (SELECT id, CAST(round(CAST(balance * ? AS numeric), 2) AS double precision) AS interest
+                      FROM accounts WHERE id > ? AND id <= ? AND balance > 0 AND deleted_at IS NULL) c
+                WHERE a.id = c.id AND c.interest > 0
+                RETURNING a.id, c.interest
+            ), activity AS (
+                INSERT INTO account_activity (account_id, granularity, period_start, deposit_total, deposit_count)
+                SELECT credited.id, p.granularity, p.period_start, credited.interest, 1
+                FROM credited CROSS JOIN (VALUES ('DAY', CAST(? AS date)), ('MONTH', CAST(? AS date))) AS p(granularity, period_start)
+                ON CONFLICT (account_id, granularity, period_start) DO UPDATE SET
+                    deposit_total = account_activity.deposit_total + EXCLUDED.deposit_total,
+                    deposit_count = account_activity.deposit_count + 1
+            )
+            SELECT id, interest FROM credited
+            """;
+    static final String INSERT_TRANSACTION =
+            "INSERT INTO transactions (transaction_id, account_id, amount, transaction_type, \"timestamp\") VALUES (?, ?, ?, ?, ?)";
+    // Guarded by the previous last_id so two nodes running the same month can never both commit a chunk
+    static final String ADVANCE_CHECKPOINT = "UPDATE interest_run_partitions SET last_id = ?, "
+            + "credited_accounts = credited_accounts + ?, credited_amount = credited_amount + ?, completed = ? "
+            + "WHERE run_month = ? AND partition_no = ? AND last_id = ?";
+    static final String CLOSE_RUN = "UPDATE interest_runs SET status = 'DONE', finished_at = now() "
+            + "WHERE run_month = ? AND status <> 'DONE' AND NOT EXISTS "
+            + "(SELECT 1 FROM interest_run_partitions WHERE run_month = ? AND NOT completed)";
+
+    private final ShardRouter shardRouter;
+    private final AccountCacheInvalidator accountCacheInvalidator;
+    private final double annualRate;
+    private final int partitionsPerShard;
+    private final int chunkSize;
+    private final int threads;
+    private final int maxAccountsPerSecond;
+    private final long slowChunkMillis;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Autowired
+    public InterestAccrualJob(ShardRouter shardRouter, AccountCacheInvalidator accountCacheInvalidator,
+                              @Value("${banking.interest.annual-rate:0}") double annualRate,
+                              @Value("${banking.interest.partitions-per-shard:16}") int partitionsPerShard,
+                              @Value("${banking.interest.chunk-size:1000}") int chunkSize,
+                              @Value("${banking.interest.threads:2}") int threads,
+                              @Value("${banking.interest.max-accounts-per-second:20000}") int maxAccountsPerSecond,
+                              @Value("${banking.interest.slow-chunk-millis:250}") long slowChunkMillis) {
+        this.shardRouter = shardRouter;
+        this.accountCacheInvalidator = accountCacheInvalidator;
+        this.annualRate = annualRate;
+        this.partitionsPerShard = Math.max(1, partitionsPerShard);
+        this.chunkSize = Math.max(1, chunkSize);
+        this.threads = Math.max(1, threads);
+        this.maxAccountsPerSecond = maxAccountsPerSecond;
+        this.slowChunkMillis = slowChunkMillis;
+    }
+
+    // On the first of the month, for the month that just ended
+    @Scheduled(cron = "${banking.interest.cron:0 0 2 1 * *}")
+    public void accrueMonthlyInterest() {
+        if (annualRate <= 0) {
+            return;
+        }
+        run(YearMonth.now().minusMonths(1));
+    }
+
+    // Runs stay RUNNING until every partition of the shard is completed, whatever the rate is configured to now
+    @Scheduled(initialDelay = 1, fixedDelayString = "${banking.interest.resume-interval-minutes:10}", timeUnit = TimeUnit.MINUTES)
+    public void resumeUnfinishedRuns() {
+        if (running.get()) {
+            return;
+        }
+        for (YearMonth month : unfinishedMonths()) {
+            log.info("Resuming the interest run for {}", month);
+            try {
+                run(month);
+            } catch (IllegalStateException e) {
+                log.warn("Interest run for {} did not finish", month, e);
+            }
+        }
+    }
+
+    // Months that are unfinished on any shard, oldest first
+    SortedSet<YearMonth> unfinishedMonths() {
+        SortedSet<YearMonth> months = new TreeSet<>();
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            try (Connection connection = dataSource(shard).getConnection();
+                 PreparedStatement select = connection.prepareStatement(SELECT_UNFINISHED_RUNS);
+                 ResultSet resultSet = select.executeQuery()) {
+                while (resultSet.next()) {
+                    months.add(YearMonth.from(resultSet.getDate(1).toLocalDate()));
+                }
+            } catch (SQLException e) {
+                log.warn("Could not look for unfinished interest runs on shard {}", shard, e);
+            }
+        }
+        return months;
+    }
+
+    public InterestRunReport run(YearMonth month) {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("An interest run is already in progress");
+        }
+        long started = System.nanoTime();
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "interest-accrual-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            AccrualThrottle throttle = new AccrualThrottle(maxAccountsPerSecond);
+            RunTotals totals = new RunTotals();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+                int partitionShard = shard;
+                for (Partition partition : openRun(shard, month)) {
+                    futures.add(executor.submit(() -> {
+                        accruePartition(partitionShard, month, partition, throttle, totals);
+                        return null;
+                    }));
+                }
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+                closeRun(shard, month);
+            }
+            InterestRunReport report = new InterestRunReport(month, totals.accounts(), totals.amount(), totals.chunks(),
+                    Duration.ofNanos(System.nanoTime() - started));
+            log.info("Interest for {}: {} accounts credited {} in {} chunks, {} ({} accounts/s)", month,
+                    report.creditedAccounts(), report.creditedAmount(), report.chunks(), report.elapsed(),
+                    Math.round(report.accountsPerSecond()));
+            return report;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interest run for " + month + " was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Interest run for " + month + " failed; it resumes on the next run", e.getCause());
+        } catch (SQLException e) {
+            throw new IllegalStateException("Interest run for " + month + " failed; it resumes on the next run", e);
+        } finally {
+            executor.shutdownNow();
+            // Balances changed in SQL, including the chunks of a run that failed part-way
+            accountCacheInvalidator.allAccountsChanged();
+            running.set(false);
+        }
+    }
+
+    // Plans the partitions of a new run, or returns the unfinished partitions of an interrupted one
+    private List<Partition> openRun(int shard, YearMonth month) throws SQLException {
+        Date runMonth = Date.valueOf(month.atDay(1));
+        try (Connection connection = dataSource(shard).getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                try (PreparedStatement insert = connection.prepareStatement(OPEN_RUN)) {
+                    insert.setDate(1, runMonth);
+                    insert.setDouble(2, annualRate / 12);
+                    if (insert.executeUpdate() == 1) {
+                        planPartitions(connection, runMonth);
+                    }
+                }
+                List<Partition> partitions = new ArrayList<>();
+                try (PreparedStatement select = connection.prepareStatement(SELECT_OPEN_PARTITIONS)) {
+                    select.setDate(1, runMonth);
+                    try (ResultSet resultSet = select.executeQuery()) {
+                        while (resultSet.next()) {
+                            partitions.add(new Partition(resultSet.getInt(1), resultSet.getLong(2), resultSet.getLong(3), resultSet.getDouble(4)));
+                        }
+                    }
+                }
+                connection.commit();
+                return partitions;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    // Equal-sized id ranges; accounts opened after the run started are above the last range and earn nothing yet
+    private void planPartitions(Connection connection, Date runMonth) throws SQLException {
+        List<Long> upperIds = new ArrayList<>();
+        try (PreparedStatement bounds = connection.prepareStatement(PLAN_BOUNDS)) {
+            bounds.setInt(1, partitionsPerShard);
+            try (ResultSet resultSet = bounds.executeQuery()) {
+                while (resultSet.next()) {
+                    upperIds.add(resultSet.getLong(1));
+                }
+            }
+        }
+        try (PreparedStatement insert = connection.prepareStatement(INSERT_PARTITION)) {
+            long lowerId = 0;
+            for (int partition = 0; partition < upperIds.size(); partition++) {
+                insert.setDate(1, runMonth);
+                insert.setInt(2, partition);
+                insert.setLong(3, lowerId);
+                insert.setLong(4, upperIds.get(partition));
+                insert.setLong(5, lowerId);
+                insert.addBatch();
+                lowerId = upperIds.get(partition);
+            }
+            insert.executeBatch();
+        }
+    }
+
+    private void accruePartition(int shard, YearMonth month, Partition partition, AccrualThrottle throttle,
+                                 RunTotals totals) throws SQLException, InterruptedException {
+        long lastId = partition.lastId();
+        while (lastId < partition.upperId()) {
+            throttle.acquire(chunkSize);
+            long chunkStarted = System.nanoTime();
+            long chunkEnd = chunkEnd(shard, lastId, partition.upperId());
+            if (!creditChunk(shard, month, partition, lastId, chunkEnd, totals)) {
+                log.warn("Partition {} of shard {} for {} is being worked on elsewhere", partition.number(), shard, month);
+                return;
+            }
+            lastId = chunkEnd;
+            // Slow chunks mean the database is busy: give the online traffic the same time back
+            long chunkMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - chunkStarted);
+            if (chunkMillis > slowChunkMillis) {
+                Thread.sleep(chunkMillis);
+            }
+        }
+    }
+
+    private long chunkEnd(int shard, long lastId, long upperId) throws SQLException {
+        try (Connection connection = dataSource(shard).getConnection();
+             PreparedStatement select = connection.prepareStatement(CHUNK_END)) {
+            select.setLong(1, lastId);
+            select.setLong(2, upperId);
+            select.setInt(3, chunkSize - 1);
+            try (ResultSet resultSet = select.executeQuery()) {
+                return resultSet.next() ? resultSet.getLong(1) : upperId;
+            }
+        }
+    }
+
+    private boolean creditChunk(int shard, YearMonth month, Partition partition, long lastId, long chunkEnd,
+                                RunTotals totals) throws SQLException {
+        LocalDateTime now = LocalDateTime.now();
+        try (Connection connection = dataSource(shard).getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                int credited = 0;
+                double amount = 0;
+                try (PreparedStatement credit = connection.prepareStatement(CREDIT_CHUNK);
+                     PreparedStatement insert = connection.prepareStatement(INSERT_TRANSACTION)) {
+                    credit.setDouble(1, partition.monthlyRate());
+                    credit.setLong(2, lastId);
+                    credit.setLong(3, chunkEnd);
+                    credit.setDate(4, Date.valueOf(now.toLocalDate()));
+                    credit.setDate(5, Date.valueOf(now.toLocalDate().withDayOfMonth(1)));
+                    Timestamp timestamp = Timestamp.valueOf(now);
+                    try (ResultSet resultSet = credit.executeQuery()) {
+                        while (resultSet.next()) {
+                            double interest = resultSet.getDouble(2);
+                            insert.setLong(1, ShardIds.next(shard));
+                            insert.setLong(2, resultSet.getLong(1));
+                            insert.setDouble(3, interest);
+                            insert.setString(4, TransactionType.DEPOSIT.name());
+                            insert.setTimestamp(5, timestamp);
+                            insert.addBatch();
+                            credited++;
+                            amount += interest;
+                        }
+                    }
+                    if (credited > 0) {
+                        insert.executeBatch();
+                    }
+                }
+                try (PreparedStatement checkpoint = connection.prepareStatement(ADVANCE_CHECKPOINT)) {
+                    checkpoint.setLong(1, chunkEnd);
+                    checkpoint.setLong(2, credited);
+                    checkpoint.setDouble(3, amount);
+                    checkpoint.setBoolean(4, chunkEnd >= partition.upperId());
+                    checkpoint.setDate(5, Date.valueOf(month.atDay(1)));
+                    checkpoint.setInt(6, partition.number());
+                    checkpoint.setLong(7, lastId);
+                    if (checkpoint.executeUpdate() == 0) {
+                        connection.rollback();
+                        return false;
+                    }
+                }
+                connection.commit();
+                totals.add(credited, amount);
+                return true;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    private void closeRun(int shard, YearMonth month) throws SQLException {
+        try (Connection connection = dataSource(shard).getConnection();
+             PreparedStatement update = connection.prepareStatement(CLOSE_RUN)) {
+            update.setDate(1, Date.valueOf(month.atDay(1)));
+            update.setDate(2, Date.valueOf(month.atDay(1)));
+            update.executeUpdate();
+        }
+    }
+
+    private DataSource dataSource(int shard) {
+        return shardRouter.primaryDataSource(shard);
+    }
+
+    private record Partition(int number, long lastId, long upperId, double monthlyRate) {
+    }
+
+    private static final class RunTotals {
+        private long accounts;
+        private double amount;
+        private int chunks;
+
+        synchronized void add(int credited, double interest) {
+            accounts += credited;
+            amount += interest;
+            chunks++;
+        }
+
+        synchronized long accounts() {
+            return accounts;
+        }
+
+        synchronized double amount() {
+            return amount;
+        }
+
+        synchronized int chunks() {
+            return chunks;
+        }
+    }
+}
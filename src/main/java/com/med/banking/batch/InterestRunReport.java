@@ -0,0 +1,15 @@
+package com.med.banking.batch;
+
+import java.time.Duration;
+import java.time.YearMonth;
+
+public record InterestRunReport(YearMonth month,
+                                long creditedAccounts,
+                                double creditedAmount,
+                                int chunks,
+                                Duration elapsed) {
+
+    public double accountsPerSecond() {
+        return creditedAccounts * 1_000.0 / Math.max(1, elapsed.toMillis());
+    }
+}
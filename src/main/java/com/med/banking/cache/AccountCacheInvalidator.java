@@ -0,0 +1,60 @@
+package com.med.banking.cache;
+
+import com.med.banking.entity.Account;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Evicts second-level cache entries that writes made outside Hibernate have left stale.
+ * <p>
+ * Hibernate keeps the {@code account} entity region up to date for its own writes and for native updates that name
+ * their tables, such as the tombstone. The cross-shard legs and the
+ * interest chunks are plain JDBC, so their callers report them here. Inside a transaction the entries are evicted
+ * straight away and again after the commit, so a read that cached the old row in between cannot keep it. The regions
+ * are local to the node; writes made on other nodes show up when the entries expire (see ehcache.xml).
+ */
+@Component
+public class AccountCacheInvalidator {
+
+    public static final String ACCOUNT_REGION = "account";
+
+    private final Cache cache;
+
+    @Autowired
+    public AccountCacheInvalidator(EntityManagerFactory entityManagerFactory) {
+        this.cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+    }
+
+    public void accountsChanged(Long... ids) {
+        evictAccounts(ids);
+        afterCommit(() -> evictAccounts(ids));
+    }
+
+    // After a bulk update of balances, such as an interest run
+    public void allAccountsChanged() {
+        cache.evictEntityData(Account.class);
+    }
+
+    private void evictAccounts(Long[] ids) {
+        for (Long id : ids) {
+            cache.evictEntityData(Account.class, id);
+        }
+    }
+
+    private static void afterCommit(Runnable eviction) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                eviction.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,56 @@
+package com.med.banking.clock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The current time read from a field instead of the system clock, so the request paths do not allocate a
+ * LocalDateTime for every transaction they record. The first read after {@code banking.clock.resolution-millis}
+ * have passed takes a new reading; the time it returns is at most that far behind, and an idle node does no work.
+ */
+@Component
+public class CachedClock {
+
+    private final long resolutionNanos;
+    private volatile Reading reading;
+
+    @Autowired
+    public CachedClock(@Value("${banking.clock.resolution-millis:1}") long resolutionMillis) {
+        this.resolutionNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, resolutionMillis));
+        this.reading = read(System.nanoTime(), null);
+    }
+
+    public LocalDateTime now() {
+        return current().now();
+    }
+
+    public LocalDate today() {
+        return current().today();
+    }
+
+    // Threads that find the reading expired at the same time each take one; whichever is stored last is current
+    private Reading current() {
+        Reading current = reading;
+        long nanos = System.nanoTime();
+        if (nanos - current.takenAt() >= resolutionNanos) {
+            current = read(nanos, current);
+            reading = current;
+        }
+        return current;
+    }
+
+    private static Reading read(long nanos, Reading previous) {
+        LocalDateTime now = LocalDateTime.now();
+        // The date only changes once a day; keep handing out the same instance until then
+        LocalDate today = previous != null && previous.today().isEqual(now.toLocalDate()) ? previous.today() : now.toLocalDate();
+        return new Reading(now, today, nanos);
+    }
+
+    private record Reading(LocalDateTime now, LocalDate today, long takenAt) {
+    }
+}
@@ -0,0 +1,61 @@
+package com.med.banking.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.med.banking.admission.AdmissionControlFilter;
+import com.med.banking.admission.GradientConcurrencyLimit;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Registers the {@link AdmissionControlFilter} with one limit for writes and one for reads, and publishes the state
+ * of both as {@code banking.admission.*} meters tagged with {@code pool=write|read}.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "banking.admission.enabled", havingValue = "true", matchIfMissing = true)
+public class AdmissionControlConfig {
+
+    @Bean
+    public FilterRegistrationBean<AdmissionControlFilter> admissionControlFilter(
+            ObjectMapper objectMapper, MeterRegistry meterRegistry,
+            @Value("${banking.admission.write.initial-limit:20}") int writeInitialLimit,
+            @Value("${banking.admission.write.max-limit:100}") int writeMaxLimit,
+            @Value("${banking.admission.read.initial-limit:50}") int readInitialLimit,
+            @Value("${banking.admission.read.max-limit:200}") int readMaxLimit,
+            @Value("${banking.admission.min-limit:2}") int minLimit,
+            @Value("${banking.admission.rtt-tolerance:2.0}") double rttTolerance,
+            @Value("${banking.admission.retry-after-seconds:1}") int retryAfterSeconds) {
+        GradientConcurrencyLimit writeLimit = new GradientConcurrencyLimit(writeInitialLimit, minLimit, writeMaxLimit, rttTolerance);
+        GradientConcurrencyLimit readLimit = new GradientConcurrencyLimit(readInitialLimit, minLimit, readMaxLimit, rttTolerance);
+        bindMetrics(meterRegistry, "write", writeLimit);
+        bindMetrics(meterRegistry, "read", readLimit);
+
+        FilterRegistrationBean<AdmissionControlFilter> registration = new FilterRegistrationBean<>(
+                new AdmissionControlFilter(writeLimit, readLimit, objectMapper, retryAfterSeconds));
+        registration.addUrlPatterns("/api/accounts/*");
+        // Before everything else, so a rejected request costs as little as possible
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    private static void bindMetrics(MeterRegistry meterRegistry, String pool, GradientConcurrencyLimit limit) {
+        Gauge.builder("banking.admission.limit", limit, GradientConcurrencyLimit::limit)
+                .description("Concurrent requests currently admitted")
+                .tag("pool", pool)
+                .register(meterRegistry);
+        Gauge.builder("banking.admission.in-flight", limit, GradientConcurrencyLimit::inFlight)
+                .description("Requests being served")
+                .tag("pool", pool)
+                .register(meterRegistry);
+        FunctionCounter.builder("banking.admission.rejected", limit, GradientConcurrencyLimit::rejected)
+                .description("Requests answered with 503 because the limit was reached")
+                .tag("pool", pool)
+                .register(meterRegistry);
+    }
+}
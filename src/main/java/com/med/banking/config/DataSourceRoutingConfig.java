@@ -0,0 +1,49 @@
+package com.med.banking.config;
+
+import com.med.banking.sharding.ShardDataSources;
+import com.med.banking.sharding.ShardRoutingDataSource;
+import com.med.banking.sharding.ShardingProperties;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+
+/**
+ * Builds the DataSource JPA runs on: shard routing on top, read/write routing per shard underneath.
+ * With no replica and no additional shards configured this is a single pool on {@code spring.datasource}.
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties({ReplicaDataSourceProperties.class, ShardingProperties.class})
+public class DataSourceRoutingConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties primaryProperties) {
+        return primaryProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ShardDataSources shardDataSources(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                             ReplicaDataSourceProperties replicaProperties,
+                                             ShardingProperties shardingProperties,
+                                             ReadYourWritesGuard readYourWritesGuard) {
+        return new ShardDataSources(primaryDataSource, replicaProperties, shardingProperties.additionalShards(), readYourWritesGuard);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardDataSources shardDataSources) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(new ShardRoutingDataSource(shardDataSources));
+        dataSource.setDefaultAutoCommit(true);
+        dataSource.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        return dataSource;
+    }
+}
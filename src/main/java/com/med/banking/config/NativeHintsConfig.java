@@ -0,0 +1,35 @@
+package com.med.banking.config;
+
+import com.med.banking.dto.AccountDTO;
+import com.med.banking.dto.AccountImportResultDTO;
+import com.med.banking.dto.AccountImportSummaryDTO;
+import com.med.banking.exception.ErrorDetails;
+import com.med.banking.sharding.ShardedIdGenerator;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+/**
+ * What the native image needs beyond what Spring's AOT processing finds on its own: the DTOs that go through
+ * the ObjectMapper directly instead of a controller signature (import lines and results, the admission filter's
+ * error body), Hibernate's reflective construction of the sharded id generator, schema.sql, which every
+ * additional shard is initialised from, and the cache regions in ehcache.xml.
+ */
+@Configuration(proxyBeanMethods = false)
+@ImportRuntimeHints(NativeHintsConfig.BankingRuntimeHints.class)
+@RegisterReflectionForBinding({AccountDTO.class, AccountImportResultDTO.class, AccountImportSummaryDTO.class, ErrorDetails.class})
+public class NativeHintsConfig {
+
+    static class BankingRuntimeHints implements RuntimeHintsRegistrar {
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            hints.reflection().registerType(ShardedIdGenerator.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+            hints.resources().registerPattern("schema.sql");
+            hints.resources().registerPattern("ehcache.xml");
+        }
+    }
+}
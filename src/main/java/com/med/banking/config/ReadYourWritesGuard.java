@@ -0,0 +1,219 @@
+package com.med.banking.config;
+
+import com.med.banking.sharding.ShardIds;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps reads of recently written accounts on the primary so a client never reads its own write back from a
+ * replica that has not caught up yet.
+ * <p>
+ * On the node that made the write the account stays on the primary for the window. Other nodes cannot know about
+ * that window, so a write that commits on a shard with a replica also answers with the primary's WAL position in the
+ * {@value #READ_AFTER_HEADER} header, as {@code shard:lsn} pairs. A client that sends the header back on its reads
+ * is served by the replica only once {@code pg_last_wal_replay_lsn()} has reached that position, whichever node it
+ * lands on. Clients that do not send it get the per-node window only, which holds when the load balancer keeps them
+ * on one node.
+ */
+@Component
+public class ReadYourWritesGuard {
+
+    public static final String READ_AFTER_HEADER = "X-Read-After";
+
+    private static final Logger log = LoggerFactory.getLogger(ReadYourWritesGuard.class);
+
+    private static final int CLEANUP_THRESHOLD = 10_000;
+
+    private static final ThreadLocal<Boolean> PRIMARY_PINNED = new ThreadLocal<>();
+
+    private final long windowNanos;
+    private final ConcurrentHashMap<Long, Long> recentWrites = new ConcurrentHashMap<>();
+    private final Map<Integer, ReplicatedShard> replicatedShards = new ConcurrentHashMap<>();
+
+    public ReadYourWritesGuard(@Value("${banking.datasource.read-your-writes-window-ms:2000}") long windowMillis) {
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+    }
+
+    // Called by ShardDataSources for every shard that has a replica
+    public void registerReplica(int shard, DataSource primary, DataSource replica) {
+        replicatedShards.put(shard, new ReplicatedShard(new JdbcTemplate(primary), new JdbcTemplate(replica), new AtomicLong()));
+    }
+
+    // Opens the primary-only window now and extends it once the surrounding transaction has committed
+    public void recordWrite(Long... accountIds) {
+        stamp(accountIds);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    stamp(accountIds);
+                    sendReadAfter(accountIds);
+                }
+            });
+        } else {
+            sendReadAfter(accountIds);
+        }
+    }
+
+    // Pins the current read-only transaction to the primary when the account is still inside its window, or when
+    // the shard's replica has not replayed the position the client says it has written up to
+    public void routeRead(Long accountId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || (!isRecentlyWritten(accountId) && replicaHasCaughtUp(ShardIds.shardOf(accountId)))) {
+            return;
+        }
+        PRIMARY_PINNED.set(Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                PRIMARY_PINNED.remove();
+            }
+        });
+    }
+
+    public boolean isPrimaryPinned() {
+        return PRIMARY_PINNED.get() != null;
+    }
+
+    public boolean isRecentlyWritten(Long accountId) {
+        Long expiry = recentWrites.get(accountId);
+        if (expiry == null) {
+            return false;
+        }
+        if (System.nanoTime() - expiry > 0) {
+            recentWrites.remove(accountId, expiry);
+            return false;
+        }
+        return true;
+    }
+
+    private void stamp(Long... accountIds) {
+        long now = System.nanoTime();
+        for (Long accountId : accountIds) {
+            recentWrites.put(accountId, now + windowNanos);
+        }
+        if (recentWrites.size() > CLEANUP_THRESHOLD) {
+            recentWrites.values().removeIf(expiry -> now - expiry > 0);
+        }
+    }
+
+    private boolean replicaHasCaughtUp(int shard) {
+        ReplicatedShard replicatedShard = replicatedShards.get(shard);
+        HttpServletRequest request = currentRequest();
+        if (replicatedShard == null || request == null) {
+            return true;
+        }
+        Long required = parseReadAfter(request.getHeader(READ_AFTER_HEADER)).get(shard);
+        if (required == null || replicatedShard.replayed().get() >= required) {
+            return true;
+        }
+        try {
+            long replayed = parseLsn(replicatedShard.replica().queryForObject("SELECT pg_last_wal_replay_lsn()::text", String.class));
+            replicatedShard.replayed().accumulateAndGet(replayed, Math::max);
+            return replayed >= required;
+        } catch (DataAccessException | IllegalArgumentException e) {
+            log.warn("Could not read the replay position of the replica of shard {}", shard, e);
+            return false;
+        }
+    }
+
+    // The client's position merged with the primary's current one for every replicated shard written to
+    private void sendReadAfter(Long... accountIds) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes servletAttributes) || servletAttributes.getResponse() == null) {
+            return;
+        }
+        HttpServletResponse response = servletAttributes.getResponse();
+        String current = response.getHeader(READ_AFTER_HEADER);
+        Map<Integer, Long> positions = parseReadAfter(current != null ? current : servletAttributes.getRequest().getHeader(READ_AFTER_HEADER));
+        boolean changed = false;
+        Set<Integer> shards = new TreeSet<>();
+        for (Long accountId : accountIds) {
+            shards.add(ShardIds.shardOf(accountId));
+        }
+        for (int shard : shards) {
+            ReplicatedShard replicatedShard = replicatedShards.get(shard);
+            if (replicatedShard == null) {
+                continue;
+            }
+            try {
+                long position = parseLsn(replicatedShard.primary().queryForObject("SELECT pg_current_wal_lsn()::text", String.class));
+                positions.merge(shard, position, Math::max);
+                changed = true;
+            } catch (DataAccessException | IllegalArgumentException e) {
+                log.warn("Could not read the WAL position of shard {}; other nodes may serve its replica", shard, e);
+            }
+        }
+        if (changed) {
+            response.setHeader(READ_AFTER_HEADER, formatReadAfter(positions));
+        }
+    }
+
+    private static HttpServletRequest currentRequest() {
+        return RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes servletAttributes
+                ? servletAttributes.getRequest()
+                : null;
+    }
+
+    // "0:16/B374D848,1:0/3000060"; a malformed header counts as no header
+    static Map<Integer, Long> parseReadAfter(String header) {
+        Map<Integer, Long> positions = new TreeMap<>();
+        if (header == null || header.isBlank()) {
+            return positions;
+        }
+        try {
+            for (String entry : header.split(",")) {
+                int separator = entry.indexOf(':');
+                positions.merge(Integer.parseInt(entry.substring(0, separator).trim()),
+                        parseLsn(entry.substring(separator + 1).trim()), Math::max);
+            }
+        } catch (RuntimeException e) {
+            positions.clear();
+        }
+        return positions;
+    }
+
+    static String formatReadAfter(Map<Integer, Long> positions) {
+        StringBuilder header = new StringBuilder();
+        positions.forEach((shard, lsn) -> {
+            if (!header.isEmpty()) {
+                header.append(',');
+            }
+            header.append(shard).append(':').append(Long.toHexString(lsn >>> 32).toUpperCase())
+                    .append('/').append(Long.toHexString(lsn & 0xFFFFFFFFL).toUpperCase());
+        });
+        return header.toString();
+    }
+
+    // PostgreSQL prints a pg_lsn as the high and low 32 bits in hex
+    static long parseLsn(String lsn) {
+        int slash = lsn == null ? -1 : lsn.indexOf('/');
+        if (slash < 0) {
+            throw new IllegalArgumentException("Not a WAL position: " + lsn);
+        }
+        return (Long.parseLong(lsn.substring(0, slash), 16) << 32) | Long.parseLong(lsn.substring(slash + 1), 16);
+    }
+
+    private record ReplicatedShard(JdbcTemplate primary, JdbcTemplate replica, AtomicLong replayed) {
+    }
+}
@@ -0,0 +1,7 @@
+package com.med.banking.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "banking.datasource.replica")
+public record ReplicaDataSourceProperties(String url, String username, String password) {
+}
@@ -0,0 +1,19 @@
+package com.med.banking.constants;
+
+import com.med.banking.exception.InvalidRequestException;
+
+import java.util.Locale;
+
+public enum AccountSearchMode {
+    PREFIX,
+    CONTAINS,
+    FUZZY;
+
+    public static AccountSearchMode fromParameter(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException("mode must be prefix, contains or fuzzy");
+        }
+    }
+}
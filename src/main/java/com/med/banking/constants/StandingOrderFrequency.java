@@ -0,0 +1,21 @@
+package com.med.banking.constants;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+
+public enum StandingOrderFrequency {
+    DAILY,
+    WEEKLY,
+    MONTHLY;
+
+    // Monthly orders count months from the anchor, so an order on the 31st runs on the 28th in February and on the
+    // 31st again in March instead of staying on the 28th
+    public LocalDateTime next(LocalDateTime anchor, LocalDateTime execution) {
+        return switch (this) {
+            case DAILY -> execution.plusDays(1);
+            case WEEKLY -> execution.plusWeeks(1);
+            case MONTHLY -> anchor.plusMonths(YearMonth.from(anchor).until(YearMonth.from(execution), ChronoUnit.MONTHS) + 1);
+        };
+    }
+}
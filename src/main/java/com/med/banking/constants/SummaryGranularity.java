@@ -0,0 +1,23 @@
+package com.med.banking.constants;
+
+import com.med.banking.exception.InvalidRequestException;
+
+import java.time.LocalDate;
+import java.util.Locale;
+
+public enum SummaryGranularity {
+    DAY,
+    MONTH;
+
+    public LocalDate periodStart(LocalDate date) {
+        return this == DAY ? date : date.withDayOfMonth(1);
+    }
+
+    public static SummaryGranularity fromParameter(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException("granularity must be day or month");
+        }
+    }
+}
@@ -1,27 +1,81 @@
 package com.med.banking.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.med.banking.clock.CachedClock;
+import com.med.banking.constants.AccountSearchMode;
+import com.med.banking.constants.ImportFormat;
+import com.med.banking.constants.SummaryGranularity;
+import com.med.banking.dto.AccountActivityDTO;
+import com.med.banking.dto.AccountBatchDTO;
+import com.med.banking.dto.AccountBatchRequestDTO;
 import com.med.banking.dto.AccountDTO;
+import com.med.banking.dto.AccountImportSummaryDTO;
+import com.med.banking.dto.AccountSearchPageDTO;
+import com.med.banking.dto.AccountSuggestionDTO;
+import com.med.banking.dto.DepositRequestDTO;
 import com.med.banking.dto.TransactionDTO;
 import com.med.banking.dto.TransferFundDTO;
+import com.med.banking.dto.WithdrawRequestDTO;
+import com.med.banking.exception.InvalidRequestException;
+import com.med.banking.service.AccountImportService;
+import com.med.banking.service.AccountSearchService;
 import com.med.banking.service.AccountService;
+import com.med.banking.service.StatementExportService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.accept.ContentNegotiationManager;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.HandlerMapping;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/accounts")
 
 public class AccountController {
 
+    private static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
 
     private final AccountService accountService;
+    private final AccountImportService accountImportService;
+    private final AccountSearchService accountSearchService;
+    private final StatementExportService statementExportService;
+    private final ObjectMapper objectMapper;
+    private final CachedClock cachedClock;
+    private final ContentNegotiationManager contentNegotiationManager;
     @Autowired
-    public AccountController(AccountService accountService) {
+    public AccountController(AccountService accountService, AccountImportService accountImportService,
+                             AccountSearchService accountSearchService, StatementExportService statementExportService,
+                             ObjectMapper objectMapper, CachedClock cachedClock,
+                             ContentNegotiationManager contentNegotiationManager) {
         this.accountService = accountService;
+        this.accountImportService = accountImportService;
+        this.accountSearchService = accountSearchService;
+        this.statementExportService = statementExportService;
+        this.objectMapper = objectMapper;
+        this.cachedClock = cachedClock;
+        this.contentNegotiationManager = contentNegotiationManager;
     }
 
     //Add account Rest api
@@ -30,33 +84,84 @@ public class AccountController {
         return new ResponseEntity<>(accountService.createAccount(accountDTO), HttpStatus.CREATED);
     }
 
+    // Bulk import Rest API: one result line per input line as NDJSON, then a summary line
+    @PostMapping(value = "/import", consumes = {ImportFormat.TEXT_CSV_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public void importAccounts(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                               HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ImportFormat format = ImportFormat.fromContentType(contentType);
+        Charset charset = contentType.getCharset() != null ? contentType.getCharset() : StandardCharsets.UTF_8;
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        Writer out = response.getWriter();
+        try (BufferedReader body = new BufferedReader(new InputStreamReader(request.getInputStream(), charset), 1 << 16)) {
+            AccountImportSummaryDTO summary = accountImportService.importAccounts(body, format, result -> writeLine(out, result));
+            writeLine(out, summary);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        out.flush();
+    }
+
     //Get Account Rest Api
     @GetMapping("/{id}")
-    public ResponseEntity<AccountDTO> getAccountbyId(@PathVariable Long id) {
-        return ResponseEntity.ok(accountService.getAccountById(id));
+    public ResponseEntity<AccountDTO> getAccountbyId(@PathVariable Long id, WebRequest webRequest) {
+        // 304 from the version alone; the ETag is also set on a full response, whose body is at least that version
+        // even when this node's cache has not seen a write made on another node
+        long version = accountService.getAccountVersion(id);
+        if (webRequest.checkNotModified("a" + id + "-" + version)) {
+            return null;
+        }
+        return ResponseEntity.ok(accountService.getAccountById(id, version));
+
+    }
+
+    // Account holder name search Rest API: mode is prefix, contains or fuzzy
+    @GetMapping("/search")
+    public ResponseEntity<AccountSearchPageDTO> searchAccounts(@RequestParam String q,
+                                                               @RequestParam(defaultValue = "prefix") String mode,
+                                                               @RequestParam(defaultValue = "0") int page,
+                                                               @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(accountSearchService.searchAccounts(q, AccountSearchMode.fromParameter(mode), page, size));
+    }
+
+    // Autocomplete Rest API: names starting with q
+    @GetMapping("/search/suggest")
+    public ResponseEntity<List<AccountSuggestionDTO>> suggestAccounts(@RequestParam String q,
+                                                                      @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(accountSearchService.suggestAccounts(q, limit));
+    }
 
+    // Multi-get Rest API: found accounts in request order plus the ids that do not exist
+    @PostMapping("/batch-get")
+    public ResponseEntity<AccountBatchDTO> getAccountsByIds(@RequestBody AccountBatchRequestDTO request) {
+        return ResponseEntity.ok(accountService.getAccountsByIds(request.ids()));
     }
 
     // Deposit Rest API
     @PutMapping("/{id}/deposit")
-    public ResponseEntity<AccountDTO> deposit(@PathVariable Long id, @RequestBody Map<String, Double> request) {
-        Double amount = request.get("amount");
-        AccountDTO accountDTO = accountService.deposit(id, amount);
+    public ResponseEntity<AccountDTO> deposit(@PathVariable Long id, @RequestBody DepositRequestDTO request) {
+        if (request.amount() == null) {
+            throw new InvalidRequestException("amount is required");
+        }
+        AccountDTO accountDTO = accountService.deposit(id, request.amount());
         return ResponseEntity.ok(accountDTO);
     }
 
     // withdraw amount Rest API
     @PutMapping("/{id}/withdraw")
-    public ResponseEntity<AccountDTO> withdraw(@PathVariable Long id, @RequestBody Map<String, Double> request) {
-            Double amount = request.get("withdraw_amount");
-            AccountDTO accountDTO = accountService.withdraw(id, amount);
+    public ResponseEntity<AccountDTO> withdraw(@PathVariable Long id, @RequestBody WithdrawRequestDTO request) {
+            if (request.withdrawAmount() == null) {
+                throw new InvalidRequestException("withdraw_amount is required");
+            }
+            AccountDTO accountDTO = accountService.withdraw(id, request.withdrawAmount());
             return new ResponseEntity<>(accountDTO, HttpStatus.OK);
     }
 
     // Get All Accounts Rest API
-    @GetMapping
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE})
     public ResponseEntity<List<AccountDTO>> getAllAccounts() {
-        return ResponseEntity.ok(accountService.getAllAccounts());
+        return ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT).body(accountService.getAllAccounts());
 
 
     }
@@ -77,12 +182,85 @@ public class AccountController {
         return ResponseEntity.ok("Transfer processed successfully");
     }
 
-    @GetMapping("/{accountId}/transactions")
-    public ResponseEntity<List<TransactionDTO>> getAccountTransactions(@PathVariable Long accountId){
-        return ResponseEntity.ok(accountService.getAccountTransactions(accountId));
+    @GetMapping(value = "/{accountId}/transactions",
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE})
+    public ResponseEntity<List<TransactionDTO>> getAccountTransactions(@PathVariable Long accountId,
+                                                                       HttpServletRequest request, WebRequest webRequest,
+                                                                       HttpServletResponse response) throws HttpMediaTypeNotAcceptableException {
+        // Every transaction row is written together with a version bump of its account. The three encodings of a
+        // version are different bytes, so the ETag names the one negotiated and caches key on Accept as well
+        long version = accountService.getAccountVersion(accountId);
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        if (webRequest.checkNotModified("t" + accountId + "-" + version + "-" + negotiatedType(request).getSubtype())) {
+            return null;
+        }
+        return ResponseEntity.ok(accountService.getAccountTransactions(accountId, version));
+    }
+
+    // Statement export Rest API: CSV streamed from the database, from and to are inclusive dates
+    @GetMapping(value = "/{id}/statement.csv", produces = ImportFormat.TEXT_CSV_VALUE)
+    public void exportStatement(@PathVariable Long id,
+                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                HttpServletResponse response) throws IOException {
+        LocalDate firstDay = from != null ? from : LocalDate.of(1970, 1, 1);
+        LocalDate lastDay = to != null ? to : cachedClock.today();
+        if (lastDay.isBefore(firstDay)) {
+            throw new InvalidRequestException("from must not be after to");
+        }
+        // Fails with 404 before anything is written
+        accountService.getAccountVersion(id);
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(ImportFormat.TEXT_CSV_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename("statement-" + id + ".csv").build().toString());
+        Writer out = response.getWriter();
+        statementExportService.writeStatement(id, firstDay.atStartOfDay(), lastDay.plusDays(1).atStartOfDay(), out);
+        out.flush();
     }
 
+    // Account activity summary Rest API
+    @GetMapping("/{id}/summary")
+    public ResponseEntity<List<AccountActivityDTO>> getAccountSummary(@PathVariable Long id,
+                                                                      @RequestParam(defaultValue = "day") String granularity) {
+        return ResponseEntity.ok(accountService.getAccountSummary(id, SummaryGranularity.fromParameter(granularity)));
+    }
 
+    private void writeLine(Writer out, Object value) {
+        try {
+            out.write(objectMapper.writeValueAsString(value));
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // The type the message converters will write, chosen the way AbstractMessageConverterMethodProcessor does: from
+    // the same ContentNegotiationManager and the produces types the handler mapping matched for this request
+    @SuppressWarnings("unchecked")
+    private MediaType negotiatedType(HttpServletRequest request) throws HttpMediaTypeNotAcceptableException {
+        Set<MediaType> producibleTypes = (Set<MediaType>) request.getAttribute(HandlerMapping.PRODUCIBLE_MEDIA_TYPES_ATTRIBUTE);
+        if (producibleTypes == null || producibleTypes.isEmpty()) {
+            return MediaType.APPLICATION_JSON;
+        }
+        List<MediaType> compatibleTypes = new ArrayList<>();
+        for (MediaType acceptableType : contentNegotiationManager.resolveMediaTypes(new ServletWebRequest(request))) {
+            for (MediaType producibleType : producibleTypes) {
+                if (acceptableType.isCompatibleWith(producibleType)) {
+                    MediaType producibleWithQuality = producibleType.copyQualityValue(acceptableType);
+                    compatibleTypes.add(acceptableType.isLessSpecific(producibleWithQuality) ? producibleWithQuality : acceptableType);
+                }
+            }
+        }
+        MimeTypeUtils.sortBySpecificity(compatibleTypes);
+        for (MediaType type : compatibleTypes) {
+            if (type.isConcrete()) {
+                return type;
+            }
+        }
+        return producibleTypes.iterator().next();
+    }
 
 }
 
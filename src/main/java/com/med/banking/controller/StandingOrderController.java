@@ -0,0 +1,54 @@
+package com.med.banking.controller;
+
+import com.med.banking.dto.StandingOrderDTO;
+import com.med.banking.service.StandingOrderService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/standing-orders")
+
+public class StandingOrderController {
+
+    private final StandingOrderService standingOrderService;
+    @Autowired
+    public StandingOrderController(StandingOrderService standingOrderService) {
+        this.standingOrderService = standingOrderService;
+    }
+
+    // Create standing order Rest API
+    @PostMapping
+    public ResponseEntity<StandingOrderDTO> createStandingOrder(@RequestBody StandingOrderDTO standingOrderDTO) {
+        return new ResponseEntity<>(standingOrderService.createStandingOrder(standingOrderDTO), HttpStatus.CREATED);
+    }
+
+    // Get standing order Rest API
+    @GetMapping("/{id}")
+    public ResponseEntity<StandingOrderDTO> getStandingOrderById(@PathVariable Long id) {
+        return ResponseEntity.ok(standingOrderService.getStandingOrderById(id));
+    }
+
+    // Standing orders debiting an account Rest API
+    @GetMapping
+    public ResponseEntity<List<StandingOrderDTO>> getStandingOrdersByAccount(@RequestParam Long accountId) {
+        return ResponseEntity.ok(standingOrderService.getStandingOrdersByAccount(accountId));
+    }
+
+    // Update standing order Rest API
+    @PutMapping("/{id}")
+    public ResponseEntity<StandingOrderDTO> updateStandingOrder(@PathVariable Long id, @RequestBody StandingOrderDTO standingOrderDTO) {
+        return ResponseEntity.ok(standingOrderService.updateStandingOrder(id, standingOrderDTO));
+    }
+
+    // Delete standing order Rest API
+    @DeleteMapping("/{id}")
+    public ResponseEntity<String> deleteStandingOrder(@PathVariable Long id) {
+        standingOrderService.deleteStandingOrder(id);
+        return ResponseEntity.ok("Standing order deleted successfully");
+    }
+
+}
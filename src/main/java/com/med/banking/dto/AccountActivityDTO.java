@@ -0,0 +1,12 @@
+package com.med.banking.dto;
+
+import java.time.LocalDate;
+
+public record AccountActivityDTO(LocalDate periodStart,
+                                 double depositTotal,
+                                 long depositCount,
+                                 double withdrawTotal,
+                                 long withdrawCount,
+                                 double transferTotal,
+                                 long transferCount) {
+}
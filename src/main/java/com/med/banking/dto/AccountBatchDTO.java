@@ -0,0 +1,8 @@
+package com.med.banking.dto;
+
+import java.util.List;
+
+public record AccountBatchDTO(List<AccountDTO> accounts,
+                              List<Long> missingIds) {
+
+}
@@ -0,0 +1,7 @@
+package com.med.banking.dto;
+
+import java.util.List;
+
+public record AccountBatchRequestDTO(List<Long> ids) {
+
+}
@@ -0,0 +1,8 @@
+package com.med.banking.dto;
+
+// One line of an import: either the id of the created account or the reason the line was rejected
+public record AccountImportResultDTO(long line,
+                                     Long id,
+                                     String error) {
+
+}
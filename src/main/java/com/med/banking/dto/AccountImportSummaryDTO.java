@@ -0,0 +1,6 @@
+package com.med.banking.dto;
+
+public record AccountImportSummaryDTO(long imported,
+                                      long failed) {
+
+}
@@ -0,0 +1,10 @@
+package com.med.banking.dto;
+
+import java.util.List;
+
+public record AccountSearchPageDTO(List<AccountDTO> accounts,
+                                   int page,
+                                   int size,
+                                   boolean hasMore) {
+
+}
@@ -0,0 +1,6 @@
+package com.med.banking.dto;
+
+public record AccountSuggestionDTO(Long id,
+                                   String accountHolderName) {
+
+}
@@ -0,0 +1,5 @@
+package com.med.banking.dto;
+
+// Boxed so that a missing or misspelled amount arrives as null instead of 0.0
+public record DepositRequestDTO(Double amount) {
+}
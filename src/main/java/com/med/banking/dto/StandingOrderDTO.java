@@ -0,0 +1,17 @@
+package com.med.banking.dto;
+
+import com.med.banking.constants.StandingOrderFrequency;
+
+import java.time.LocalDateTime;
+
+public record StandingOrderDTO(Long id,
+                               Long fromAccountId,
+                               Long toAccountId,
+                               double amount,
+                               StandingOrderFrequency frequency,
+                               LocalDateTime nextExecution,
+                               LocalDateTime lastExecution,
+                               String lastFailure,
+                               boolean active) {
+
+}
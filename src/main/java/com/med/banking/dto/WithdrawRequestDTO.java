@@ -0,0 +1,6 @@
+package com.med.banking.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public record WithdrawRequestDTO(@JsonProperty("withdraw_amount") Double withdrawAmount) {
+}
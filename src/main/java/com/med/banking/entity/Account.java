@@ -1,10 +1,18 @@
 package com.med.banking.entity;
 
+import com.med.banking.cache.AccountCacheInvalidator;
+import com.med.banking.sharding.ShardedId;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.SQLRestriction;
+
+import java.time.LocalDateTime;
 
 @Getter
 @Setter
@@ -12,13 +20,32 @@ import lombok.Setter;
 @AllArgsConstructor
 @Table(name="accounts")
 @Entity
+// Tombstoned accounts are invisible to every JPA read; AccountPurgeJob removes them with their history
+@SQLRestriction("deleted_at IS NULL")
+// Reads by id and the batch get are served from the node-local second-level cache when the entry is there
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = AccountCacheInvalidator.ACCOUNT_REGION)
 public class Account {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @ShardedId
     private Long id;
 
     @Column(name = "account_holder_name")
     private String accountHolderName;
     private double balance;
+
+    // Bumped on every change of the account and of its history; the ETag of both and the optimistic lock
+    @Version
+    @ColumnDefault("0")
+    private long version;
+
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt;
+
+    public Account(Long id, String accountHolderName, double balance) {
+        this.id = id;
+        this.accountHolderName = accountHolderName;
+        this.balance = balance;
+    }
 }
@@ -0,0 +1,25 @@
+package com.med.banking.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Running totals of one account for one day or month, maintained in the same database transaction as every
+ * transaction row so summaries never have to scan the history.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name="account_activity")
+public class AccountActivity {
+    @EmbeddedId
+    private AccountActivityId id;
+    private double depositTotal;
+    private long depositCount;
+    private double withdrawTotal;
+    private long withdrawCount;
+    private double transferTotal;
+    private long transferCount;
+}
@@ -0,0 +1,22 @@
+package com.med.banking.entity;
+
+import com.med.banking.constants.SummaryGranularity;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode
+@Embeddable
+public class AccountActivityId implements Serializable {
+    private Long accountId;
+    @Enumerated(value = EnumType.STRING)
+    @Column(length = 8)
+    private SummaryGranularity granularity;
+    private LocalDate periodStart;
+}
@@ -0,0 +1,35 @@
+package com.med.banking.entity;
+
+import com.med.banking.constants.StandingOrderFrequency;
+import com.med.banking.sharding.ShardedId;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A recurring transfer. It is stored on the shard of the account it debits, so a firing can claim the order and
+ * move the money in the same transaction.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name="standing_orders")
+public class StandingOrder {
+    @Id
+    @ShardedId
+    private Long id;
+    private Long fromAccountId;
+    private Long toAccountId;
+    private double amount;
+    @Enumerated(value = EnumType.STRING)
+    private StandingOrderFrequency frequency;
+    // First execution the schedule counts from; it only moves when the frequency or the next execution is changed
+    private LocalDateTime anchorExecution;
+    private LocalDateTime nextExecution;
+    private LocalDateTime lastExecution;
+    private String lastFailure;
+    private boolean active;
+}
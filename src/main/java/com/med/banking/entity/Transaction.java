@@ -1,6 +1,7 @@
 package com.med.banking.entity;
 
 import com.med.banking.constants.TransactionType;
+import com.med.banking.sharding.ShardedId;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -14,7 +15,7 @@ import java.time.LocalDateTime;
 @Table(name="transactions")
 public class Transaction {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @ShardedId
     private Long transactionId;
     private Long accountId;
     private double amount;
@@ -2,7 +2,8 @@ package com.med.banking.exception;
 
 public class AccountException extends RuntimeException
 {
+    // Thrown for expected outcomes and answered by GlobalExceptionHandler, so it skips capturing a stack trace
     public AccountException(String message){
-        super(message);
+        super(message, null, false, false);
     }
 }
@@ -0,0 +1,8 @@
+package com.med.banking.exception;
+
+public class AccountNotFoundException extends AccountException
+{
+    public AccountNotFoundException(String message){
+        super(message);
+    }
+}
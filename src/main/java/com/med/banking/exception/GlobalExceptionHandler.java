@@ -1,6 +1,7 @@
 package com.med.banking.exception;
 
 import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -11,7 +12,22 @@ import java.time.LocalDateTime;
 @ControllerAdvice
 public class GlobalExceptionHandler {
 
-    // Handling specific exception- AccountException
+    // Handling specific exception- AccountNotFoundException
+
+    @ExceptionHandler(AccountNotFoundException.class)
+    public ResponseEntity<ErrorDetails> accountNotFoundExceptionHandler(AccountNotFoundException exception, WebRequest webRequest) {
+
+        ErrorDetails errorDetails = new ErrorDetails(
+                LocalDateTime.now(),
+                exception.getMessage(),
+                webRequest.getDescription(false),
+                "ACCOUNT_NOT_FOUND"
+        );
+        return new ResponseEntity<>(errorDetails, HttpStatus.NOT_FOUND);
+
+    }
+
+    // Handling any other AccountException
 
     @ExceptionHandler(AccountException.class)
     public ResponseEntity<ErrorDetails> AccountExceptionHandler(AccountException exception, WebRequest webRequest) {
@@ -20,12 +36,87 @@ public class GlobalExceptionHandler {
                 LocalDateTime.now(),
                 exception.getMessage(),
                 webRequest.getDescription(false),
-                "ACCOUNT_NOT_FOUND"
+                "ACCOUNT_ERROR"
+        );
+        return new ResponseEntity<>(errorDetails, HttpStatus.UNPROCESSABLE_ENTITY);
+
+    }
+
+    // Handling specific exception- InsufficientBalanceException
+
+    @ExceptionHandler(InsufficientBalanceException.class)
+    public ResponseEntity<ErrorDetails> insufficientBalanceExceptionHandler(InsufficientBalanceException exception, WebRequest webRequest) {
+
+        ErrorDetails errorDetails = new ErrorDetails(
+                LocalDateTime.now(),
+                exception.getMessage(),
+                webRequest.getDescription(false),
+                "INSUFFICIENT_BALANCE"
+        );
+        return new ResponseEntity<>(errorDetails, HttpStatus.UNPROCESSABLE_ENTITY);
+
+    }
+
+    // Handling specific exception- StandingOrderException
+
+    @ExceptionHandler(StandingOrderException.class)
+    public ResponseEntity<ErrorDetails> standingOrderExceptionHandler(StandingOrderException exception, WebRequest webRequest) {
+
+        ErrorDetails errorDetails = new ErrorDetails(
+                LocalDateTime.now(),
+                exception.getMessage(),
+                webRequest.getDescription(false),
+                "STANDING_ORDER_NOT_FOUND"
         );
         return new ResponseEntity<>(errorDetails, HttpStatus.NOT_FOUND);
 
     }
 
+    // Handling specific exception- VelocityLimitException
+
+    @ExceptionHandler(VelocityLimitException.class)
+    public ResponseEntity<ErrorDetails> velocityLimitExceptionHandler(VelocityLimitException exception, WebRequest webRequest) {
+
+        ErrorDetails errorDetails = new ErrorDetails(
+                LocalDateTime.now(),
+                exception.getMessage(),
+                webRequest.getDescription(false),
+                "VELOCITY_LIMIT_EXCEEDED"
+        );
+        return new ResponseEntity<>(errorDetails, HttpStatus.TOO_MANY_REQUESTS);
+
+    }
+
+    // Handling concurrent updates of the same account detected through its version
+
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<ErrorDetails> optimisticLockingFailureHandler(ObjectOptimisticLockingFailureException exception, WebRequest webRequest) {
+
+        ErrorDetails errorDetails = new ErrorDetails(
+                LocalDateTime.now(),
+                "The account was changed by another request, please retry",
+                webRequest.getDescription(false),
+                "CONCURRENT_UPDATE"
+        );
+        return new ResponseEntity<>(errorDetails, HttpStatus.CONFLICT);
+
+    }
+
+    // Handling specific exception- InvalidRequestException
+
+    @ExceptionHandler(InvalidRequestException.class)
+    public ResponseEntity<ErrorDetails> invalidRequestExceptionHandler(InvalidRequestException exception, WebRequest webRequest) {
+
+        ErrorDetails errorDetails = new ErrorDetails(
+                LocalDateTime.now(),
+                exception.getMessage(),
+                webRequest.getDescription(false),
+                "INVALID_REQUEST"
+        );
+        return new ResponseEntity<>(errorDetails, HttpStatus.BAD_REQUEST);
+
+    }
+
     // Handling Generic Exception
 
      @ExceptionHandler(Exception.class)
@@ -0,0 +1,8 @@
+package com.med.banking.exception;
+
+public class InsufficientBalanceException extends AccountException
+{
+    public InsufficientBalanceException(String message){
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package com.med.banking.exception;
+
+public class InvalidRequestException extends RuntimeException
+{
+    public InvalidRequestException(String message){
+        super(message, null, false, false);
+    }
+}
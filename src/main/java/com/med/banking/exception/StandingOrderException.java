@@ -0,0 +1,8 @@
+package com.med.banking.exception;
+
+public class StandingOrderException extends RuntimeException
+{
+    public StandingOrderException(String message){
+        super(message, null, false, false);
+    }
+}
@@ -0,0 +1,8 @@
+package com.med.banking.exception;
+
+public class VelocityLimitException extends RuntimeException
+{
+    public VelocityLimitException(String message){
+        super(message, null, false, false);
+    }
+}
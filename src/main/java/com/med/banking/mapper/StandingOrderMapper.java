@@ -0,0 +1,24 @@
+package com.med.banking.mapper;
+
+import com.med.banking.dto.StandingOrderDTO;
+import com.med.banking.entity.StandingOrder;
+
+public class StandingOrderMapper {
+
+    public static StandingOrderDTO mapToStandingOrderDto(StandingOrder standingOrder){
+
+        StandingOrderDTO standingOrderDTO = new StandingOrderDTO(
+                standingOrder.getId(),
+                standingOrder.getFromAccountId(),
+                standingOrder.getToAccountId(),
+                standingOrder.getAmount(),
+                standingOrder.getFrequency(),
+                standingOrder.getNextExecution(),
+                standingOrder.getLastExecution(),
+                standingOrder.getLastFailure(),
+                standingOrder.isActive()
+        );
+        return standingOrderDTO;
+    }
+
+}
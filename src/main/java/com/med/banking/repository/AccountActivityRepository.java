@@ -0,0 +1,46 @@
+package com.med.banking.repository;
+
+import com.med.banking.constants.SummaryGranularity;
+import com.med.banking.entity.AccountActivity;
+import com.med.banking.entity.AccountActivityId;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface AccountActivityRepository extends JpaRepository<AccountActivity, AccountActivityId> {
+
+ // Adds one transaction to both the day and the month bucket of the account in a single statement. The native
+ // space names the only table it writes; without it Hibernate would clear every second-level cache region
+ @Modifying
+ @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "account_activity"))
+ @Query(nativeQuery = true, value = """
+         INSERT INTO account_activity (account_id, granularity, period_start,
+                                       deposit_total, deposit_count, withdraw_total, withdraw_count, transfer_total, transfer_count)
+         SELECT :accountId, p.granularity, p.period_start,
+                CASE WHEN :type = 'DEPOSIT' THEN :amount ELSE 0 END, CASE WHEN :type = 'DEPOSIT' THEN 1 ELSE 0 END,
+                CASE WHEN :type = 'WITHDRAW' THEN :amount ELSE 0 END, CASE WHEN :type = 'WITHDRAW' THEN 1 ELSE 0 END,
+                CASE WHEN :type = 'TRANSFER' THEN :amount ELSE 0 END, CASE WHEN :type = 'TRANSFER' THEN 1 ELSE 0 END
+         FROM (VALUES ('DAY', CAST(:day AS date)), ('MONTH', CAST(:month AS date))) AS p(granularity, period_start)
+         ON CONFLICT (account_id, granularity, period_start) DO UPDATE SET
+             deposit_total = account_activity.deposit_total + EXCLUDED.deposit_total,
+             deposit_count = account_activity.deposit_count + EXCLUDED.deposit_count,
+             withdraw_total = account_activity.withdraw_total + EXCLUDED.withdraw_total,
+             withdraw_count = account_activity.withdraw_count + EXCLUDED.withdraw_count,
+             transfer_total = account_activity.transfer_total + EXCLUDED.transfer_total,
+             transfer_count = account_activity.transfer_count + EXCLUDED.transfer_count
+         """)
+ void addActivity(@Param("accountId") Long accountId, @Param("day") LocalDate day, @Param("month") LocalDate month,
+                  @Param("type") String type, @Param("amount") double amount);
+
+ @Query("select a from AccountActivity a where a.id.accountId = :accountId and a.id.granularity = :granularity order by a.id.periodStart")
+ List<AccountActivity> findSummary(@Param("accountId") Long accountId, @Param("granularity") SummaryGranularity granularity);
+}
@@ -1,9 +1,72 @@
 package com.med.banking.repository;
 
 import com.med.banking.entity.Account;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
-public interface AccountRepository extends JpaRepository<Account,Long> {
+public interface AccountRepository extends JpaRepository<Account,Long>, AccountRepositoryCustom {
+ List<Account> findAllByOrderByIdAsc();
+
+ // For the money-moving paths: read from the database, never from the second-level cache, whose entry may predate
+ // a write made on another node; the fresh row then replaces the cached one
+ @Query("select a from Account a where a.id = :id")
+ @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "REFRESH"))
+ Optional<Account> findCurrentById(@Param("id") Long id);
+
+ @Query("select a.version from Account a where a.id = :id")
+ Optional<Long> findVersionById(@Param("id") Long id);
+
+ // Prefix match as a range scan of idx_accounts_holder_name_prefix, already in result order: from is the lower-case
+ // prefix and to the first string after every name starting with it
+ @Query(value = """
+         SELECT id AS "id", account_holder_name AS "accountHolderName", balance AS "balance",
+                lower(account_holder_name) COLLATE "C" AS "sortKey", CAST(1 AS double precision) AS "score"
+         FROM accounts WHERE lower(account_holder_name) COLLATE "C" >= :from AND lower(account_holder_name) COLLATE "C" < :to
+           AND deleted_at IS NULL
+         ORDER BY lower(account_holder_name) COLLATE "C", id LIMIT :limit
+         """, nativeQuery = true)
+ List<AccountSearchHit> searchByPrefix(@Param("from") String from, @Param("to") String to, @Param("limit") int limit);
+
+ // Substring match through the trigram index; pattern is %escaped text%
+ @Query(value = """
+         SELECT id AS "id", account_holder_name AS "accountHolderName", balance AS "balance",
+                lower(account_holder_name) COLLATE "C" AS "sortKey", CAST(1 AS double precision) AS "score"
+         FROM accounts WHERE account_holder_name ILIKE :pattern AND deleted_at IS NULL
+         ORDER BY lower(account_holder_name) COLLATE "C", id LIMIT :limit
+         """, nativeQuery = true)
+ List<AccountSearchHit> searchByContains(@Param("pattern") String pattern, @Param("limit") int limit);
+
+ // Names within pg_trgm.similarity_threshold of the text, most similar first
+ @Query(value = """
+         SELECT id AS "id", account_holder_name AS "accountHolderName", balance AS "balance",
+                lower(account_holder_name) COLLATE "C" AS "sortKey", CAST(similarity(account_holder_name, :text) AS double precision) AS "score"
+         FROM accounts WHERE account_holder_name % :text AND deleted_at IS NULL
+         ORDER BY similarity(account_holder_name, :text) DESC, id LIMIT :limit
+         """, nativeQuery = true)
+ List<AccountSearchHit> searchBySimilarity(@Param("text") String text, @Param("limit") int limit);
+
+ // Tombstones a live account without loading it; 0 when there is no live account with the id. The native space
+ // has Hibernate evict the account region around the commit, as it does for its own bulk updates
+ @Modifying
+ @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "accounts"))
+ @Query(value = """
+         UPDATE accounts SET deleted_at = :deletedAt, version = version + 1
+         WHERE id = :id AND deleted_at IS NULL
+         """, nativeQuery = true)
+ int markDeleted(@Param("id") Long id, @Param("deletedAt") LocalDateTime deletedAt);
+
+ // Also finds tombstoned accounts, which the entity's restriction hides
+ @Query(value = "SELECT account_holder_name FROM accounts WHERE id = :id", nativeQuery = true)
+ Optional<String> findHolderNameById(@Param("id") Long id);
 }
@@ -0,0 +1,15 @@
+package com.med.banking.repository;
+
+import com.med.banking.entity.Account;
+
+import java.util.List;
+
+public interface AccountRepositoryCustom {
+
+ // Loads the accounts in one round trip, checking the persistence context and second-level cache first.
+ // The result has the order of the ids with null for every id that does not exist.
+ List<Account> multiLoad(List<Long> ids);
+
+ // Rereads a managed account from the database, replacing its second-level cache entry
+ Account refresh(Account account);
+}
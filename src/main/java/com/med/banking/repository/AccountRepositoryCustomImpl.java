@@ -0,0 +1,31 @@
+package com.med.banking.repository;
+
+import com.med.banking.entity.Account;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+
+import java.util.List;
+
+class AccountRepositoryCustomImpl implements AccountRepositoryCustom {
+
+ // Ids per statement; PostgreSQL gets them as a single array parameter (id = any(?))
+ private static final int MULTI_LOAD_BATCH_SIZE = 500;
+
+ @PersistenceContext
+ private EntityManager entityManager;
+
+ @Override
+ public List<Account> multiLoad(List<Long> ids) {
+  return entityManager.unwrap(Session.class)
+          .byMultipleIds(Account.class)
+          .withBatchSize(MULTI_LOAD_BATCH_SIZE)
+          .multiLoad(ids);
+ }
+
+ @Override
+ public Account refresh(Account account) {
+  entityManager.refresh(account);
+  return account;
+ }
+}
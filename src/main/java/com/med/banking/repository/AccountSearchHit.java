@@ -0,0 +1,10 @@
+package com.med.banking.repository;
+
+// One row of a name search; sortKey and score are what the per-shard results are merged by
+public interface AccountSearchHit {
+ Long getId();
+ String getAccountHolderName();
+ double getBalance();
+ String getSortKey();
+ double getScore();
+}
@@ -0,0 +1,40 @@
+package com.med.banking.repository;
+
+import com.med.banking.entity.StandingOrder;
+import com.med.banking.scheduler.StandingOrderFiring;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface StandingOrderRepository extends JpaRepository<StandingOrder, Long> {
+
+ List<StandingOrder> findByFromAccountIdOrderById(Long fromAccountId);
+
+ // Firings of the next window [from, until) plus any that are overdue, e.g. missed while no node was running
+ @Query("""
+         select new com.med.banking.scheduler.StandingOrderFiring(o.id, o.nextExecution) from StandingOrder o
+         where o.active = true and o.nextExecution < :until and (o.nextExecution >= :from or o.nextExecution < :overdue)
+         """)
+ List<StandingOrderFiring> findFirings(@Param("from") LocalDateTime from, @Param("until") LocalDateTime until,
+                                       @Param("overdue") LocalDateTime overdue);
+
+ // Moves the order on by one period; only the first of concurrent firings of the same execution gets a row back
+ @Modifying
+ @Query("""
+         update StandingOrder o set o.nextExecution = :next, o.lastExecution = :expected, o.lastFailure = :failure
+         where o.id = :id and o.nextExecution = :expected and o.active = true
+         """)
+ int claimExecution(@Param("id") Long id, @Param("expected") LocalDateTime expected, @Param("next") LocalDateTime next,
+                    @Param("failure") String failure);
+
+ // Stops the orders from and to an account that is being deleted; orders to it kept on other shards stop when it is purged
+ @Modifying
+ @Query("update StandingOrder o set o.active = false where o.fromAccountId = :accountId or o.toAccountId = :accountId")
+ int deactivateForAccount(@Param("accountId") Long accountId);
+}
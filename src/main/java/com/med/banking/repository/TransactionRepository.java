@@ -1,12 +1,33 @@
 package com.med.banking.repository;
 
 import com.med.banking.entity.Transaction;
+import com.med.banking.velocity.ReplayedDebit;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction,Long> {
- List<Transaction> findByAccountIdOrderByTimestampDesc( Long accountId);
+ // Bounded below by the archive horizon so only live partitions are scanned. Not query-cached: a history has no
+ // upper bound on its size, and every insert into transactions would invalidate all of them
+ @Query("select t from Transaction t where t.accountId = :accountId and t.timestamp >= :from order by t.timestamp desc")
+ List<Transaction> findLiveHistory(@Param("accountId") Long accountId, @Param("from") LocalDateTime from);
+
+ // Withdrawals of every account in [from, until), replayed into the velocity limits after a start. Streamed in
+ // batches of the fetch size through idx_transactions_withdraw_timestamp; the caller has to close the stream
+ @Query("""
+         select new com.med.banking.velocity.ReplayedDebit(t.accountId, t.amount, t.timestamp) from Transaction t
+         where t.transactionType = com.med.banking.constants.TransactionType.WITHDRAW
+           and t.timestamp >= :from and t.timestamp < :until
+         """)
+ @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+ Stream<ReplayedDebit> streamWithdrawals(@Param("from") LocalDateTime from, @Param("until") LocalDateTime until);
 }
@@ -0,0 +1,94 @@
+package com.med.banking.scheduler;
+
+import com.med.banking.dto.TransferFundDTO;
+import com.med.banking.entity.StandingOrder;
+import com.med.banking.repository.StandingOrderRepository;
+import com.med.banking.service.AccountService;
+import com.med.banking.sharding.ShardRouter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Executes one firing of a standing order.
+ * <p>
+ * On a single shard the claim of the firing and the transfer commit together, so each firing moves money exactly
+ * once. A cross-shard transfer commits on its own before the claim does, so it is made under a key unique to the
+ * firing: when the claim does not commit and the firing runs again, the transfer is found already made and only
+ * the claim is repeated. A transfer that fails still moves the order on, with the reason kept in
+ * {@code lastFailure}.
+ */
+@Component
+public class StandingOrderExecutor {
+
+    private static final Logger log = LoggerFactory.getLogger(StandingOrderExecutor.class);
+
+    private static final int MAX_FAILURE_LENGTH = 255;
+
+    private final StandingOrderRepository standingOrderRepository;
+    private final AccountService accountService;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public StandingOrderExecutor(StandingOrderRepository standingOrderRepository, AccountService accountService,
+                                 ShardRouter shardRouter, PlatformTransactionManager transactionManager) {
+        this.standingOrderRepository = standingOrderRepository;
+        this.accountService = accountService;
+        this.shardRouter = shardRouter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // The next execution of the order, or null when the firing was claimed elsewhere or the order changed meanwhile
+    public LocalDateTime execute(StandingOrderFiring firing) {
+        try {
+            return transactionTemplate.execute(status -> {
+                StandingOrder order = claimableOrder(firing);
+                if (order == null) {
+                    return null;
+                }
+                LocalDateTime next = order.getFrequency().next(order.getAnchorExecution(), firing.nextExecution());
+                if (standingOrderRepository.claimExecution(order.getId(), firing.nextExecution(), next, null) == 0) {
+                    return null;
+                }
+                accountService.transferFunds(new TransferFundDTO(order.getFromAccountId(), order.getToAccountId(), order.getAmount()),
+                        executionKey(firing));
+                return next;
+            });
+        } catch (RuntimeException e) {
+            log.warn("Standing order {} failed for {}", firing.orderId(), firing.nextExecution(), e);
+            return recordFailure(firing, e);
+        }
+    }
+
+    private LocalDateTime recordFailure(StandingOrderFiring firing, RuntimeException failure) {
+        String reason = String.valueOf(failure.getMessage());
+        String lastFailure = reason.length() > MAX_FAILURE_LENGTH ? reason.substring(0, MAX_FAILURE_LENGTH) : reason;
+        return transactionTemplate.execute(status -> {
+            StandingOrder order = claimableOrder(firing);
+            if (order == null) {
+                return null;
+            }
+            LocalDateTime next = order.getFrequency().next(order.getAnchorExecution(), firing.nextExecution());
+            return standingOrderRepository.claimExecution(order.getId(), firing.nextExecution(), next, lastFailure) == 0 ? null : next;
+        });
+    }
+
+    // The same for every node that fires the same execution of the order
+    static String executionKey(StandingOrderFiring firing) {
+        return "so-" + firing.orderId() + "-" + firing.nextExecution().toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private StandingOrder claimableOrder(StandingOrderFiring firing) {
+        shardRouter.bind(firing.orderId());
+        return standingOrderRepository.findById(firing.orderId())
+                .filter(order -> order.isActive() && firing.nextExecution().equals(order.getNextExecution()))
+                .orElse(null);
+    }
+}
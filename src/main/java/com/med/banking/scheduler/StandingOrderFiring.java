@@ -0,0 +1,7 @@
+package com.med.banking.scheduler;
+
+import java.time.LocalDateTime;
+
+// What the timing wheel holds per order: enough to claim the firing, nothing more
+public record StandingOrderFiring(Long orderId, LocalDateTime nextExecution) {
+}
@@ -0,0 +1,180 @@
+package com.med.banking.scheduler;
+
+import com.med.banking.repository.StandingOrderRepository;
+import com.med.banking.sharding.ShardQueryExecutor;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fires standing orders from an in-memory {@link TimingWheel} instead of polling the table for due orders.
+ * <p>
+ * The database is only read once per half window, for the orders due in the next window, on a loader thread of its
+ * own so a slow query never holds up the ticks. Anything overdue is read in the same query, which is how a restarted
+ * node catches up on missed firings. The wheel then fires each order
+ * within a tick of its time, and due orders are executed in batches on a small worker pool. Every node loads every
+ * order, and the claim in {@link StandingOrderExecutor} makes sure each firing runs only once.
+ */
+@Component
+public class StandingOrderScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(StandingOrderScheduler.class);
+
+    private static final long TICK_MILLIS = 1_000;
+    private static final int WHEEL_SIZE = 60;
+    // Firings older than this are picked up again by the next window load, whichever node scheduled them
+    private static final Duration OVERDUE_AFTER = Duration.ofMinutes(1);
+
+    private final StandingOrderRepository standingOrderRepository;
+    private final ShardQueryExecutor shardQueryExecutor;
+    private final StandingOrderExecutor standingOrderExecutor;
+    private final Duration window;
+    private final int batchSize;
+    private final int threads;
+    private final TimingWheel<StandingOrderFiring> wheel;
+    private final ScheduledExecutorService ticker;
+    private final ScheduledExecutorService loader;
+    private ExecutorService workers;
+    private long loadedUntil = Long.MIN_VALUE;
+
+    @Autowired
+    public StandingOrderScheduler(StandingOrderRepository standingOrderRepository, ShardQueryExecutor shardQueryExecutor,
+                                  StandingOrderExecutor standingOrderExecutor,
+                                  @Value("${banking.standing-orders.window-minutes:10}") long windowMinutes,
+                                  @Value("${banking.standing-orders.batch-size:100}") int batchSize,
+                                  @Value("${banking.standing-orders.threads:4}") int threads) {
+        this.standingOrderRepository = standingOrderRepository;
+        this.shardQueryExecutor = shardQueryExecutor;
+        this.standingOrderExecutor = standingOrderExecutor;
+        this.window = Duration.ofMinutes(Math.max(1, windowMinutes));
+        this.batchSize = Math.max(1, batchSize);
+        this.threads = Math.max(1, threads);
+        this.wheel = new TimingWheel<>(TICK_MILLIS, WHEEL_SIZE, System.currentTimeMillis());
+        this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> daemon(runnable, "standing-order-ticker"));
+        this.loader = Executors.newSingleThreadScheduledExecutor(runnable -> daemon(runnable, "standing-order-loader"));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(threads, runnable -> daemon(runnable, "standing-order-" + threadNumber.incrementAndGet()));
+        long reloadMillis = window.toMillis() / 2;
+        loader.scheduleWithFixedDelay(this::loadWindow, 0, reloadMillis, TimeUnit.MILLISECONDS);
+        ticker.scheduleAtFixedRate(this::tick, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        ticker.shutdownNow();
+        loader.shutdownNow();
+        if (workers != null) {
+            workers.shutdownNow();
+        }
+    }
+
+    // Puts a created or rescheduled order on the wheel if its firing falls in the window that is already loaded
+    public void schedule(StandingOrderFiring firing) {
+        List<StandingOrderFiring> due = new ArrayList<>();
+        synchronized (wheel) {
+            long expiration = toMillis(firing.nextExecution());
+            if (expiration >= loadedUntil) {
+                return;
+            }
+            if (!wheel.add(firing, expiration)) {
+                due.add(firing);
+            }
+        }
+        dispatch(due);
+    }
+
+    void loadWindow() {
+        try {
+            long now = System.currentTimeMillis();
+            long until = now + window.toMillis();
+            long from;
+            synchronized (wheel) {
+                from = loadedUntil;
+            }
+            LocalDateTime overdue = toLocalDateTime(now - OVERDUE_AFTER.toMillis());
+            // The first load after a start reads everything up to the end of the window
+            LocalDateTime fromTime = from == Long.MIN_VALUE ? overdue : toLocalDateTime(from);
+            List<List<StandingOrderFiring>> firingsPerShard = shardQueryExecutor.queryAllShards(shard ->
+                    standingOrderRepository.findFirings(fromTime, toLocalDateTime(until), overdue));
+            List<StandingOrderFiring> due = new ArrayList<>();
+            int loaded = 0;
+            synchronized (wheel) {
+                for (List<StandingOrderFiring> firings : firingsPerShard) {
+                    for (StandingOrderFiring firing : firings) {
+                        if (!wheel.add(firing, toMillis(firing.nextExecution()))) {
+                            due.add(firing);
+                        }
+                        loaded++;
+                    }
+                }
+                loadedUntil = until;
+            }
+            log.debug("Loaded {} standing order firings until {}, {} due now", loaded, toLocalDateTime(until), due.size());
+            dispatch(due);
+        } catch (RuntimeException e) {
+            log.error("Could not load standing orders", e);
+        }
+    }
+
+    void tick() {
+        List<StandingOrderFiring> due = new ArrayList<>();
+        synchronized (wheel) {
+            wheel.advance(System.currentTimeMillis(), due::add);
+        }
+        dispatch(due);
+    }
+
+    private void dispatch(List<StandingOrderFiring> due) {
+        for (int start = 0; start < due.size(); start += batchSize) {
+            List<StandingOrderFiring> batch = due.subList(start, Math.min(due.size(), start + batchSize));
+            workers.execute(() -> batch.forEach(this::fire));
+        }
+    }
+
+    private void fire(StandingOrderFiring firing) {
+        try {
+            LocalDateTime next = standingOrderExecutor.execute(firing);
+            if (next != null) {
+                schedule(new StandingOrderFiring(firing.orderId(), next));
+            }
+        } catch (RuntimeException e) {
+            // Left as it is; the order is overdue now and comes back with the next window load
+            log.error("Standing order {} could not be executed for {}", firing.orderId(), firing.nextExecution(), e);
+        }
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime toLocalDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,111 @@
+package com.med.banking.scheduler;
+
+import java.util.ArrayDeque;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel: adding an item and firing it cost O(1) however many items are scheduled.
+ * <p>
+ * The innermost wheel has {@code wheelSize} buckets of {@code tickMillis}; items further out than one rotation go
+ * to an overflow wheel whose tick is a whole rotation of this one, and so on. When the clock reaches the start of an
+ * overflow bucket, its items cascade down into the finer wheel. A bucket fires once its whole tick has passed, so
+ * items fire at most one tick late and never early. Not thread-safe; the owner serialises access.
+ */
+public final class TimingWheel<T> {
+
+    private final long tickMillis;
+    private final int wheelSize;
+    private final long intervalMillis;
+    private final ArrayDeque<Entry<T>>[] buckets;
+    private long currentTime;
+    private TimingWheel<T> overflow;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (tickMillis < 1 || wheelSize < 2) {
+            throw new IllegalArgumentException("A timing wheel needs a positive tick and at least two buckets");
+        }
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.intervalMillis = Math.multiplyExact(tickMillis, wheelSize);
+        this.buckets = new ArrayDeque[wheelSize];
+        this.currentTime = startMillis - Math.floorMod(startMillis, tickMillis);
+    }
+
+    // False when the item is already due; the caller fires it right away
+    public boolean add(T item, long expirationMillis) {
+        if (expirationMillis < currentTime) {
+            return false;
+        }
+        place(new Entry<>(item, expirationMillis));
+        size++;
+        return true;
+    }
+
+    // Moves the clock to now and hands every item whose tick has fully passed to due
+    public void advance(long nowMillis, Consumer<T> due) {
+        if (size == 0) {
+            // Nothing to cascade: jump straight to now instead of ticking through the idle time
+            long now = nowMillis - Math.floorMod(nowMillis, tickMillis);
+            if (now > currentTime) {
+                currentTime = now;
+                overflow = null;
+            }
+            return;
+        }
+        while (currentTime + tickMillis <= nowMillis) {
+            ArrayDeque<Entry<T>> expired = buckets[index(currentTime)];
+            currentTime += tickMillis;
+            if (expired != null) {
+                while (!expired.isEmpty()) {
+                    due.accept(expired.poll().item());
+                    size--;
+                }
+            }
+            if (overflow != null && Math.floorMod(currentTime, overflow.tickMillis) == 0) {
+                overflow.cascade(currentTime, this::place);
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void place(Entry<T> entry) {
+        if (entry.expiration() < currentTime + intervalMillis) {
+            int index = index(entry.expiration());
+            if (buckets[index] == null) {
+                buckets[index] = new ArrayDeque<>();
+            }
+            buckets[index].add(entry);
+        } else {
+            if (overflow == null) {
+                overflow = new TimingWheel<>(intervalMillis, wheelSize, currentTime);
+            }
+            overflow.place(entry);
+        }
+    }
+
+    // Coarser wheels first, so items always end up in the finest wheel that can hold them
+    private void cascade(long time, Consumer<Entry<T>> reinsert) {
+        currentTime = time;
+        if (overflow != null && Math.floorMod(time, overflow.tickMillis) == 0) {
+            overflow.cascade(time, reinsert);
+        }
+        ArrayDeque<Entry<T>> bucket = buckets[index(time)];
+        if (bucket != null) {
+            while (!bucket.isEmpty()) {
+                reinsert.accept(bucket.poll());
+            }
+        }
+    }
+
+    private int index(long time) {
+        return (int) Math.floorMod(Math.floorDiv(time, tickMillis), (long) wheelSize);
+    }
+
+    private record Entry<T>(T item, long expiration) {
+    }
+}
@@ -0,0 +1,146 @@
+package com.med.banking.search;
+
+import com.med.banking.dto.AccountSuggestionDTO;
+import com.med.banking.sharding.ShardQueryExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory prefix index of account holder names for autocomplete, off unless
+ * {@code banking.search.prefix-index.enabled=true}.
+ * <p>
+ * Names are kept lower-cased in a concurrent skip list, so a suggestion is a seek to the prefix and a short walk,
+ * without a database round trip. Accounts created or deleted through this node are applied when their transaction
+ * commits; the whole index is reloaded from every shard on start and then every
+ * {@code banking.search.prefix-index.reload-minutes}, which picks up bulk imports and other nodes. Expect roughly
+ * 200 bytes of heap per account.
+ */
+@Component
+public class AccountPrefixIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(AccountPrefixIndex.class);
+
+    private static final int FETCH_SIZE = 10_000;
+    private static final String SELECT_NAMES = "SELECT id, account_holder_name FROM accounts WHERE account_holder_name IS NOT NULL AND deleted_at IS NULL";
+    private static final Comparator<Entry> ORDER = Comparator.comparing(Entry::key).thenComparingLong(Entry::id);
+
+    private final boolean enabled;
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardQueryExecutor shardQueryExecutor;
+    private volatile NavigableSet<Entry> entries = new ConcurrentSkipListSet<>(ORDER);
+    private volatile NavigableSet<Entry> loading;
+    private volatile boolean ready;
+
+    @Autowired
+    public AccountPrefixIndex(DataSource dataSource, ShardQueryExecutor shardQueryExecutor,
+                              @Value("${banking.search.prefix-index.enabled:false}") boolean enabled) {
+        this.enabled = enabled;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+        this.shardQueryExecutor = shardQueryExecutor;
+    }
+
+    // Up to limit accounts whose name starts with the prefix, ignoring case; null while the index is not usable
+    public List<AccountSuggestionDTO> suggest(String prefix, int limit) {
+        if (!ready) {
+            return null;
+        }
+        String key = prefix.toLowerCase(Locale.ROOT);
+        List<AccountSuggestionDTO> suggestions = new ArrayList<>(limit);
+        for (Entry entry : entries.tailSet(new Entry(key, Long.MIN_VALUE, null), true)) {
+            if (suggestions.size() == limit || !entry.key().startsWith(key)) {
+                break;
+            }
+            suggestions.add(new AccountSuggestionDTO(entry.id(), entry.name()));
+        }
+        return suggestions;
+    }
+
+    public void accountCreated(Long id, String name) {
+        if (enabled && name != null) {
+            afterCommit(() -> apply(new Entry(name.toLowerCase(Locale.ROOT), id, name), true));
+        }
+    }
+
+    public void accountDeleted(Long id, String name) {
+        if (enabled && name != null) {
+            afterCommit(() -> apply(new Entry(name.toLowerCase(Locale.ROOT), id, name), false));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${banking.search.prefix-index.reload-minutes:60}", timeUnit = TimeUnit.MINUTES)
+    public void reload() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        NavigableSet<Entry> reloaded = new ConcurrentSkipListSet<>(ORDER);
+        // Changes committed while the shards are read go to both sets
+        loading = reloaded;
+        try {
+            shardQueryExecutor.queryAllShards(shard -> {
+                jdbcTemplate.query(SELECT_NAMES, (RowCallbackHandler) resultSet -> {
+                    String name = resultSet.getString(2);
+                    reloaded.add(new Entry(name.toLowerCase(Locale.ROOT), resultSet.getLong(1), name));
+                });
+                return List.of();
+            });
+            entries = reloaded;
+            ready = true;
+            log.info("Loaded {} account names into the prefix index in {} ms", reloaded.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (RuntimeException e) {
+            log.error("Could not load the account prefix index", e);
+        } finally {
+            loading = null;
+        }
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private void apply(Entry entry, boolean add) {
+        NavigableSet<Entry> pending = loading;
+        for (NavigableSet<Entry> set : pending == null ? List.of(entries) : List.of(entries, pending)) {
+            if (add) {
+                set.add(entry);
+            } else {
+                set.remove(entry);
+            }
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private record Entry(String key, long id, String name) {
+    }
+}
@@ -0,0 +1,15 @@
+package com.med.banking.service;
+
+import com.med.banking.constants.ImportFormat;
+import com.med.banking.dto.AccountImportResultDTO;
+import com.med.banking.dto.AccountImportSummaryDTO;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.function.Consumer;
+
+public interface AccountImportService {
+
+    // Creates one account per line of the body and reports every line to the consumer as soon as it is settled
+    AccountImportSummaryDTO importAccounts(Reader body, ImportFormat format, Consumer<AccountImportResultDTO> results) throws IOException;
+}
@@ -0,0 +1,12 @@
+package com.med.banking.service;
+
+import com.med.banking.constants.AccountSearchMode;
+import com.med.banking.dto.AccountSearchPageDTO;
+import com.med.banking.dto.AccountSuggestionDTO;
+
+import java.util.List;
+
+public interface AccountSearchService {
+    AccountSearchPageDTO searchAccounts(String query, AccountSearchMode mode, int page, int size);
+    List<AccountSuggestionDTO> suggestAccounts(String prefix, int limit);
+}
@@ -1,5 +1,8 @@
 package com.med.banking.service;
 
+import com.med.banking.constants.SummaryGranularity;
+import com.med.banking.dto.AccountActivityDTO;
+import com.med.banking.dto.AccountBatchDTO;
 import com.med.banking.dto.AccountDTO;
 import com.med.banking.dto.TransactionDTO;
 import com.med.banking.dto.TransferFundDTO;
@@ -9,10 +12,16 @@ import java.util.List;
 public interface AccountService {
     AccountDTO createAccount(AccountDTO account);
     AccountDTO getAccountById(Long id);
+    AccountDTO getAccountById(Long id, long minVersion);
+    long getAccountVersion(Long id);
+    AccountBatchDTO getAccountsByIds(List<Long> ids);
     AccountDTO deposit(Long id, double amount);
     AccountDTO withdraw(Long id, double amount);
     List<AccountDTO> getAllAccounts();
     void deleteAccount(Long id);
     void transferFunds(TransferFundDTO transferFundDTO);
+    void transferFunds(TransferFundDTO transferFundDTO, String transferKey);
     List<TransactionDTO> getAccountTransactions(Long accountId);
+    List<TransactionDTO> getAccountTransactions(Long accountId, long minVersion);
+    List<AccountActivityDTO> getAccountSummary(Long accountId, SummaryGranularity granularity);
 }
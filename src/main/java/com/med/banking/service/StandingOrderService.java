@@ -0,0 +1,13 @@
+package com.med.banking.service;
+
+import com.med.banking.dto.StandingOrderDTO;
+
+import java.util.List;
+
+public interface StandingOrderService {
+    StandingOrderDTO createStandingOrder(StandingOrderDTO standingOrder);
+    StandingOrderDTO getStandingOrderById(Long id);
+    List<StandingOrderDTO> getStandingOrdersByAccount(Long accountId);
+    StandingOrderDTO updateStandingOrder(Long id, StandingOrderDTO standingOrder);
+    void deleteStandingOrder(Long id);
+}
@@ -0,0 +1,11 @@
+package com.med.banking.service;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDateTime;
+
+public interface StatementExportService {
+
+    // Writes the transactions of the account in [from, to) as CSV, oldest first
+    void writeStatement(Long accountId, LocalDateTime from, LocalDateTime to, Writer out) throws IOException;
+}
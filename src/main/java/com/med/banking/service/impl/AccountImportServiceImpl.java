@@ -0,0 +1,233 @@
+package com.med.banking.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.med.banking.constants.ImportFormat;
+import com.med.banking.dto.AccountDTO;
+import com.med.banking.dto.AccountImportResultDTO;
+import com.med.banking.dto.AccountImportSummaryDTO;
+import com.med.banking.exception.InvalidRequestException;
+import com.med.banking.service.AccountImportService;
+import com.med.banking.sharding.ShardIds;
+import com.med.banking.sharding.ShardRouter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Streams accounts from a CSV ({@code accountHolderName,balance}) or NDJSON body into the database.
+ * <p>
+ * Lines are parsed one at a time and inserted in chunks of {@code banking.import.batch-size} rows with a single
+ * JDBC batch per chunk, so memory stays bounded by the chunk size whatever the size of the body. Ids are issued
+ * up front by {@link ShardIds}, which avoids a round trip per row, and each chunk goes to the next shard in turn.
+ * Add {@code reWriteBatchedInserts=true} to the datasource url to let the driver send a chunk as multi-row inserts.
+ * A chunk the database rejects is inserted again row by row, so only the bad lines fail, each with its SQL error.
+ */
+@Service
+public class AccountImportServiceImpl implements AccountImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(AccountImportServiceImpl.class);
+
+    private static final String INSERT_ACCOUNT = "INSERT INTO accounts (id, account_holder_name, balance) VALUES (?, ?, ?)";
+    private static final String CSV_HEADER = "accountHolderName,balance";
+
+    private final ShardRouter shardRouter;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+
+    @Autowired
+    public AccountImportServiceImpl(ShardRouter shardRouter, ObjectMapper objectMapper,
+                                    @Value("${banking.import.batch-size:1000}") int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("banking.import.batch-size must be positive");
+        }
+        this.shardRouter = shardRouter;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public AccountImportSummaryDTO importAccounts(Reader body, ImportFormat format, Consumer<AccountImportResultDTO> results) throws IOException {
+        BufferedReader reader = body instanceof BufferedReader bufferedReader ? bufferedReader : new BufferedReader(body, 1 << 16);
+        List<PendingAccount> chunk = new ArrayList<>(batchSize);
+        long lineNumber = 0;
+        long imported = 0;
+        long failed = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || (format == ImportFormat.CSV && lineNumber == 1 && line.strip().equalsIgnoreCase(CSV_HEADER))) {
+                continue;
+            }
+            try {
+                AccountDTO account = format == ImportFormat.CSV ? parseCsvLine(line) : objectMapper.readValue(line, AccountDTO.class);
+                chunk.add(validate(lineNumber, account));
+            } catch (InvalidRequestException | JsonProcessingException e) {
+                results.accept(new AccountImportResultDTO(lineNumber, null, errorMessage(e)));
+                failed++;
+            }
+            if (chunk.size() == batchSize) {
+                int inserted = insertChunk(chunk, results);
+                imported += inserted;
+                failed += chunk.size() - inserted;
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            int inserted = insertChunk(chunk, results);
+            imported += inserted;
+            failed += chunk.size() - inserted;
+        }
+        return new AccountImportSummaryDTO(imported, failed);
+    }
+
+    // One transaction and one batch per chunk; the import goes on whatever happens to the chunk
+    private int insertChunk(List<PendingAccount> chunk, Consumer<AccountImportResultDTO> results) {
+        int shard = shardRouter.nextShard();
+        long[] ids = new long[chunk.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = ShardIds.next(shard);
+        }
+        try (Connection connection = shardRouter.primaryDataSource(shard).getConnection()) {
+            try {
+                insertBatch(connection, chunk, ids);
+            } catch (SQLException e) {
+                // The batch stops at the first bad row and rolls back the good ones with it
+                log.debug("Batch of {} accounts rejected by shard {}, inserting them one by one", chunk.size(), shard, e);
+                return insertRowByRow(connection, chunk, ids, results);
+            }
+        } catch (SQLException e) {
+            log.warn("Could not import {} accounts into shard {}", chunk.size(), shard, e);
+            for (PendingAccount account : chunk) {
+                results.accept(new AccountImportResultDTO(account.line(), null, e.getMessage()));
+            }
+            return 0;
+        }
+        for (int i = 0; i < ids.length; i++) {
+            results.accept(new AccountImportResultDTO(chunk.get(i).line(), ids[i], null));
+        }
+        return ids.length;
+    }
+
+    private static void insertBatch(Connection connection, List<PendingAccount> chunk, long[] ids) throws SQLException {
+        connection.setAutoCommit(false);
+        try (PreparedStatement statement = connection.prepareStatement(INSERT_ACCOUNT)) {
+            for (int i = 0; i < ids.length; i++) {
+                bind(statement, ids[i], chunk.get(i));
+                statement.addBatch();
+            }
+            statement.executeBatch();
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    // Autocommit, so every row that the database accepts stays; the others are reported with their SQL error
+    private static int insertRowByRow(Connection connection, List<PendingAccount> chunk, long[] ids,
+                                      Consumer<AccountImportResultDTO> results) throws SQLException {
+        int inserted = 0;
+        try (PreparedStatement statement = connection.prepareStatement(INSERT_ACCOUNT)) {
+            for (int i = 0; i < ids.length; i++) {
+                PendingAccount account = chunk.get(i);
+                try {
+                    bind(statement, ids[i], account);
+                    statement.executeUpdate();
+                } catch (SQLException e) {
+                    results.accept(new AccountImportResultDTO(account.line(), null, e.getMessage()));
+                    continue;
+                }
+                results.accept(new AccountImportResultDTO(account.line(), ids[i], null));
+                inserted++;
+            }
+        }
+        return inserted;
+    }
+
+    private static void bind(PreparedStatement statement, long id, PendingAccount account) throws SQLException {
+        statement.setLong(1, id);
+        statement.setString(2, account.accountHolderName());
+        statement.setDouble(3, account.balance());
+    }
+
+    private static PendingAccount validate(long lineNumber, AccountDTO account) {
+        if (account == null || account.accountHolderName() == null || account.accountHolderName().isBlank()) {
+            throw new InvalidRequestException("accountHolderName is required");
+        }
+        if (account.accountHolderName().length() > 255) {
+            throw new InvalidRequestException("accountHolderName is longer than 255 characters");
+        }
+        if (!Double.isFinite(account.balance()) || account.balance() < 0) {
+            throw new InvalidRequestException("balance must be a non-negative number");
+        }
+        return new PendingAccount(lineNumber, account.accountHolderName().strip(), account.balance());
+    }
+
+    // accountHolderName,balance where the name may be double-quoted with "" as an escaped quote
+    static AccountDTO parseCsvLine(String line) {
+        String name;
+        int separator;
+        if (line.startsWith("\"")) {
+            StringBuilder quoted = new StringBuilder();
+            int i = 1;
+            while (true) {
+                if (i >= line.length()) {
+                    throw new InvalidRequestException("Unterminated quoted field");
+                }
+                char c = line.charAt(i);
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        quoted.append('"');
+                        i += 2;
+                        continue;
+                    }
+                    break;
+                }
+                quoted.append(c);
+                i++;
+            }
+            name = quoted.toString();
+            separator = i + 1;
+            if (separator >= line.length() || line.charAt(separator) != ',') {
+                throw new InvalidRequestException("Expected accountHolderName,balance");
+            }
+        } else {
+            separator = line.lastIndexOf(',');
+            if (separator < 0) {
+                throw new InvalidRequestException("Expected accountHolderName,balance");
+            }
+            name = line.substring(0, separator);
+        }
+        String balance = line.substring(separator + 1).strip();
+        if (balance.indexOf(',') >= 0) {
+            throw new InvalidRequestException("Expected accountHolderName,balance");
+        }
+        try {
+            return new AccountDTO(null, name, Double.parseDouble(balance));
+        } catch (NumberFormatException e) {
+            throw new InvalidRequestException("balance must be a number");
+        }
+    }
+
+    private static String errorMessage(Exception e) {
+        return e instanceof JsonProcessingException ? "Malformed JSON" : e.getMessage();
+    }
+
+    private record PendingAccount(long line, String accountHolderName, double balance) {
+    }
+}
@@ -0,0 +1,117 @@
+package com.med.banking.service.impl;
+
+import com.med.banking.constants.AccountSearchMode;
+import com.med.banking.dto.AccountDTO;
+import com.med.banking.dto.AccountSearchPageDTO;
+import com.med.banking.dto.AccountSuggestionDTO;
+import com.med.banking.exception.InvalidRequestException;
+import com.med.banking.repository.AccountRepository;
+import com.med.banking.repository.AccountSearchHit;
+import com.med.banking.search.AccountPrefixIndex;
+import com.med.banking.service.AccountSearchService;
+import com.med.banking.sharding.ShardQueryExecutor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Name search over every shard. Each shard returns at most the rows up to the end of the requested page, already
+ * in result order from its index, and the per-shard lists are merged; nothing is filtered in memory.
+ */
+@Service
+public class AccountSearchServiceImpl implements AccountSearchService {
+
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_RESULT_WINDOW = 10_000;
+    private static final int MIN_TRIGRAM_QUERY_LENGTH = 3;
+    private static final int MAX_SUGGESTIONS = 50;
+
+    private static final Comparator<AccountSearchHit> BY_NAME =
+            Comparator.comparing(AccountSearchHit::getSortKey).thenComparing(AccountSearchHit::getId);
+    private static final Comparator<AccountSearchHit> BY_SIMILARITY =
+            Comparator.comparingDouble(AccountSearchHit::getScore).reversed().thenComparing(AccountSearchHit::getId);
+
+    private final AccountRepository accountRepository;
+    private final ShardQueryExecutor shardQueryExecutor;
+    private final AccountPrefixIndex accountPrefixIndex;
+
+    @Autowired
+    public AccountSearchServiceImpl(AccountRepository accountRepository, ShardQueryExecutor shardQueryExecutor,
+                                    AccountPrefixIndex accountPrefixIndex) {
+        this.accountRepository = accountRepository;
+        this.shardQueryExecutor = shardQueryExecutor;
+        this.accountPrefixIndex = accountPrefixIndex;
+    }
+
+    @Override
+    public AccountSearchPageDTO searchAccounts(String query, AccountSearchMode mode, int page, int size) {
+        String text = requireText(query);
+        if (mode != AccountSearchMode.PREFIX && text.length() < MIN_TRIGRAM_QUERY_LENGTH) {
+            throw new InvalidRequestException("q needs at least " + MIN_TRIGRAM_QUERY_LENGTH + " characters for contains and fuzzy search");
+        }
+        if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+            throw new InvalidRequestException("page must be 0 or more and size between 1 and " + MAX_PAGE_SIZE);
+        }
+        if ((long) (page + 1) * size > MAX_RESULT_WINDOW) {
+            throw new InvalidRequestException("Only the first " + MAX_RESULT_WINDOW + " results can be paged through, refine the search");
+        }
+        int offset = page * size;
+        // One row more than the page shows whether there is a next page
+        List<AccountSearchHit> hits = search(text, mode, offset + size + 1);
+        List<AccountDTO> accounts = hits.subList(Math.min(offset, hits.size()), Math.min(offset + size, hits.size())).stream()
+                .map(hit -> new AccountDTO(hit.getId(), hit.getAccountHolderName(), hit.getBalance()))
+                .toList();
+        return new AccountSearchPageDTO(accounts, page, size, hits.size() > offset + size);
+    }
+
+    @Override
+    public List<AccountSuggestionDTO> suggestAccounts(String prefix, int limit) {
+        String text = requireText(prefix);
+        if (limit < 1 || limit > MAX_SUGGESTIONS) {
+            throw new InvalidRequestException("limit must be between 1 and " + MAX_SUGGESTIONS);
+        }
+        List<AccountSuggestionDTO> suggestions = accountPrefixIndex.suggest(text, limit);
+        if (suggestions != null) {
+            return suggestions;
+        }
+        return search(text, AccountSearchMode.PREFIX, limit).stream()
+                .limit(limit)
+                .map(hit -> new AccountSuggestionDTO(hit.getId(), hit.getAccountHolderName()))
+                .toList();
+    }
+
+    private List<AccountSearchHit> search(String text, AccountSearchMode mode, int limit) {
+        List<List<AccountSearchHit>> hitsPerShard = switch (mode) {
+            case PREFIX -> {
+                String from = text.toLowerCase(Locale.ROOT);
+                String to = from + Character.MAX_VALUE;
+                yield shardQueryExecutor.queryAllShards(shard -> accountRepository.searchByPrefix(from, to, limit));
+            }
+            case CONTAINS -> {
+                String pattern = "%" + escapeLike(text) + "%";
+                yield shardQueryExecutor.queryAllShards(shard -> accountRepository.searchByContains(pattern, limit));
+            }
+            case FUZZY -> shardQueryExecutor.queryAllShards(shard -> accountRepository.searchBySimilarity(text, limit));
+        };
+        return ShardQueryExecutor.mergeSorted(hitsPerShard, mode == AccountSearchMode.FUZZY ? BY_SIMILARITY : BY_NAME);
+    }
+
+    private static String requireText(String query) {
+        String text = query == null ? "" : query.strip();
+        if (text.isEmpty()) {
+            throw new InvalidRequestException("q is required");
+        }
+        if (text.length() > 255) {
+            throw new InvalidRequestException("q is longer than 255 characters");
+        }
+        return text;
+    }
+
+    // LIKE treats % and _ as wildcards and \ as the escape character
+    static String escapeLike(String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
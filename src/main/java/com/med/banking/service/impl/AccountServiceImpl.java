@@ -1,118 +1,270 @@
 package com.med.banking.service.impl;
 
+import com.med.banking.archive.TransactionArchive;
+import com.med.banking.cache.AccountCacheInvalidator;
+import com.med.banking.clock.CachedClock;
+import com.med.banking.config.ReadYourWritesGuard;
+import com.med.banking.constants.SummaryGranularity;
 import com.med.banking.constants.TransactionType;
+import com.med.banking.dto.AccountActivityDTO;
+import com.med.banking.dto.AccountBatchDTO;
 import com.med.banking.dto.AccountDTO;
 import com.med.banking.dto.TransactionDTO;
 import com.med.banking.dto.TransferFundDTO;
 import com.med.banking.entity.Account;
+import com.med.banking.entity.AccountActivity;
 import com.med.banking.entity.Transaction;
-import com.med.banking.exception.AccountException;
+import com.med.banking.exception.AccountNotFoundException;
+import com.med.banking.exception.InsufficientBalanceException;
+import com.med.banking.exception.InvalidRequestException;
 import com.med.banking.mapper.AccountMapper;
+import com.med.banking.repository.AccountActivityRepository;
 import com.med.banking.repository.AccountRepository;
+import com.med.banking.repository.StandingOrderRepository;
 import com.med.banking.repository.TransactionRepository;
+import com.med.banking.search.AccountPrefixIndex;
 import com.med.banking.service.AccountService;
+import com.med.banking.sharding.CrossShardTransferCoordinator;
+import com.med.banking.sharding.ShardQueryExecutor;
+import com.med.banking.sharding.ShardRouter;
+import com.med.banking.velocity.VelocityLimiter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.orm.ObjectRetrievalFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
 
 @Service
 public class AccountServiceImpl implements AccountService {
+    private static final int MAX_BATCH_GET_IDS = 1000;
+
     private final AccountRepository accountRepository;
     private final TransactionRepository transactionRepository;
+    private final ReadYourWritesGuard readYourWritesGuard;
+    private final ShardRouter shardRouter;
+    private final ShardQueryExecutor shardQueryExecutor;
+    private final CrossShardTransferCoordinator crossShardTransferCoordinator;
+    private final TransactionArchive transactionArchive;
+    private final AccountActivityRepository accountActivityRepository;
+    private final StandingOrderRepository standingOrderRepository;
+    private final VelocityLimiter velocityLimiter;
+    private final AccountPrefixIndex accountPrefixIndex;
+    private final CachedClock cachedClock;
+    private final AccountCacheInvalidator accountCacheInvalidator;
 
     @Autowired
-    public AccountServiceImpl(AccountRepository accountRepository, TransactionRepository transactionRepository) {
+    public AccountServiceImpl(AccountRepository accountRepository, TransactionRepository transactionRepository,
+                              ReadYourWritesGuard readYourWritesGuard, ShardRouter shardRouter,
+                              ShardQueryExecutor shardQueryExecutor,
+                              CrossShardTransferCoordinator crossShardTransferCoordinator,
+                              TransactionArchive transactionArchive,
+                              AccountActivityRepository accountActivityRepository,
+                              StandingOrderRepository standingOrderRepository,
+                              VelocityLimiter velocityLimiter, AccountPrefixIndex accountPrefixIndex,
+                              CachedClock cachedClock, AccountCacheInvalidator accountCacheInvalidator) {
         this.accountRepository = accountRepository;
         this.transactionRepository = transactionRepository;
+        this.readYourWritesGuard = readYourWritesGuard;
+        this.shardRouter = shardRouter;
+        this.shardQueryExecutor = shardQueryExecutor;
+        this.crossShardTransferCoordinator = crossShardTransferCoordinator;
+        this.transactionArchive = transactionArchive;
+        this.accountActivityRepository = accountActivityRepository;
+        this.standingOrderRepository = standingOrderRepository;
+        this.velocityLimiter = velocityLimiter;
+        this.accountPrefixIndex = accountPrefixIndex;
+        this.cachedClock = cachedClock;
+        this.accountCacheInvalidator = accountCacheInvalidator;
     }
 
 
     @Override
+    @Transactional
     public AccountDTO createAccount(AccountDTO accountDto) {
+        shardRouter.bindNewAccount();
         Account account = AccountMapper.mapToAccountEntity(accountDto);
         Account savedAccount = accountRepository.save(account);
+        readYourWritesGuard.recordWrite(savedAccount.getId());
+        accountPrefixIndex.accountCreated(savedAccount.getId(), savedAccount.getAccountHolderName());
         return AccountMapper.mapToAccountDto(savedAccount);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public AccountDTO getAccountById(Long id) {
-        Account account = accountRepository.findById(id).orElseThrow(() -> new AccountException("Account doesn't exist"));
+        return getAccountById(id, 0);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public AccountDTO getAccountById(Long id, long minVersion) {
+        shardRouter.bind(id);
+        readYourWritesGuard.routeRead(id);
+        Account account = loadAccount(id, minVersion, "Account doesn't exist");
         return AccountMapper.mapToAccountDto(account);
 
     }
 
+    // Version of the account and its history, read without loading the entity
+    @Override
+    @Transactional(readOnly = true)
+    public long getAccountVersion(Long id) {
+        shardRouter.bind(id);
+        readYourWritesGuard.routeRead(id);
+        return accountRepository.findVersionById(id).orElseThrow(() -> new AccountNotFoundException("Account doesn't exist"));
+    }
+
     @Override
+    public AccountBatchDTO getAccountsByIds(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return new AccountBatchDTO(List.of(), List.of());
+        }
+        if (ids.size() > MAX_BATCH_GET_IDS) {
+            throw new InvalidRequestException("At most " + MAX_BATCH_GET_IDS + " ids can be fetched at once");
+        }
+        List<Long> requestedIds = ids.stream().filter(Objects::nonNull).distinct().toList();
+        Map<Integer, List<Long>> idsByShard = new TreeMap<>();
+        for (Long id : requestedIds) {
+            try {
+                idsByShard.computeIfAbsent(shardRouter.shardOf(id), shard -> new ArrayList<>()).add(id);
+            } catch (AccountNotFoundException e) {
+                // Id of a shard that does not exist, reported as missing below
+            }
+        }
+
+        // One multi-id load per shard, all shards in parallel
+        Map<Long, Account> found = new HashMap<>();
+        List<List<Account>> accountsPerShard = shardQueryExecutor.queryShards(idsByShard.keySet(), shard -> {
+            List<Long> shardIds = idsByShard.get(shard);
+            shardIds.forEach(readYourWritesGuard::routeRead);
+            return accountRepository.multiLoad(shardIds);
+        });
+        for (List<Account> accounts : accountsPerShard) {
+            for (Account account : accounts) {
+                if (account != null) {
+                    found.put(account.getId(), account);
+                }
+            }
+        }
+
+        List<AccountDTO> accounts = new ArrayList<>(found.size());
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : requestedIds) {
+            Account account = found.get(id);
+            if (account != null) {
+                accounts.add(AccountMapper.mapToAccountDto(account));
+            } else {
+                missingIds.add(id);
+            }
+        }
+        return new AccountBatchDTO(accounts, missingIds);
+    }
+
+    @Override
+    @Transactional
     public AccountDTO deposit(Long id, double amount) {
 
-        Account account = accountRepository.findById(id).orElseThrow(() -> new AccountException("Account doesn't exist"));
+        shardRouter.bind(id);
+        Account account = accountRepository.findCurrentById(id).orElseThrow(() -> new AccountNotFoundException("Account doesn't exist"));
         account.setBalance(account.getBalance() + amount);
         Account savedAccount = accountRepository.save(account);
-        Transaction transaction= new Transaction();
-        transaction.setAccountId(id);
-        transaction.setAmount(amount);
-        transaction.setTransactionType(TransactionType.DEPOSIT);
-        transaction.setTimestamp(LocalDateTime.now());
-        transactionRepository.save(transaction);
+        recordTransaction(id, amount, TransactionType.DEPOSIT);
+        readYourWritesGuard.recordWrite(id);
 
         return AccountMapper.mapToAccountDto(savedAccount);
     }
 
     @Override
+    @Transactional
     public AccountDTO withdraw(Long id, double amount) {
 
-        Account account = accountRepository.findById(id).orElseThrow(() -> new AccountException("Account doesn't exist"));
+        shardRouter.bind(id);
+        Account account = accountRepository.findCurrentById(id).orElseThrow(() -> new AccountNotFoundException("Account doesn't exist"));
 
         if (account.getBalance() < amount) {
-            throw new AccountException("Low balance");
+            throw new InsufficientBalanceException("Low balance");
         }
+        velocityLimiter.check(id, amount);
         double revisedBalanceAfterWithdraw = account.getBalance() - amount;
         account.setBalance(revisedBalanceAfterWithdraw);
         Account savedAccount = accountRepository.save(account);
-        Transaction transaction=new Transaction();
-        transaction.setAccountId(id);
-        transaction.setAmount(amount);
-        transaction.setTransactionType(TransactionType.WITHDRAW);
-        transaction.setTimestamp(LocalDateTime.now());
-        transactionRepository.save(transaction);
+        recordTransaction(id, amount, TransactionType.WITHDRAW);
+        readYourWritesGuard.recordWrite(id);
         return AccountMapper.mapToAccountDto(savedAccount);
     }
 
     @Override
     public List<AccountDTO> getAllAccounts() {
-        List<Account> accounts = accountRepository.findAll();
+        // Every shard returns its accounts ordered by id, so a k-way merge keeps the overall order
+        List<List<Account>> accountsPerShard = shardQueryExecutor.queryAllShards(shard -> accountRepository.findAllByOrderByIdAsc());
+        List<Account> accounts = ShardQueryExecutor.mergeSorted(accountsPerShard, Comparator.comparing(Account::getId));
         return accounts.stream()
                 .map(AccountMapper::mapToAccountDto)
-                .sorted(Comparator.comparing(AccountDTO::id))
                 .toList();
 
 
     }
 
     @Override
+    @Transactional
     public void deleteAccount(Long id) {
 
-        accountRepository.findById(id).orElseThrow(() -> new AccountException("Account doesn't exist"));
-        accountRepository.deleteById(id);
+        shardRouter.bind(id);
+        // Only the tombstone is written here; the history goes later with AccountPurgeJob
+        if (accountRepository.markDeleted(id, cachedClock.now()) == 0) {
+            throw new AccountNotFoundException("Account doesn't exist");
+        }
+        // The row is locked by the update, so the name read here is the one being deleted
+        String accountHolderName = accountRepository.findHolderNameById(id).orElseThrow();
+        standingOrderRepository.deactivateForAccount(id);
+        readYourWritesGuard.recordWrite(id);
+        accountPrefixIndex.accountDeleted(id, accountHolderName);
 
 
     }
 
     @Override
+    @Transactional
     public void transferFunds(TransferFundDTO transferFundDTO) {
+        transferFunds(transferFundDTO, null);
+    }
+
+    // A cross-shard transfer with a key is made at most once for that key; on one shard the caller's transaction
+    // already makes it atomic with whatever the key stands for
+    @Override
+    @Transactional
+    public void transferFunds(TransferFundDTO transferFundDTO, String transferKey) {
+
+        // Counted for both kinds of transfer; taken back again if the transfer fails
+        velocityLimiter.check(transferFundDTO.fromAccountId(), transferFundDTO.amount());
+        if (shardRouter.isCrossShard(transferFundDTO.fromAccountId(), transferFundDTO.toAccountId())) {
+            crossShardTransferCoordinator.transfer(transferFundDTO, transferKey);
+            readYourWritesGuard.recordWrite(transferFundDTO.fromAccountId(), transferFundDTO.toAccountId());
+            // Both legs were written over JDBC
+            accountCacheInvalidator.accountsChanged(transferFundDTO.fromAccountId(), transferFundDTO.toAccountId());
+            return;
+        }
+        shardRouter.bind(transferFundDTO.fromAccountId());
 
         //Retrieving the account6 from which we send the amount
-        Account fromAccount = accountRepository.findById(transferFundDTO.fromAccountId())
-                .orElseThrow(() -> new AccountException("Account doesn't exist"));
+        Account fromAccount = accountRepository.findCurrentById(transferFundDTO.fromAccountId())
+                .orElseThrow(() -> new AccountNotFoundException("Account doesn't exist"));
 
         if(fromAccount.getBalance()< transferFundDTO.amount()){
-            throw new RuntimeException("you have insufficient balance to make the transfer");
+            throw new InsufficientBalanceException("you have insufficient balance to make the transfer");
         }
 
         // Retrieving the account to which we need to send the amount
-        Account toAccount = accountRepository.findById(transferFundDTO.toAccountId())
-                .orElseThrow(() -> new AccountException("Account doesn't exist"));
+        Account toAccount = accountRepository.findCurrentById(transferFundDTO.toAccountId())
+                .orElseThrow(() -> new AccountNotFoundException("Account doesn't exist"));
 
         //Debiting the amount from fromAccount Object
 
@@ -125,20 +277,29 @@ public class AccountServiceImpl implements AccountService {
         accountRepository.save(fromAccount);
         accountRepository.save(toAccount);
 
-        Transaction transaction = new Transaction();
-        transaction.setAccountId(transferFundDTO.toAccountId());
-        transaction.setAmount(transferFundDTO.amount());
-        transaction.setTransactionType(TransactionType.TRANSFER);
-        transaction.setTimestamp(LocalDateTime.now());
-        transactionRepository.save(transaction);
+        recordTransaction(transferFundDTO.toAccountId(), transferFundDTO.amount(), TransactionType.TRANSFER);
+        readYourWritesGuard.recordWrite(transferFundDTO.fromAccountId(), transferFundDTO.toAccountId());
 
 
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<TransactionDTO> getAccountTransactions(Long accountId) {
-        accountRepository.findById(accountId).orElseThrow(()->new AccountException("Account not found"));
-         List<Transaction> transactions=transactionRepository.findByAccountIdOrderByTimestampDesc(accountId);
+        return getAccountTransactions(accountId, 0);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<TransactionDTO> getAccountTransactions(Long accountId, long minVersion) {
+        shardRouter.bind(accountId);
+        readYourWritesGuard.routeRead(accountId);
+        loadAccount(accountId, minVersion, "Account not found");
+        // Live partitions from the archive horizon on, archived months before it
+        int shard = shardRouter.shardOf(accountId);
+        List<Transaction> transactions = new ArrayList<>(transactionRepository
+                .findLiveHistory(accountId, transactionArchive.horizon(shard)));
+        transactions.addAll(transactionArchive.readHistory(shard, accountId));
         return  transactions.stream()
                  .map(this::mapToTransactionDTO)
                 .sorted(Comparator.comparing(TransactionDTO::id))
@@ -146,6 +307,60 @@ public class AccountServiceImpl implements AccountService {
 
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<AccountActivityDTO> getAccountSummary(Long accountId, SummaryGranularity granularity) {
+        shardRouter.bind(accountId);
+        readYourWritesGuard.routeRead(accountId);
+        accountRepository.findById(accountId).orElseThrow(()->new AccountNotFoundException("Account not found"));
+        return accountActivityRepository.findSummary(accountId, granularity).stream()
+                .map(this::mapToAccountActivityDTO)
+                .toList();
+    }
+
+    // From the second-level cache, unless the cached copy is older than minVersion, a version read from the
+    // database: then it was written on another node since, or tombstoned, and is read again
+    private Account loadAccount(Long id, long minVersion, String notFound) {
+        Account account = accountRepository.findById(id).orElseThrow(() -> new AccountNotFoundException(notFound));
+        if (account.getVersion() < minVersion) {
+            try {
+                accountRepository.refresh(account);
+            } catch (ObjectRetrievalFailureException e) {
+                throw new AccountNotFoundException(notFound);
+            }
+        }
+        return account;
+    }
+
+    // Saves the transaction row and folds it into the day and month aggregates in the same transaction
+    private void recordTransaction(Long accountId, double amount, TransactionType transactionType) {
+        LocalDateTime now = cachedClock.now();
+        LocalDate today = cachedClock.today();
+        Transaction transaction = new Transaction();
+        transaction.setAccountId(accountId);
+        transaction.setAmount(amount);
+        transaction.setTransactionType(transactionType);
+        transaction.setTimestamp(now);
+        transactionRepository.save(transaction);
+        accountActivityRepository.addActivity(accountId,
+                SummaryGranularity.DAY.periodStart(today),
+                SummaryGranularity.MONTH.periodStart(today),
+                transactionType.name(),
+                amount);
+    }
+
+    private AccountActivityDTO mapToAccountActivityDTO(AccountActivity activity) {
+        return new AccountActivityDTO(
+                activity.getId().getPeriodStart(),
+                activity.getDepositTotal(),
+                activity.getDepositCount(),
+                activity.getWithdrawTotal(),
+                activity.getWithdrawCount(),
+                activity.getTransferTotal(),
+                activity.getTransferCount()
+        );
+    }
+
     public TransactionDTO mapToTransactionDTO(Transaction transaction){
         TransactionDTO transactionDTO=new TransactionDTO(
                 transaction.getTransactionId(),
@@ -0,0 +1,166 @@
+package com.med.banking.service.impl;
+
+import com.med.banking.config.ReadYourWritesGuard;
+import com.med.banking.dto.StandingOrderDTO;
+import com.med.banking.entity.StandingOrder;
+import com.med.banking.exception.AccountNotFoundException;
+import com.med.banking.exception.InvalidRequestException;
+import com.med.banking.exception.StandingOrderException;
+import com.med.banking.mapper.StandingOrderMapper;
+import com.med.banking.repository.AccountRepository;
+import com.med.banking.repository.StandingOrderRepository;
+import com.med.banking.scheduler.StandingOrderFiring;
+import com.med.banking.scheduler.StandingOrderScheduler;
+import com.med.banking.service.StandingOrderService;
+import com.med.banking.sharding.ShardRouter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Objects;
+
+@Service
+public class StandingOrderServiceImpl implements StandingOrderService {
+
+    private final StandingOrderRepository standingOrderRepository;
+    private final AccountRepository accountRepository;
+    private final ShardRouter shardRouter;
+    private final ReadYourWritesGuard readYourWritesGuard;
+    private final StandingOrderScheduler standingOrderScheduler;
+
+    @Autowired
+    public StandingOrderServiceImpl(StandingOrderRepository standingOrderRepository, AccountRepository accountRepository,
+                                    ShardRouter shardRouter, ReadYourWritesGuard readYourWritesGuard,
+                                    StandingOrderScheduler standingOrderScheduler) {
+        this.standingOrderRepository = standingOrderRepository;
+        this.accountRepository = accountRepository;
+        this.shardRouter = shardRouter;
+        this.readYourWritesGuard = readYourWritesGuard;
+        this.standingOrderScheduler = standingOrderScheduler;
+    }
+
+    // The order goes to the shard of the debited account, so its id maps to that shard as well
+    @Override
+    @Transactional
+    public StandingOrderDTO createStandingOrder(StandingOrderDTO standingOrderDTO) {
+        validate(standingOrderDTO);
+        shardRouter.bind(standingOrderDTO.fromAccountId());
+        if (!accountRepository.existsById(standingOrderDTO.fromAccountId())) {
+            throw new AccountNotFoundException("Account doesn't exist");
+        }
+        LocalDateTime nextExecution = standingOrderDTO.nextExecution().truncatedTo(ChronoUnit.SECONDS);
+        StandingOrder standingOrder = new StandingOrder(
+                null,
+                standingOrderDTO.fromAccountId(),
+                standingOrderDTO.toAccountId(),
+                standingOrderDTO.amount(),
+                standingOrderDTO.frequency(),
+                nextExecution,
+                nextExecution,
+                null,
+                null,
+                true
+        );
+        StandingOrder savedStandingOrder = standingOrderRepository.save(standingOrder);
+        readYourWritesGuard.recordWrite(savedStandingOrder.getId(), savedStandingOrder.getFromAccountId());
+        scheduleAfterCommit(savedStandingOrder);
+        return StandingOrderMapper.mapToStandingOrderDto(savedStandingOrder);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public StandingOrderDTO getStandingOrderById(Long id) {
+        bindOrder(id);
+        readYourWritesGuard.routeRead(id);
+        return StandingOrderMapper.mapToStandingOrderDto(findStandingOrder(id));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<StandingOrderDTO> getStandingOrdersByAccount(Long accountId) {
+        shardRouter.bind(accountId);
+        readYourWritesGuard.routeRead(accountId);
+        return standingOrderRepository.findByFromAccountIdOrderById(accountId).stream()
+                .map(StandingOrderMapper::mapToStandingOrderDto)
+                .toList();
+    }
+
+    // Changes amount, beneficiary, frequency, next execution and whether the order is active
+    @Override
+    @Transactional
+    public StandingOrderDTO updateStandingOrder(Long id, StandingOrderDTO standingOrderDTO) {
+        validate(standingOrderDTO);
+        bindOrder(id);
+        StandingOrder standingOrder = findStandingOrder(id);
+        if (!Objects.equals(standingOrder.getFromAccountId(), standingOrderDTO.fromAccountId())) {
+            throw new InvalidRequestException("fromAccountId of a standing order cannot be changed");
+        }
+        LocalDateTime nextExecution = standingOrderDTO.nextExecution().truncatedTo(ChronoUnit.SECONDS);
+        if (standingOrder.getFrequency() != standingOrderDTO.frequency() || !nextExecution.equals(standingOrder.getNextExecution())) {
+            standingOrder.setAnchorExecution(nextExecution);
+        }
+        standingOrder.setToAccountId(standingOrderDTO.toAccountId());
+        standingOrder.setAmount(standingOrderDTO.amount());
+        standingOrder.setFrequency(standingOrderDTO.frequency());
+        standingOrder.setNextExecution(nextExecution);
+        standingOrder.setActive(standingOrderDTO.active());
+        StandingOrder savedStandingOrder = standingOrderRepository.save(standingOrder);
+        readYourWritesGuard.recordWrite(id, savedStandingOrder.getFromAccountId());
+        if (savedStandingOrder.isActive()) {
+            scheduleAfterCommit(savedStandingOrder);
+        }
+        return StandingOrderMapper.mapToStandingOrderDto(savedStandingOrder);
+    }
+
+    // Firings already on the wheel find no order and are dropped
+    @Override
+    @Transactional
+    public void deleteStandingOrder(Long id) {
+        bindOrder(id);
+        StandingOrder standingOrder = findStandingOrder(id);
+        standingOrderRepository.delete(standingOrder);
+        readYourWritesGuard.recordWrite(id, standingOrder.getFromAccountId());
+    }
+
+    private StandingOrder findStandingOrder(Long id) {
+        return standingOrderRepository.findById(id).orElseThrow(() -> new StandingOrderException("Standing order doesn't exist"));
+    }
+
+    private void bindOrder(Long id) {
+        try {
+            shardRouter.bind(id);
+        } catch (AccountNotFoundException e) {
+            throw new StandingOrderException("Standing order doesn't exist");
+        }
+    }
+
+    private void scheduleAfterCommit(StandingOrder standingOrder) {
+        StandingOrderFiring firing = new StandingOrderFiring(standingOrder.getId(), standingOrder.getNextExecution());
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                standingOrderScheduler.schedule(firing);
+            }
+        });
+    }
+
+    private static void validate(StandingOrderDTO standingOrderDTO) {
+        if (standingOrderDTO.fromAccountId() == null || standingOrderDTO.toAccountId() == null) {
+            throw new InvalidRequestException("fromAccountId and toAccountId are required");
+        }
+        if (standingOrderDTO.fromAccountId().equals(standingOrderDTO.toAccountId())) {
+            throw new InvalidRequestException("fromAccountId and toAccountId must be different accounts");
+        }
+        if (!Double.isFinite(standingOrderDTO.amount()) || standingOrderDTO.amount() <= 0) {
+            throw new InvalidRequestException("amount must be positive");
+        }
+        if (standingOrderDTO.frequency() == null || standingOrderDTO.nextExecution() == null) {
+            throw new InvalidRequestException("frequency and nextExecution are required");
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.med.banking.service.impl;
+
+import com.med.banking.archive.TransactionArchive;
+import com.med.banking.config.ReadYourWritesGuard;
+import com.med.banking.constants.TransactionType;
+import com.med.banking.service.StatementExportService;
+import com.med.banking.sharding.ShardRouter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * Streams statements straight from a server-side cursor into the response.
+ * <p>
+ * Rows never become entities or DTOs: live rows are read with plain JDBC in fetch-size pages, archived rows come
+ * column by column from the segments, and each row is formatted into one reused buffer. Memory stays flat no
+ * matter how long the history is.
+ */
+@Service
+public class StatementExportServiceImpl implements StatementExportService {
+
+    static final String HEADER = "transaction_id,timestamp,transaction_type,amount\n";
+
+    private static final int FETCH_SIZE = 5_000;
+    private static final String SELECT_LIVE_ROWS = "SELECT transaction_id, \"timestamp\", transaction_type, amount FROM transactions "
+            + "WHERE account_id = ? AND \"timestamp\" >= ? AND \"timestamp\" < ? ORDER BY \"timestamp\", transaction_id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ShardRouter shardRouter;
+    private final ReadYourWritesGuard readYourWritesGuard;
+    private final TransactionArchive transactionArchive;
+
+    @Autowired
+    public StatementExportServiceImpl(DataSource dataSource, PlatformTransactionManager transactionManager,
+                                      ShardRouter shardRouter, ReadYourWritesGuard readYourWritesGuard,
+                                      TransactionArchive transactionArchive) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.shardRouter = shardRouter;
+        this.readYourWritesGuard = readYourWritesGuard;
+        this.transactionArchive = transactionArchive;
+    }
+
+    @Override
+    public void writeStatement(Long accountId, LocalDateTime from, LocalDateTime to, Writer out) throws IOException {
+        int shard = shardRouter.shardOf(accountId);
+        StringBuilder row = new StringBuilder(96);
+        out.write(HEADER);
+
+        // Archived months come before the horizon, live partitions from it on
+        LocalDateTime horizon = transactionArchive.horizon(shard);
+        transactionArchive.scanHistory(shard, accountId, from, min(to, horizon),
+                (transactionId, rowAccountId, amount, transactionType, timestamp) ->
+                        writeRow(out, row, transactionId, timestamp, transactionType, amount));
+
+        LocalDateTime liveFrom = max(from, horizon);
+        if (!liveFrom.isBefore(to)) {
+            return;
+        }
+        try {
+            // The PostgreSQL driver only uses a cursor for the fetch size inside a transaction
+            readOnlyTransaction.executeWithoutResult(status -> {
+                shardRouter.bind(accountId);
+                readYourWritesGuard.routeRead(accountId);
+                jdbcTemplate.query(SELECT_LIVE_ROWS, statement -> {
+                    statement.setLong(1, accountId);
+                    statement.setTimestamp(2, Timestamp.valueOf(liveFrom));
+                    statement.setTimestamp(3, Timestamp.valueOf(to));
+                }, (RowCallbackHandler) resultSet -> {
+                    try {
+                        writeRow(out, row, resultSet.getLong(1), resultSet.getTimestamp(2).toLocalDateTime(),
+                                TransactionType.valueOf(resultSet.getString(3)), resultSet.getDouble(4));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    static void writeRow(Writer out, StringBuilder row, long transactionId, LocalDateTime timestamp,
+                         TransactionType transactionType, double amount) throws IOException {
+        row.setLength(0);
+        row.append(transactionId).append(',');
+        appendTimestamp(row, timestamp);
+        row.append(',').append(transactionType.name()).append(',').append(amount).append('\n');
+        out.append(row);
+    }
+
+    // ISO-8601 to the microsecond, without going through a formatter
+    static void appendTimestamp(StringBuilder row, LocalDateTime timestamp) {
+        row.append(timestamp.getYear()).append('-');
+        appendTwoDigits(row, timestamp.getMonthValue());
+        row.append('-');
+        appendTwoDigits(row, timestamp.getDayOfMonth());
+        row.append('T');
+        appendTwoDigits(row, timestamp.getHour());
+        row.append(':');
+        appendTwoDigits(row, timestamp.getMinute());
+        row.append(':');
+        appendTwoDigits(row, timestamp.getSecond());
+        int micros = timestamp.getNano() / 1_000;
+        if (micros != 0) {
+            row.append('.');
+            for (int divisor = 100_000; divisor > 0; divisor /= 10) {
+                row.append((char) ('0' + micros / divisor % 10));
+            }
+        }
+    }
+
+    private static void appendTwoDigits(StringBuilder row, int value) {
+        row.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+    }
+
+    private static LocalDateTime min(LocalDateTime first, LocalDateTime second) {
+        return first.isBefore(second) ? first : second;
+    }
+
+    private static LocalDateTime max(LocalDateTime first, LocalDateTime second) {
+        return first.isAfter(second) ? first : second;
+    }
+}
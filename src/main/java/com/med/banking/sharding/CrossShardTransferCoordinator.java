@@ -0,0 +1,250 @@
+package com.med.banking.sharding;
+
+import com.med.banking.clock.CachedClock;
+import com.med.banking.constants.SummaryGranularity;
+import com.med.banking.constants.TransactionType;
+import com.med.banking.dto.TransferFundDTO;
+import com.med.banking.exception.AccountNotFoundException;
+import com.med.banking.exception.InsufficientBalanceException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Moves money between accounts that live on different shards with PostgreSQL two-phase commit.
+ * <p>
+ * Both legs are prepared first; the transfer is decided once its log row on shard 0 moves from PREPARING to
+ * COMMITTING. {@link #recover()} finishes prepared legs that a crashed node left behind according to that decision,
+ * and aborts an undecided transfer only by moving the row from PREPARING to ABORTED. Both moves are compare-and-set,
+ * so a coordinator that stalls past the recovery grace period and recovery can never decide differently.
+ * A transfer made under a key logs it as its id, so making it again with the same key finds the first one instead
+ * of moving the money twice.
+ * Requires {@code max_prepared_transactions > 0} on every shard.
+ */
+@Component
+public class CrossShardTransferCoordinator {
+
+    private static final Logger log = LoggerFactory.getLogger(CrossShardTransferCoordinator.class);
+
+    private static final String GID_PREFIX = "xfer-";
+    private static final String DEBIT_SUFFIX = "-d";
+    private static final String CREDIT_SUFFIX = "-c";
+
+    private final ShardRouter shardRouter;
+    private final CachedClock cachedClock;
+    // An SQL interval literal; built from a number, so it is safe to splice into the statements
+    private final String recoveryGrace;
+
+    @Autowired
+    public CrossShardTransferCoordinator(ShardRouter shardRouter, CachedClock cachedClock,
+                                         @Value("${banking.sharding.recovery-grace-seconds:60}") long recoveryGraceSeconds) {
+        this.shardRouter = shardRouter;
+        this.cachedClock = cachedClock;
+        this.recoveryGrace = "interval '" + Math.max(1, recoveryGraceSeconds) + " seconds'";
+    }
+
+    public void transfer(TransferFundDTO transferFundDTO) {
+        transfer(transferFundDTO, null);
+    }
+
+    public void transfer(TransferFundDTO transferFundDTO, String transferKey) {
+        int fromShard = shardRouter.shardOf(transferFundDTO.fromAccountId());
+        int toShard = shardRouter.shardOf(transferFundDTO.toAccountId());
+        String gid = GID_PREFIX + (transferKey != null ? transferKey : UUID.randomUUID().toString());
+        JdbcTemplate coordinatorLog = coordinatorLog();
+        if (coordinatorLog.update("INSERT INTO cross_shard_transfers (gid, from_account_id, to_account_id, amount, status, updated_at) "
+                        + "VALUES (?, ?, ?, ?, 'PREPARING', now()) ON CONFLICT (gid) DO NOTHING",
+                gid, transferFundDTO.fromAccountId(), transferFundDTO.toAccountId(), transferFundDTO.amount()) == 0) {
+            // The key was used before; only a transfer that was decided to commit counts as made
+            if (!decidedToCommit(gid)) {
+                throw new IllegalStateException("Cross-shard transfer " + gid + " was already attempted and did not commit");
+            }
+            log.info("Cross-shard transfer {} was already made", gid);
+            return;
+        }
+
+        try (Connection debit = shardRouter.primaryDataSource(fromShard).getConnection();
+             Connection credit = shardRouter.primaryDataSource(toShard).getConnection()) {
+            boolean debitPrepared = false;
+            boolean creditPrepared = false;
+            try {
+                debit.setAutoCommit(false);
+                credit.setAutoCommit(false);
+                debit(debit, transferFundDTO);
+                credit(credit, transferFundDTO, toShard);
+                execute(debit, "PREPARE TRANSACTION '" + gid + DEBIT_SUFFIX + "'");
+                debitPrepared = true;
+                execute(credit, "PREPARE TRANSACTION '" + gid + CREDIT_SUFFIX + "'");
+                creditPrepared = true;
+            } catch (SQLException | RuntimeException e) {
+                abort(debit, debitPrepared, gid + DEBIT_SUFFIX);
+                abort(credit, creditPrepared, gid + CREDIT_SUFFIX);
+                compareAndSetStatus(gid, "PREPARING", "ABORTED");
+                if (e instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                throw new IllegalStateException("Cross-shard transfer " + gid + " failed", e);
+            } finally {
+                debit.setAutoCommit(true);
+                credit.setAutoCommit(true);
+            }
+
+            // The decision: only taken while the transfer is still PREPARING, so it cannot overrule a recovery
+            // that has already started rolling back the legs of a coordinator it took for dead
+            if (!compareAndSetStatus(gid, "PREPARING", "COMMITTING")) {
+                abort(debit, true, gid + DEBIT_SUFFIX);
+                abort(credit, true, gid + CREDIT_SUFFIX);
+                throw new IllegalStateException("Cross-shard transfer " + gid + " was aborted by recovery");
+            }
+            execute(debit, "COMMIT PREPARED '" + gid + DEBIT_SUFFIX + "'");
+            execute(credit, "COMMIT PREPARED '" + gid + CREDIT_SUFFIX + "'");
+            compareAndSetStatus(gid, "COMMITTING", "DONE");
+        } catch (SQLException e) {
+            // Once COMMITTING is logged the outcome is fixed; recovery finishes whatever is left prepared
+            throw new IllegalStateException("Cross-shard transfer " + gid + " could not be completed", e);
+        }
+    }
+
+    // Resolves prepared legs whose coordinator died, using the decision recorded in the transfer log
+    @Scheduled(fixedDelayString = "${banking.sharding.recovery-interval-ms:60000}")
+    public void recover() {
+        if (shardRouter.shardCount() < 2) {
+            return;
+        }
+        JdbcTemplate coordinatorLog = coordinatorLog();
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            JdbcTemplate shardTemplate = new JdbcTemplate(shardRouter.primaryDataSource(shard));
+            List<String> orphans = shardTemplate.queryForList(
+                    "SELECT gid FROM pg_prepared_xacts WHERE gid LIKE '" + GID_PREFIX + "%' "
+                            + "AND database = current_database() AND prepared < now() - " + recoveryGrace,
+                    String.class);
+            for (String preparedGid : orphans) {
+                try {
+                    boolean commit = recoveryCommits(preparedGid.substring(0, preparedGid.length() - DEBIT_SUFFIX.length()));
+                    shardTemplate.execute((commit ? "COMMIT PREPARED '" : "ROLLBACK PREPARED '") + preparedGid + "'");
+                    log.warn("Recovered cross-shard transfer leg {} on shard {} with {}", preparedGid, shard, commit ? "commit" : "rollback");
+                } catch (RuntimeException e) {
+                    // Left prepared for the next pass; the other legs are still resolved
+                    log.error("Could not recover cross-shard transfer leg {} on shard {}", preparedGid, shard, e);
+                }
+            }
+        }
+        coordinatorLog.update("UPDATE cross_shard_transfers SET status = 'DONE', updated_at = now() "
+                + "WHERE status = 'COMMITTING' AND updated_at < now() - " + recoveryGrace);
+        coordinatorLog.update("UPDATE cross_shard_transfers SET status = 'ABORTED', updated_at = now() "
+                + "WHERE status = 'PREPARING' AND updated_at < now() - " + recoveryGrace);
+    }
+
+    private void debit(Connection connection, TransferFundDTO transferFundDTO) throws SQLException {
+        try (PreparedStatement select = connection.prepareStatement("SELECT balance FROM accounts WHERE id = ? AND deleted_at IS NULL FOR UPDATE")) {
+            select.setLong(1, transferFundDTO.fromAccountId());
+            try (ResultSet resultSet = select.executeQuery()) {
+                if (!resultSet.next()) {
+                    throw new AccountNotFoundException("Account doesn't exist");
+                }
+                if (resultSet.getDouble(1) < transferFundDTO.amount()) {
+                    throw new InsufficientBalanceException("you have insufficient balance to make the transfer");
+                }
+            }
+        }
+        try (PreparedStatement update = connection.prepareStatement("UPDATE accounts SET balance = balance - ?, version = version + 1 WHERE id = ?")) {
+            update.setDouble(1, transferFundDTO.amount());
+            update.setLong(2, transferFundDTO.fromAccountId());
+            update.executeUpdate();
+        }
+    }
+
+    private void credit(Connection connection, TransferFundDTO transferFundDTO, int toShard) throws SQLException {
+        LocalDateTime now = cachedClock.now();
+        LocalDate today = cachedClock.today();
+        try (PreparedStatement update = connection.prepareStatement("UPDATE accounts SET balance = balance + ?, version = version + 1 WHERE id = ? AND deleted_at IS NULL")) {
+            update.setDouble(1, transferFundDTO.amount());
+            update.setLong(2, transferFundDTO.toAccountId());
+            if (update.executeUpdate() == 0) {
+                throw new AccountNotFoundException("Account doesn't exist");
+            }
+        }
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO transactions (transaction_id, account_id, amount, transaction_type, timestamp) VALUES (?, ?, ?, ?, ?)")) {
+            insert.setLong(1, ShardIds.next(toShard));
+            insert.setLong(2, transferFundDTO.toAccountId());
+            insert.setDouble(3, transferFundDTO.amount());
+            insert.setString(4, TransactionType.TRANSFER.name());
+            insert.setTimestamp(5, Timestamp.valueOf(now));
+            insert.executeUpdate();
+        }
+        try (PreparedStatement activity = connection.prepareStatement(
+                "INSERT INTO account_activity (account_id, granularity, period_start, transfer_total, transfer_count) "
+                        + "VALUES (?, 'DAY', ?, ?, 1), (?, 'MONTH', ?, ?, 1) "
+                        + "ON CONFLICT (account_id, granularity, period_start) DO UPDATE SET "
+                        + "transfer_total = account_activity.transfer_total + EXCLUDED.transfer_total, "
+                        + "transfer_count = account_activity.transfer_count + 1")) {
+            activity.setLong(1, transferFundDTO.toAccountId());
+            activity.setObject(2, SummaryGranularity.DAY.periodStart(today));
+            activity.setDouble(3, transferFundDTO.amount());
+            activity.setLong(4, transferFundDTO.toAccountId());
+            activity.setObject(5, SummaryGranularity.MONTH.periodStart(today));
+            activity.setDouble(6, transferFundDTO.amount());
+            activity.executeUpdate();
+        }
+    }
+
+    private void abort(Connection connection, boolean prepared, String preparedGid) {
+        try {
+            if (prepared) {
+                connection.setAutoCommit(true);
+                execute(connection, "ROLLBACK PREPARED '" + preparedGid + "'");
+            } else {
+                connection.rollback();
+            }
+        } catch (SQLException e) {
+            log.warn("Could not roll back {}; recovery will resolve it", preparedGid, e);
+        }
+    }
+
+    // Commit if the coordinator decided to; otherwise abort, but only once the transfer is claimed as ABORTED, so a
+    // coordinator that was merely slow cannot decide to commit afterwards
+    private boolean recoveryCommits(String gid) {
+        if (compareAndSetStatus(gid, "PREPARING", "ABORTED")) {
+            return false;
+        }
+        return decidedToCommit(gid);
+    }
+
+    private boolean decidedToCommit(String gid) {
+        List<String> status = coordinatorLog().queryForList(
+                "SELECT status FROM cross_shard_transfers WHERE gid = ?", String.class, gid);
+        return !status.isEmpty() && ("COMMITTING".equals(status.get(0)) || "DONE".equals(status.get(0)));
+    }
+
+    private boolean compareAndSetStatus(String gid, String expected, String status) {
+        return coordinatorLog().update("UPDATE cross_shard_transfers SET status = ?, updated_at = now() WHERE gid = ? AND status = ?",
+                status, gid, expected) == 1;
+    }
+
+    // The log table is created by schema.sql
+    private JdbcTemplate coordinatorLog() {
+        return new JdbcTemplate(shardRouter.primaryDataSource(0));
+    }
+
+    private static void execute(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+}
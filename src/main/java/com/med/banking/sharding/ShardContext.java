@@ -0,0 +1,30 @@
+package com.med.banking.sharding;
+
+/**
+ * Shard the current thread is working against. Read by {@link ShardRoutingDataSource} when a connection is
+ * opened and by {@link ShardedIdGenerator} when a new entity needs an id. Unbound threads use shard 0.
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    public static int current() {
+        Integer shard = CURRENT.get();
+        return shard == null ? 0 : shard;
+    }
+
+    static Integer get() {
+        return CURRENT.get();
+    }
+
+    static void set(Integer shard) {
+        if (shard == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(shard);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.med.banking.sharding;
+
+import com.med.banking.config.ReadWriteRoutingDataSource;
+import com.med.banking.config.ReadYourWritesGuard;
+import com.med.banking.config.ReplicaDataSourceProperties;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Connection pools of every shard. For each shard it keeps the primary pool, used for writes that bypass JPA,
+ * and the pool JPA should use, which routes read-only transactions to the shard's replica when there is one.
+ */
+public class ShardDataSources implements AutoCloseable {
+
+    private final List<DataSource> primaries = new ArrayList<>();
+    private final List<DataSource> routed = new ArrayList<>();
+    private final List<HikariDataSource> ownedPools = new ArrayList<>();
+
+    public ShardDataSources(DataSource defaultPrimary, ReplicaDataSourceProperties defaultReplica,
+                            List<ShardingProperties.ShardDataSourceProperties> additionalShards,
+                            ReadYourWritesGuard readYourWritesGuard) {
+        if (additionalShards.size() + 1 > ShardIds.MAX_SHARDS) {
+            throw new IllegalArgumentException("At most " + ShardIds.MAX_SHARDS + " shards are supported");
+        }
+        addShard(defaultPrimary, defaultReplica, readYourWritesGuard);
+        for (ShardingProperties.ShardDataSourceProperties shard : additionalShards) {
+            DataSource primary = createPool("shard-" + primaries.size(), shard.url(), shard.username(), shard.password());
+            addShard(primary, shard.replica(), readYourWritesGuard);
+        }
+    }
+
+    public int size() {
+        return primaries.size();
+    }
+
+    public DataSource primary(int shard) {
+        return primaries.get(shard);
+    }
+
+    public DataSource routed(int shard) {
+        return routed.get(shard);
+    }
+
+    @Override
+    public void close() {
+        ownedPools.forEach(HikariDataSource::close);
+    }
+
+    private void addShard(DataSource primary, ReplicaDataSourceProperties replica, ReadYourWritesGuard readYourWritesGuard) {
+        int shard = primaries.size();
+        primaries.add(primary);
+        if (replica == null || replica.url() == null) {
+            routed.add(primary);
+        } else {
+            DataSource replicaPool = createPool("shard-" + shard + "-replica", replica.url(), replica.username(), replica.password());
+            routed.add(new ReadWriteRoutingDataSource(primary, replicaPool, readYourWritesGuard));
+            readYourWritesGuard.registerReplica(shard, primary, replicaPool);
+        }
+    }
+
+    private DataSource createPool(String poolName, String url, String username, String password) {
+        HikariDataSource pool = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+        pool.setPoolName(poolName);
+        ownedPools.add(pool);
+        return pool;
+    }
+}
@@ -0,0 +1,70 @@
+package com.med.banking.sharding;
+
+/**
+ * Generates globally unique ids without a central sequence and recovers the owning shard from an id.
+ * <p>
+ * Layout (63 bits): milliseconds since 2024-01-01 (41) | shard (8) | node (5) | sequence (9).
+ * Ids below {@link #LEGACY_ID_CEILING} were issued by the old IDENTITY columns and always live on shard 0.
+ */
+public final class ShardIds {
+
+    public static final int MAX_SHARDS = 1 << 8;
+    public static final int MAX_NODES = 1 << 5;
+    public static final long LEGACY_ID_CEILING = 1L << 32;
+
+    private static final long EPOCH_MILLIS = 1704067200000L;
+    private static final int SEQUENCE_BITS = 9;
+    private static final int NODE_BITS = 5;
+    private static final int SHARD_BITS = 8;
+    private static final int NODE_SHIFT = SEQUENCE_BITS;
+    private static final int SHARD_SHIFT = SEQUENCE_BITS + NODE_BITS;
+    private static final int TIMESTAMP_SHIFT = SEQUENCE_BITS + NODE_BITS + SHARD_BITS;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private static volatile int nodeId;
+    private static long lastMillis;
+    private static long sequence;
+
+    private ShardIds() {
+    }
+
+    public static void configureNode(int node) {
+        if (node < 0 || node >= MAX_NODES) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + (MAX_NODES - 1));
+        }
+        nodeId = node;
+    }
+
+    public static long next(int shard) {
+        if (shard < 0 || shard >= MAX_SHARDS) {
+            throw new IllegalArgumentException("Shard must be between 0 and " + (MAX_SHARDS - 1));
+        }
+        long millis;
+        long seq;
+        synchronized (ShardIds.class) {
+            // Never step backwards, and borrow the next millisecond once the sequence is exhausted
+            millis = Math.max(System.currentTimeMillis() - EPOCH_MILLIS, lastMillis);
+            if (millis == lastMillis) {
+                sequence = (sequence + 1) & SEQUENCE_MASK;
+                if (sequence == 0) {
+                    millis++;
+                }
+            } else {
+                sequence = 0;
+            }
+            lastMillis = millis;
+            seq = sequence;
+        }
+        return (millis << TIMESTAMP_SHIFT)
+                | ((long) shard << SHARD_SHIFT)
+                | ((long) nodeId << NODE_SHIFT)
+                | seq;
+    }
+
+    public static int shardOf(long id) {
+        if (id < LEGACY_ID_CEILING) {
+            return 0;
+        }
+        return (int) ((id >>> SHARD_SHIFT) & (MAX_SHARDS - 1));
+    }
+}
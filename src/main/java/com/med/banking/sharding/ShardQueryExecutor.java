@@ -0,0 +1,115 @@
+package com.med.banking.sharding;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Scatter-gather reads: runs a query on several shards in parallel, each in its own read-only transaction.
+ */
+@Component
+public class ShardQueryExecutor {
+
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ExecutorService executor;
+
+    @Autowired
+    public ShardQueryExecutor(ShardRouter shardRouter, PlatformTransactionManager transactionManager) {
+        this.shardRouter = shardRouter;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, shardRouter.shardCount()), runnable -> {
+            Thread thread = new Thread(runnable, "shard-query-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public <T> List<List<T>> queryAllShards(IntFunction<List<T>> query) {
+        return queryShards(IntStream.range(0, shardRouter.shardCount()).boxed().toList(), query);
+    }
+
+    public <T> List<List<T>> queryShards(Collection<Integer> shards, IntFunction<List<T>> query) {
+        if (shards.size() == 1) {
+            int shard = shards.iterator().next();
+            return List.of(queryShard(shard, query));
+        }
+        List<Future<List<T>>> futures = new ArrayList<>(shards.size());
+        for (Integer shard : shards) {
+            futures.add(executor.submit(() -> queryShard(shard, query)));
+        }
+        List<List<T>> results = new ArrayList<>(shards.size());
+        try {
+            for (Future<List<T>> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(future -> future.cancel(true));
+            throw new IllegalStateException("Interrupted while querying shards", e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Shard query failed", e.getCause());
+        }
+        return results;
+    }
+
+    // Merges lists that are each already sorted by the comparator
+    public static <T> List<T> mergeSorted(List<List<T>> sortedLists, Comparator<? super T> comparator) {
+        if (sortedLists.size() == 1) {
+            return sortedLists.get(0);
+        }
+        record Cursor<T>(List<T> list, int index) {
+        }
+        PriorityQueue<Cursor<T>> heads = new PriorityQueue<>(
+                Math.max(1, sortedLists.size()),
+                (left, right) -> comparator.compare(left.list().get(left.index()), right.list().get(right.index())));
+        int total = 0;
+        for (List<T> list : sortedLists) {
+            total += list.size();
+            if (!list.isEmpty()) {
+                heads.add(new Cursor<>(list, 0));
+            }
+        }
+        List<T> merged = new ArrayList<>(total);
+        while (!heads.isEmpty()) {
+            Cursor<T> head = heads.poll();
+            merged.add(head.list().get(head.index()));
+            if (head.index() + 1 < head.list().size()) {
+                heads.add(new Cursor<>(head.list(), head.index() + 1));
+            }
+        }
+        return merged;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> List<T> queryShard(int shard, IntFunction<List<T>> query) {
+        return shardRouter.callOnShard(shard, () -> readOnlyTransaction.execute(status -> query.apply(shard)));
+    }
+}
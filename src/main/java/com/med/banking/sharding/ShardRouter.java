@@ -0,0 +1,96 @@
+package com.med.banking.sharding;
+
+import com.med.banking.exception.AccountNotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Maps account ids to shards and binds the current transaction to the shard it has to run on.
+ */
+@Component
+public class ShardRouter {
+
+    private final ShardDataSources shardDataSources;
+    private final AtomicInteger nextShard = new AtomicInteger();
+
+    @Autowired
+    public ShardRouter(ShardDataSources shardDataSources, ShardingProperties shardingProperties) {
+        this.shardDataSources = shardDataSources;
+        ShardIds.configureNode(shardingProperties.nodeId());
+    }
+
+    public int shardCount() {
+        return shardDataSources.size();
+    }
+
+    public int shardOf(Long accountId) {
+        int shard = ShardIds.shardOf(accountId);
+        if (shard >= shardCount()) {
+            throw new AccountNotFoundException("Account doesn't exist");
+        }
+        return shard;
+    }
+
+    public boolean isCrossShard(Long firstAccountId, Long secondAccountId) {
+        return shardOf(firstAccountId) != shardOf(secondAccountId);
+    }
+
+    // Binds the current transaction to the shard owning the account; must run before its first statement
+    public void bind(Long accountId) {
+        bindShard(shardOf(accountId));
+    }
+
+    // Picks the shard a new account is created on and binds the current transaction to it
+    public int bindNewAccount() {
+        int shard = nextShard();
+        bindShard(shard);
+        return shard;
+    }
+
+    // Round robin over the shards for new accounts
+    public int nextShard() {
+        return Math.floorMod(nextShard.getAndIncrement(), shardCount());
+    }
+
+    // Runs the action with the thread bound to the shard, outside of any transaction binding
+    public <T> T callOnShard(int shard, Supplier<T> action) {
+        Integer previous = ShardContext.get();
+        ShardContext.set(shard);
+        try {
+            return action.get();
+        } finally {
+            ShardContext.set(previous);
+        }
+    }
+
+    public DataSource primaryDataSource(int shard) {
+        return shardDataSources.primary(shard);
+    }
+
+    private void bindShard(int shard) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Binding a shard requires an active transaction");
+        }
+        Integer bound = ShardContext.get();
+        if (bound != null) {
+            if (!Objects.equals(bound, shard)) {
+                throw new IllegalStateException("Transaction is already bound to shard " + bound);
+            }
+            return;
+        }
+        ShardContext.set(shard);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                ShardContext.set(null);
+            }
+        });
+    }
+}
@@ -0,0 +1,29 @@
+package com.med.banking.sharding;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Opens connections on the shard bound in {@link ShardContext}. Like the read/write routing it must sit behind a
+ * LazyConnectionDataSourceProxy so the shard can be bound after the transaction has started.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    public ShardRoutingDataSource(ShardDataSources shardDataSources) {
+        Map<Object, Object> targets = new HashMap<>();
+        for (int shard = 0; shard < shardDataSources.size(); shard++) {
+            targets.put(shard, shardDataSources.routed(shard));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(shardDataSources.routed(0));
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ShardContext.current();
+    }
+}
@@ -0,0 +1,21 @@
+package com.med.banking.sharding;
+
+import com.med.banking.config.ReplicaDataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.List;
+
+/**
+ * Shard 0 is always the default {@code spring.datasource}; {@code additionalShards} lists shards 1..N-1.
+ */
+@ConfigurationProperties(prefix = "banking.sharding")
+public record ShardingProperties(int nodeId, List<ShardDataSourceProperties> additionalShards) {
+
+    public ShardingProperties {
+        additionalShards = additionalShards == null ? List.of() : List.copyOf(additionalShards);
+    }
+
+    public record ShardDataSourceProperties(String url, String username, String password,
+                                            ReplicaDataSourceProperties replica) {
+    }
+}
@@ -0,0 +1,7 @@
+package com.med.banking.velocity;
+
+import java.time.LocalDateTime;
+
+// The columns of a past withdrawal that the limits are refilled from, without loading the entity
+public record ReplayedDebit(Long accountId, double amount, LocalDateTime timestamp) {
+}
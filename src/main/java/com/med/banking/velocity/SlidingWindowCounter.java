@@ -0,0 +1,78 @@
+package com.med.banking.velocity;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free sum over a sliding window, kept as a ring of buckets in one {@link AtomicLongArray}.
+ * <p>
+ * Each cell packs the bucket it currently counts for (the low 24 bits of the bucket number) with its value (40
+ * bits), so moving a cell on to a new bucket and adding to it is a single compare-and-set. A cell still tagged with
+ * an older bucket is reset by the first add that lands in it, and left out of the sum. Adds for a bucket older than
+ * the one a cell already counts for are dropped; they have left the window anyway. Tags wrap after 2^24 buckets,
+ * so a cell that seems to be more than a whole rotation ahead is stale as well.
+ */
+class SlidingWindowCounter {
+
+    private static final int TAG_BITS = 24;
+    private static final int VALUE_BITS = Long.SIZE - TAG_BITS;
+    private static final long TAG_MASK = (1L << TAG_BITS) - 1;
+    private static final long VALUE_MASK = (1L << VALUE_BITS) - 1;
+
+    private final long bucketMillis;
+    private final AtomicLongArray cells;
+
+    SlidingWindowCounter(long windowMillis, int buckets) {
+        if (buckets < 1 || windowMillis < buckets) {
+            throw new IllegalArgumentException("A sliding window needs at least one bucket of at least a millisecond");
+        }
+        this.bucketMillis = windowMillis / buckets;
+        this.cells = new AtomicLongArray(buckets);
+    }
+
+    // Adds delta (negative to take back an earlier add) to the bucket of the time and returns the sum over the window
+    long add(long nowMillis, long delta) {
+        long bucket = Math.floorDiv(nowMillis, bucketMillis);
+        int index = index(bucket);
+        long tag = bucket & TAG_MASK;
+        while (true) {
+            long cell = cells.get(index);
+            long age = age(tag, cell >>> VALUE_BITS);
+            long value;
+            if (age == 0) {
+                value = (cell & VALUE_MASK) + delta;
+            } else if (age > 0 || age < -cells.length() || (cell & VALUE_MASK) == 0) {
+                // Older bucket, a tag that wrapped around, or an empty cell
+                value = delta;
+            } else {
+                break;
+            }
+            long updated = tag << VALUE_BITS | Math.min(VALUE_MASK, Math.max(0, value));
+            if (cells.compareAndSet(index, cell, updated)) {
+                break;
+            }
+        }
+        return sum(nowMillis);
+    }
+
+    long sum(long nowMillis) {
+        long tag = Math.floorDiv(nowMillis, bucketMillis) & TAG_MASK;
+        long sum = 0;
+        for (int i = 0; i < cells.length(); i++) {
+            long cell = cells.get(i);
+            long age = age(tag, cell >>> VALUE_BITS);
+            if (age >= 0 && age < cells.length()) {
+                sum += cell & VALUE_MASK;
+            }
+        }
+        return sum;
+    }
+
+    private int index(long bucket) {
+        return (int) Math.floorMod(bucket, (long) cells.length());
+    }
+
+    // How many buckets the cell's tag lies behind the current one, as a signed 24-bit difference
+    private static long age(long currentTag, long cellTag) {
+        return ((currentTag - cellTag) << VALUE_BITS) >> VALUE_BITS;
+    }
+}
@@ -0,0 +1,189 @@
+package com.med.banking.velocity;
+
+import com.med.banking.exception.VelocityLimitException;
+import com.med.banking.repository.TransactionRepository;
+import com.med.banking.sharding.ShardQueryExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+
+/**
+ * Per-account limits on how many debits (withdrawals and transfers out) and how much money may leave an account
+ * per minute and per hour, counted in memory instead of aggregating the transactions table on every write.
+ * <p>
+ * Each account gets a {@link SlidingWindowCounter} for count and amount per limit, so a check is a few
+ * compare-and-sets and a sum over 60 buckets, without locks. A debit is counted when it is checked and taken back
+ * if its transaction rolls back. Accounts idle for longer than the longest window are evicted. After a start the
+ * windows are refilled from the withdrawals still inside them; transfers are stored against the credited account,
+ * so their debits cannot be replayed. Limits are per node: with N nodes behind a load balancer an account can
+ * make up to N times the configured debits.
+ */
+@Component
+public class VelocityLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(VelocityLimiter.class);
+
+    private static final int BUCKETS = 60;
+
+    private final List<Limit> limits;
+    private final long longestWindowMillis;
+    private final TransactionRepository transactionRepository;
+    private final ShardQueryExecutor shardQueryExecutor;
+    private final LongSupplier clock;
+    private final long startedAt;
+    private final ConcurrentHashMap<Long, AccountWindows> accounts = new ConcurrentHashMap<>();
+
+    @Autowired
+    public VelocityLimiter(TransactionRepository transactionRepository, ShardQueryExecutor shardQueryExecutor,
+                           @Value("${banking.velocity.per-minute.max-count:0}") int perMinuteMaxCount,
+                           @Value("${banking.velocity.per-minute.max-amount:0}") double perMinuteMaxAmount,
+                           @Value("${banking.velocity.per-hour.max-count:0}") int perHourMaxCount,
+                           @Value("${banking.velocity.per-hour.max-amount:0}") double perHourMaxAmount) {
+        this(transactionRepository, shardQueryExecutor, System::currentTimeMillis, List.of(
+                new Limit("minute", TimeUnit.MINUTES.toMillis(1), perMinuteMaxCount, toCents(perMinuteMaxAmount)),
+                new Limit("hour", TimeUnit.HOURS.toMillis(1), perHourMaxCount, toCents(perHourMaxAmount))));
+    }
+
+    VelocityLimiter(TransactionRepository transactionRepository, ShardQueryExecutor shardQueryExecutor,
+                    LongSupplier clock, List<Limit> limits) {
+        this.transactionRepository = transactionRepository;
+        this.shardQueryExecutor = shardQueryExecutor;
+        this.clock = clock;
+        // A limit with neither a count nor an amount is off and costs nothing
+        this.limits = limits.stream().filter(limit -> limit.maxCount() > 0 || limit.maxCents() > 0).toList();
+        this.longestWindowMillis = this.limits.stream().mapToLong(Limit::windowMillis).max().orElse(0);
+        this.startedAt = clock.getAsLong();
+    }
+
+    // Counts a debit of the account, or throws when it would take the account over one of its limits
+    public void check(Long accountId, double amount) {
+        if (limits.isEmpty()) {
+            return;
+        }
+        long now = clock.getAsLong();
+        long cents = toCents(amount);
+        AccountWindows windows = accounts.computeIfAbsent(accountId, id -> new AccountWindows(limits));
+        windows.lastUsed = now;
+        for (int i = 0; i < limits.size(); i++) {
+            Limit limit = limits.get(i);
+            long count = windows.counts[i].add(now, 1);
+            long total = windows.amounts[i].add(now, cents);
+            if ((limit.maxCount() > 0 && count > limit.maxCount()) || (limit.maxCents() > 0 && total > limit.maxCents())) {
+                windows.release(i + 1, now, cents);
+                throw new VelocityLimitException("Account " + accountId + " has reached its limit of debits per " + limit.name());
+            }
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        windows.release(limits.size(), now, cents);
+                    }
+                }
+            });
+        }
+    }
+
+    // Withdrawals made before this node started, still inside the windows; later ones were counted by check
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (limits.isEmpty()) {
+            return;
+        }
+        LocalDateTime since = toLocalDateTime(startedAt - longestWindowMillis);
+        LocalDateTime until = toLocalDateTime(startedAt);
+        try {
+            // Each shard replays its rows as they are fetched, inside its read-only transaction
+            List<List<Long>> replayedPerShard = shardQueryExecutor.queryAllShards(shard -> {
+                long replayed = 0;
+                try (Stream<ReplayedDebit> withdrawals = transactionRepository.streamWithdrawals(since, until)) {
+                    for (Iterator<ReplayedDebit> iterator = withdrawals.iterator(); iterator.hasNext(); replayed++) {
+                        ReplayedDebit withdrawal = iterator.next();
+                        replay(withdrawal.accountId(), withdrawal.amount(),
+                                withdrawal.timestamp().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+                    }
+                }
+                return List.of(replayed);
+            });
+            long replayed = replayedPerShard.stream().mapToLong(perShard -> perShard.get(0)).sum();
+            log.info("Velocity limits rebuilt from {} withdrawals since {}", replayed, since);
+        } catch (RuntimeException e) {
+            log.warn("Could not rebuild velocity limits, starting with empty windows", e);
+        }
+    }
+
+    @Scheduled(fixedDelay = 60_000)
+    public void evictIdleAccounts() {
+        long cutoff = clock.getAsLong() - longestWindowMillis;
+        accounts.values().removeIf(windows -> windows.lastUsed < cutoff);
+    }
+
+    int trackedAccounts() {
+        return accounts.size();
+    }
+
+    private void replay(Long accountId, double amount, long timeMillis) {
+        AccountWindows windows = accounts.computeIfAbsent(accountId, id -> new AccountWindows(limits));
+        windows.lastUsed = Math.max(windows.lastUsed, timeMillis);
+        long cents = toCents(amount);
+        for (int i = 0; i < limits.size(); i++) {
+            if (timeMillis >= startedAt - limits.get(i).windowMillis()) {
+                windows.counts[i].add(timeMillis, 1);
+                windows.amounts[i].add(timeMillis, cents);
+            }
+        }
+    }
+
+    private static long toCents(double amount) {
+        return Math.round(amount * 100);
+    }
+
+    private static LocalDateTime toLocalDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+
+    record Limit(String name, long windowMillis, int maxCount, long maxCents) {
+    }
+
+    private static final class AccountWindows {
+
+        private final SlidingWindowCounter[] counts;
+        private final SlidingWindowCounter[] amounts;
+        private volatile long lastUsed;
+
+        private AccountWindows(List<Limit> limits) {
+            counts = new SlidingWindowCounter[limits.size()];
+            amounts = new SlidingWindowCounter[limits.size()];
+            for (int i = 0; i < limits.size(); i++) {
+                counts[i] = new SlidingWindowCounter(limits.get(i).windowMillis(), BUCKETS);
+                amounts[i] = new SlidingWindowCounter(limits.get(i).windowMillis(), BUCKETS);
+            }
+        }
+
+        // Takes a debit back from the first windows; it stays in the bucket it was added to
+        private void release(int windows, long addedAt, long cents) {
+            for (int i = 0; i < windows; i++) {
+                counts[i].add(addedAt, -1);
+                amounts[i].add(addedAt, -cents);
+            }
+        }
+    }
+}
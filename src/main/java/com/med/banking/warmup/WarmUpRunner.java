@@ -0,0 +1,162 @@
+package com.med.banking.warmup;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.med.banking.constants.AccountSearchMode;
+import com.med.banking.constants.SummaryGranularity;
+import com.med.banking.dto.AccountDTO;
+import com.med.banking.dto.DepositRequestDTO;
+import com.med.banking.dto.TransferFundDTO;
+import com.med.banking.dto.WithdrawRequestDTO;
+import com.med.banking.entity.Account;
+import com.med.banking.repository.AccountRepository;
+import com.med.banking.service.AccountSearchService;
+import com.med.banking.service.AccountService;
+import com.med.banking.sharding.ShardRouter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Primes the hot paths before the first real request, off unless {@code banking.warm-up.enabled=true}.
+ * <p>
+ * Every iteration opens a transaction that is always rolled back, creates two synthetic accounts on one shard and
+ * runs deposit, withdraw, transfer, the account, history and summary reads through {@link AccountService}, then the
+ * batch read and the name searches, and encodes and decodes the DTOs with the application's ObjectMapper. That
+ * compiles the Hibernate query plans, creates the Jackson serializers and gives the JIT
+ * {@code banking.warm-up.iterations} passes, bounded by {@code banking.warm-up.max-seconds}. Nothing is committed.
+ * <p>
+ * It runs as an ApplicationRunner, so the application only reports {@code ACCEPTING_TRAFFIC} on
+ * {@code /actuator/health/readiness} once it is done. The duration is logged and published as
+ * {@code banking.warm-up.duration}. A failing iteration ends the warm-up early; it never stops the start.
+ */
+@Component
+public class WarmUpRunner implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(WarmUpRunner.class);
+
+    private static final String ACCOUNT_HOLDER_NAME = "Warm-up";
+    private static final TypeReference<AccountDTO> ACCOUNT = new TypeReference<>() {
+    };
+    private static final TypeReference<DepositRequestDTO> DEPOSIT = new TypeReference<>() {
+    };
+    private static final TypeReference<WithdrawRequestDTO> WITHDRAW = new TypeReference<>() {
+    };
+    private static final TypeReference<TransferFundDTO> TRANSFER = new TypeReference<>() {
+    };
+
+    private final boolean enabled;
+    private final int iterations;
+    private final long maxNanos;
+    private final AccountService accountService;
+    private final AccountSearchService accountSearchService;
+    private final AccountRepository accountRepository;
+    private final ShardRouter shardRouter;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate rolledBackTransaction;
+    private volatile long durationMillis;
+
+    @Autowired
+    public WarmUpRunner(AccountService accountService, AccountSearchService accountSearchService,
+                        AccountRepository accountRepository, ShardRouter shardRouter, ObjectMapper objectMapper,
+                        PlatformTransactionManager transactionManager, ApplicationEventPublisher eventPublisher,
+                        MeterRegistry meterRegistry,
+                        @Value("${banking.warm-up.enabled:false}") boolean enabled,
+                        @Value("${banking.warm-up.iterations:2000}") int iterations,
+                        @Value("${banking.warm-up.max-seconds:60}") long maxSeconds) {
+        this.enabled = enabled;
+        this.iterations = iterations;
+        this.maxNanos = TimeUnit.SECONDS.toNanos(maxSeconds);
+        this.accountService = accountService;
+        this.accountSearchService = accountSearchService;
+        this.accountRepository = accountRepository;
+        this.shardRouter = shardRouter;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.rolledBackTransaction = new TransactionTemplate(transactionManager);
+        TimeGauge.builder("banking.warm-up.duration", this, TimeUnit.MILLISECONDS, runner -> runner.durationMillis)
+                .description("Time spent priming the hot paths before accepting traffic")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled || iterations <= 0) {
+            return;
+        }
+        AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.REFUSING_TRAFFIC);
+        long start = System.nanoTime();
+        int completed = 0;
+        try {
+            while (completed < iterations && System.nanoTime() - start < maxNanos) {
+                iteration();
+                completed++;
+            }
+        } catch (RuntimeException e) {
+            log.warn("Warm-up stopped after {} iterations", completed, e);
+        }
+        durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        log.info("Warm-up ran {} iterations in {} ms", completed, durationMillis);
+    }
+
+    void iteration() {
+        List<Long> ids = rolledBackTransaction.execute(status -> {
+            status.setRollbackOnly();
+            shardRouter.bindNewAccount();
+            Long fromId = accountRepository.save(new Account(null, ACCOUNT_HOLDER_NAME, 1_000_000)).getId();
+            Long toId = accountRepository.save(new Account(null, ACCOUNT_HOLDER_NAME, 0)).getId();
+            // Request bodies go through the same decoding as in the controller
+            decode(encode(new AccountDTO(null, ACCOUNT_HOLDER_NAME, 0)), ACCOUNT);
+            encode(accountService.deposit(fromId, decode(encode(new DepositRequestDTO(100.0)), DEPOSIT).amount()));
+            encode(accountService.withdraw(fromId, decode(encode(new WithdrawRequestDTO(50.0)), WITHDRAW).withdrawAmount()));
+            accountService.transferFunds(decode(encode(new TransferFundDTO(fromId, toId, 25)), TRANSFER));
+            // The reads as the controller makes them: the version for the ETag, then the body of at least that version
+            encode(accountService.getAccountById(fromId, accountService.getAccountVersion(fromId)));
+            encode(accountService.getAccountTransactions(toId, accountService.getAccountVersion(toId)));
+            encode(accountService.getAccountSummary(fromId, SummaryGranularity.DAY));
+            return List.of(fromId, toId);
+        });
+        // Each shard is read in its own transaction, so these run after the rollback and find nothing
+        encode(accountService.getAccountsByIds(ids));
+        for (AccountSearchMode mode : AccountSearchMode.values()) {
+            encode(accountSearchService.searchAccounts(ACCOUNT_HOLDER_NAME, mode, 0, 20));
+        }
+    }
+
+    long durationMillis() {
+        return durationMillis;
+    }
+
+    private byte[] encode(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private <T> T decode(byte[] json, TypeReference<T> type) {
+        try {
+            return objectMapper.readValue(json, type);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+-- One-off backfill of account_activity for databases that had transactions before account_activity existed.
+-- Run it on every shard. It rebuilds the buckets of every month that still has a live partition, so running it
+-- again is harmless; archived months keep the buckets they have. Writes to transactions wait until it commits.
+
+BEGIN;
+
+LOCK TABLE transactions, account_activity IN SHARE ROW EXCLUSIVE MODE;
+
+CREATE TEMPORARY TABLE backfill_horizon ON COMMIT DROP AS
+    SELECT coalesce(date_trunc('month', min("timestamp"))::date, 'infinity'::date) AS first_day FROM transactions;
+
+DELETE FROM account_activity
+WHERE period_start >= (SELECT first_day FROM backfill_horizon);
+
+INSERT INTO account_activity (account_id, granularity, period_start,
+                              deposit_total, deposit_count, withdraw_total, withdraw_count, transfer_total, transfer_count)
+SELECT t.account_id, p.granularity, p.period_start,
+       coalesce(sum(t.amount) FILTER (WHERE t.transaction_type = 'DEPOSIT'), 0),
+       count(*) FILTER (WHERE t.transaction_type = 'DEPOSIT'),
+       coalesce(sum(t.amount) FILTER (WHERE t.transaction_type = 'WITHDRAW'), 0),
+       count(*) FILTER (WHERE t.transaction_type = 'WITHDRAW'),
+       coalesce(sum(t.amount) FILTER (WHERE t.transaction_type = 'TRANSFER'), 0),
+       count(*) FILTER (WHERE t.transaction_type = 'TRANSFER')
+FROM transactions t
+CROSS JOIN LATERAL (VALUES ('DAY', t."timestamp"::date),
+                           ('MONTH', date_trunc('month', t."timestamp")::date)) AS p(granularity, period_start)
+WHERE t.account_id IS NOT NULL
+GROUP BY t.account_id, p.granularity, p.period_start;
+
+COMMIT;
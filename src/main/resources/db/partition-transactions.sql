@@ -0,0 +1,40 @@
+-- One-off migration of an existing, unpartitioned transactions table to the partitioned layout in schema.sql.
+-- Run it during a maintenance window, then start the application: it creates the monthly partitions and
+-- archives months older than banking.transactions.retention-months on its next maintenance run.
+
+BEGIN;
+
+ALTER TABLE transactions RENAME TO transactions_unpartitioned;
+
+CREATE TABLE transactions (
+    transaction_id bigint NOT NULL,
+    account_id bigint,
+    amount double precision NOT NULL,
+    transaction_type varchar(255),
+    "timestamp" timestamp(6) NOT NULL,
+    PRIMARY KEY (transaction_id, "timestamp")
+) PARTITION BY RANGE ("timestamp");
+
+-- One partition per month that has data
+DO $$
+DECLARE
+    month date;
+BEGIN
+    FOR month IN
+        SELECT DISTINCT date_trunc('month', "timestamp")::date FROM transactions_unpartitioned
+    LOOP
+        EXECUTE format('CREATE TABLE transactions_p%s PARTITION OF transactions FOR VALUES FROM (%L) TO (%L)',
+                       to_char(month, 'YYYYMM'), month, (month + interval '1 month')::date);
+    END LOOP;
+END $$;
+
+CREATE TABLE transactions_default PARTITION OF transactions DEFAULT;
+
+INSERT INTO transactions SELECT transaction_id, account_id, amount, transaction_type, "timestamp"
+FROM transactions_unpartitioned WHERE "timestamp" IS NOT NULL;
+
+CREATE INDEX idx_transactions_account_timestamp ON transactions (account_id, "timestamp" DESC);
+
+DROP TABLE transactions_unpartitioned;
+
+COMMIT;
@@ -0,0 +1,110 @@
+-- Runs on every start (spring.sql.init.mode=always) before Hibernate, and on every additional shard.
+-- Hibernate's ddl-auto=update then only adds columns that are missing.
+-- Databases created before transactions was partitioned must run db/partition-transactions.sql first.
+
+CREATE TABLE IF NOT EXISTS accounts (
+    id bigint PRIMARY KEY,
+    account_holder_name varchar(255),
+    balance double precision NOT NULL,
+    version bigint NOT NULL DEFAULT 0,
+    deleted_at timestamp(6)
+);
+ALTER TABLE accounts ADD COLUMN IF NOT EXISTS version bigint NOT NULL DEFAULT 0;
+ALTER TABLE accounts ADD COLUMN IF NOT EXISTS deleted_at timestamp(6);
+-- Deleting an account only sets deleted_at; this small partial index is what the purger walks
+CREATE INDEX IF NOT EXISTS idx_accounts_deleted_at ON accounts (deleted_at) WHERE deleted_at IS NOT NULL;
+
+-- Name search: trigram GIN for substring and fuzzy matches, and a byte-ordered btree that serves prefix
+-- matches in the order the results are returned in. pg_trgm ships with PostgreSQL's contrib modules.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX IF NOT EXISTS idx_accounts_holder_name_trgm ON accounts USING gin (account_holder_name gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_accounts_holder_name_prefix ON accounts ((lower(account_holder_name) COLLATE "C"), id);
+
+-- Partitioned by month; the primary key has to include the partition key.
+CREATE TABLE IF NOT EXISTS transactions (
+    transaction_id bigint NOT NULL,
+    account_id bigint,
+    amount double precision NOT NULL,
+    transaction_type varchar(255),
+    "timestamp" timestamp(6) NOT NULL,
+    PRIMARY KEY (transaction_id, "timestamp")
+) PARTITION BY RANGE ("timestamp");
+
+-- Catches rows outside the premade months so inserts never fail; normally empty.
+CREATE TABLE IF NOT EXISTS transactions_default PARTITION OF transactions DEFAULT;
+
+CREATE INDEX IF NOT EXISTS idx_transactions_account_timestamp ON transactions (account_id, "timestamp" DESC);
+-- The last hour of withdrawals that VelocityLimiter replays after a start
+CREATE INDEX IF NOT EXISTS idx_transactions_withdraw_timestamp ON transactions ("timestamp") WHERE transaction_type = 'WITHDRAW';
+
+-- Decisions of cross-shard transfers, used on shard 0 only. Recovery looks up the transfers left PREPARING or
+-- COMMITTING for longer than the grace period.
+CREATE TABLE IF NOT EXISTS cross_shard_transfers (
+    gid varchar(64) PRIMARY KEY,
+    from_account_id bigint NOT NULL,
+    to_account_id bigint NOT NULL,
+    amount double precision NOT NULL,
+    status varchar(16) NOT NULL,
+    updated_at timestamp NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_cross_shard_transfers_open ON cross_shard_transfers (status, updated_at)
+    WHERE status IN ('PREPARING', 'COMMITTING');
+
+-- Per-account totals per day and per month, upserted together with every transaction row. Databases with
+-- transactions from before this table run db/backfill-account-activity.sql once.
+CREATE TABLE IF NOT EXISTS account_activity (
+    account_id bigint NOT NULL,
+    granularity varchar(8) NOT NULL,
+    period_start date NOT NULL,
+    deposit_total double precision NOT NULL DEFAULT 0,
+    deposit_count bigint NOT NULL DEFAULT 0,
+    withdraw_total double precision NOT NULL DEFAULT 0,
+    withdraw_count bigint NOT NULL DEFAULT 0,
+    transfer_total double precision NOT NULL DEFAULT 0,
+    transfer_count bigint NOT NULL DEFAULT 0,
+    PRIMARY KEY (account_id, granularity, period_start)
+);
+
+-- Interest accrual checkpoints. A chunk of accounts is credited in the same transaction that advances last_id
+-- of its partition, so a crashed run resumes after the last committed chunk and never credits twice.
+CREATE TABLE IF NOT EXISTS interest_runs (
+    run_month date PRIMARY KEY,
+    monthly_rate double precision NOT NULL,
+    status varchar(16) NOT NULL,
+    started_at timestamp(6) NOT NULL,
+    finished_at timestamp(6)
+);
+
+CREATE TABLE IF NOT EXISTS interest_run_partitions (
+    run_month date NOT NULL REFERENCES interest_runs (run_month),
+    partition_no int NOT NULL,
+    lower_id bigint NOT NULL,
+    upper_id bigint NOT NULL,
+    last_id bigint NOT NULL,
+    credited_accounts bigint NOT NULL DEFAULT 0,
+    credited_amount double precision NOT NULL DEFAULT 0,
+    completed boolean NOT NULL DEFAULT false,
+    PRIMARY KEY (run_month, partition_no)
+);
+
+-- Recurring transfers, on the shard of the debited account. Schedulers load the next window by next_execution.
+CREATE TABLE IF NOT EXISTS standing_orders (
+    id bigint PRIMARY KEY,
+    from_account_id bigint NOT NULL,
+    to_account_id bigint NOT NULL,
+    amount double precision NOT NULL,
+    frequency varchar(16) NOT NULL,
+    anchor_execution timestamp(6),
+    next_execution timestamp(6) NOT NULL,
+    last_execution timestamp(6),
+    last_failure varchar(255),
+    active boolean NOT NULL
+);
+
+-- Orders created before the anchor existed count their months from the next execution they had then
+ALTER TABLE standing_orders ADD COLUMN IF NOT EXISTS anchor_execution timestamp(6);
+UPDATE standing_orders SET anchor_execution = next_execution WHERE anchor_execution IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_standing_orders_next_execution ON standing_orders (next_execution) WHERE active;
+CREATE INDEX IF NOT EXISTS idx_standing_orders_from_account ON standing_orders (from_account_id);
+CREATE INDEX IF NOT EXISTS idx_standing_orders_to_account ON standing_orders (to_account_id);
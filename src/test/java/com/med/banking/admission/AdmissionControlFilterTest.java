@@ -0,0 +1,58 @@
+package com.med.banking.admission;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionControlFilterTest {
+
+    private final GradientConcurrencyLimit writeLimit = new GradientConcurrencyLimit(1, 1, 10, 2.0);
+    private final GradientConcurrencyLimit readLimit = new GradientConcurrencyLimit(1, 1, 10, 2.0);
+    private final AdmissionControlFilter filter = new AdmissionControlFilter(writeLimit, readLimit,
+            new ObjectMapper().registerModule(new JavaTimeModule()), 2);
+
+    // 1.1 Test case for method: GradientConcurrencyLimit limitFor(HttpServletRequest request)
+    // Money-moving requests and reads go to their own limits; everything else is not limited.
+    @Test
+    void testLimitFor() {
+        // Act & Assert
+        assertSame(writeLimit, filter.limitFor(new MockHttpServletRequest("PUT", "/api/accounts/1/deposit")));
+        assertSame(writeLimit, filter.limitFor(new MockHttpServletRequest("PUT", "/api/accounts/1/withdraw")));
+        assertSame(writeLimit, filter.limitFor(new MockHttpServletRequest("POST", "/api/accounts/transfer")));
+        assertSame(readLimit, filter.limitFor(new MockHttpServletRequest("GET", "/api/accounts/1")));
+        assertSame(readLimit, filter.limitFor(new MockHttpServletRequest("POST", "/api/accounts/batch-get")));
+        assertNull(filter.limitFor(new MockHttpServletRequest("GET", "/api/accounts/1/statement.csv")));
+        assertNull(filter.limitFor(new MockHttpServletRequest("POST", "/api/accounts/import")));
+        assertNull(filter.limitFor(new MockHttpServletRequest("GET", "/actuator/health")));
+    }
+
+    // 2.1 Test case for method: void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+    // A full write limit sheds writes with 503 and Retry-After while reads still pass.
+    @Test
+    void testDoFilterInternal_ShedsWhenFull() throws Exception {
+        // Arrange
+        assertTrue(writeLimit.tryAcquire());
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        MockFilterChain rejectedChain = new MockFilterChain();
+        MockHttpServletResponse read = new MockHttpServletResponse();
+        MockFilterChain readChain = new MockFilterChain();
+
+        // Act
+        filter.doFilter(new MockHttpServletRequest("POST", "/api/accounts/transfer"), rejected, rejectedChain);
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/accounts/1"), read, readChain);
+
+        // Assert
+        assertEquals(503, rejected.getStatus());
+        assertEquals("2", rejected.getHeader(HttpHeaders.RETRY_AFTER));
+        assertTrue(rejected.getContentAsString().contains("\"errorCode\":\"OVERLOADED\""));
+        assertNull(rejectedChain.getRequest());
+        assertNotNull(readChain.getRequest());
+        assertEquals(0, readLimit.inFlight());
+    }
+}
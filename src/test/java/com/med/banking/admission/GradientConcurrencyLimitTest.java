@@ -0,0 +1,80 @@
+package com.med.banking.admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GradientConcurrencyLimitTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(10);
+
+    // 1.1 Test case for method: boolean tryAcquire()
+    // Requests over the limit are turned away until a slot is released.
+    @Test
+    void testTryAcquire_RejectsOverLimit() {
+        // Arrange
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(2, 1, 10, 2.0);
+
+        // Act & Assert
+        assertTrue(limit.tryAcquire());
+        assertTrue(limit.tryAcquire());
+        assertFalse(limit.tryAcquire());
+        assertEquals(1, limit.rejected());
+
+        limit.release(FAST);
+        assertTrue(limit.tryAcquire());
+        assertEquals(2, limit.inFlight());
+    }
+
+    // 2.1 Test case for method: void release(long rttNanos)
+    // The limit grows while latency is steady, drops when it rises and recovers once it is back.
+    @Test
+    void testRelease_FollowsLatency() {
+        // Arrange
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(20, 2, 100, 2.0);
+
+        // Act & Assert
+        for (int i = 0; i < 100; i++) {
+            sample(limit, FAST);
+        }
+        assertEquals(100, limit.limit());
+
+        for (int i = 0; i < 50; i++) {
+            sample(limit, SLOW);
+        }
+        assertTrue(limit.limit() < 10, "limit during the brownout was " + limit.limit());
+
+        for (int i = 0; i < 200; i++) {
+            sample(limit, FAST);
+        }
+        assertTrue(limit.limit() > 50, "limit after the brownout was " + limit.limit());
+    }
+
+    // 2.2 Test case for method: void release(long rttNanos)
+    // An idle limit is not raised by the few requests it sees.
+    @Test
+    void testRelease_UnusedLimitDoesNotGrow() {
+        // Arrange
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(20, 2, 100, 2.0);
+
+        // Act
+        for (int i = 0; i < 100; i++) {
+            assertTrue(limit.tryAcquire());
+            limit.release(FAST);
+        }
+
+        // Assert
+        assertEquals(20, limit.limit());
+    }
+
+    // Keeps the limit fully used and completes one request with the given latency
+    private static void sample(GradientConcurrencyLimit limit, long rttNanos) {
+        while (limit.tryAcquire()) {
+            // fill every free slot
+        }
+        limit.release(rttNanos);
+    }
+}
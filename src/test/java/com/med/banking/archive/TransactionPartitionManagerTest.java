@@ -0,0 +1,115 @@
+package com.med.banking.archive;
+
+import com.med.banking.sharding.ShardRouter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoSession;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.mockito.Mockito.*;
+
+class TransactionPartitionManagerTest {
+
+    @Mock
+    private ShardRouter shardRouter;
+
+    @Mock
+    private TransactionArchive transactionArchive;
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private PreparedStatement lockQuery;
+
+    @Mock
+    private PreparedStatement unlockQuery;
+
+    @Mock
+    private PreparedStatement partitionedQuery;
+
+    private TransactionPartitionManager partitionManager;
+
+    private MockitoSession mockitoSession;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        mockitoSession = Mockito.mockitoSession().initMocks(this).startMocking();
+        partitionManager = new TransactionPartitionManager(shardRouter, transactionArchive, 12, 2, 10, 2000);
+        when(shardRouter.shardCount()).thenReturn(1);
+        when(shardRouter.primaryDataSource(0)).thenReturn(dataSource);
+        when(dataSource.getConnection()).thenReturn(connection);
+    }
+
+    @AfterEach
+    void tearDown() {
+        mockitoSession.finishMocking();
+    }
+
+    // 1.1 Test case for method: void maintainPartitions()
+    // Another node holds the maintenance lock of the shard: this node leaves the shard alone.
+    @Test
+    void testMaintainPartitions_LockHeldElsewhere() throws SQLException {
+        // Arrange
+        ResultSet notAcquired = singleBoolean(false);
+        when(lockQuery.executeQuery()).thenReturn(notAcquired);
+        when(connection.prepareStatement("SELECT pg_try_advisory_lock(?)")).thenReturn(lockQuery);
+
+        // Act
+        partitionManager.maintainPartitions();
+
+        // Assert
+        verify(connection, never()).prepareStatement("SELECT pg_advisory_unlock(?)");
+        verify(connection, never()).createStatement();
+        verifyNoInteractions(transactionArchive);
+        verify(connection).close();
+    }
+
+    // 1.2 Test case for method: void maintainPartitions()
+    // The lock is taken and released on the same connection around the run.
+    @Test
+    void testMaintainPartitions_ReleasesLock() throws SQLException {
+        // Arrange
+        ResultSet acquired = singleBoolean(true);
+        ResultSet released = singleBoolean(true);
+        ResultSet notPartitioned = singleBoolean(false);
+        Statement statement = mock(Statement.class);
+        when(lockQuery.executeQuery()).thenReturn(acquired);
+        when(unlockQuery.executeQuery()).thenReturn(released);
+        when(statement.executeQuery(startsWith("SELECT EXISTS"))).thenReturn(notPartitioned);
+        when(connection.prepareStatement("SELECT pg_try_advisory_lock(?)")).thenReturn(lockQuery);
+        when(connection.prepareStatement("SELECT pg_advisory_unlock(?)")).thenReturn(unlockQuery);
+        when(connection.createStatement()).thenReturn(statement);
+
+        // Act
+        partitionManager.maintainPartitions();
+
+        // Assert
+        verify(unlockQuery).executeQuery();
+        verifyNoInteractions(transactionArchive);
+        verify(connection).close();
+    }
+
+    private static ResultSet singleBoolean(boolean value) throws SQLException {
+        ResultSet resultSet = mock(ResultSet.class);
+        ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(metaData.getColumnCount()).thenReturn(1);
+        when(resultSet.getMetaData()).thenReturn(metaData);
+        when(resultSet.next()).thenReturn(true, false);
+        when(resultSet.getBoolean(1)).thenReturn(value);
+        return resultSet;
+    }
+}
@@ -0,0 +1,178 @@
+package com.med.banking.archive;
+
+import com.med.banking.constants.TransactionType;
+import com.med.banking.entity.Transaction;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionSegmentTest {
+
+    @TempDir
+    Path archiveDir;
+
+    // 1.1 Test case for method: static List<Transaction> readAccount(Path segment, long accountId)
+    // Rows of one account are read back from the columns they were written to.
+    @Test
+    void testReadAccount() throws IOException {
+        // Arrange
+        LocalDateTime timestamp = LocalDateTime.of(2025, 3, 14, 15, 9, 26, 535_000);
+        Path segment = archiveDir.resolve("segment.seg");
+        try (TransactionSegmentWriter writer = new TransactionSegmentWriter(segment)) {
+            writer.append(10L, 1L, 100.0, TransactionType.DEPOSIT, timestamp);
+            writer.append(11L, 2L, 50.0, TransactionType.WITHDRAW, timestamp.plusDays(1));
+            writer.append(12L, 2L, 25.0, TransactionType.TRANSFER, timestamp.plusDays(2));
+            writer.append(13L, 3L, 75.0, TransactionType.DEPOSIT, timestamp.plusDays(3));
+            writer.finish();
+        }
+
+        // Act
+        List<Transaction> transactions = TransactionSegmentReader.readAccount(segment, 2L);
+
+        // Assert
+        assertEquals(2, transactions.size());
+        assertEquals(11L, transactions.get(0).getTransactionId());
+        assertEquals(2L, transactions.get(0).getAccountId());
+        assertEquals(50.0, transactions.get(0).getAmount(), 0.0);
+        assertEquals(TransactionType.WITHDRAW, transactions.get(0).getTransactionType());
+        assertEquals(timestamp.plusDays(1), transactions.get(0).getTimestamp());
+        assertEquals(12L, transactions.get(1).getTransactionId());
+        assertEquals(TransactionType.TRANSFER, transactions.get(1).getTransactionType());
+    }
+
+    // 1.2 Test case for method: static List<Transaction> readAccount(Path segment, long accountId)
+    // Accounts that are not in the segment give no rows.
+    @Test
+    void testReadAccount_MissingAccount() throws IOException {
+        // Arrange
+        Path segment = archiveDir.resolve("segment.seg");
+        try (TransactionSegmentWriter writer = new TransactionSegmentWriter(segment)) {
+            writer.append(10L, 5L, 100.0, TransactionType.DEPOSIT, LocalDateTime.now());
+            writer.append(11L, 9L, 100.0, TransactionType.DEPOSIT, LocalDateTime.now());
+            writer.finish();
+        }
+
+        // Act & Assert
+        assertTrue(TransactionSegmentReader.readAccount(segment, 1L).isEmpty());
+        assertTrue(TransactionSegmentReader.readAccount(segment, 7L).isEmpty());
+        assertTrue(TransactionSegmentReader.readAccount(segment, 10L).isEmpty());
+    }
+
+    // 1.3 Test case for method: static List<Transaction> readAccount(Path segment, long accountId)
+    // Accounts in later run chunks and runs that cross a column chunk are found through the chunk index.
+    @Test
+    void testReadAccount_AcrossChunks() throws IOException {
+        // Arrange
+        LocalDateTime timestamp = LocalDateTime.of(2025, 1, 1, 0, 0);
+        Path segment = archiveDir.resolve("segment.seg");
+        int accounts = TransactionSegmentWriter.RUNS_PER_CHUNK * 3;
+        long transactionId = 0;
+        try (TransactionSegmentWriter writer = new TransactionSegmentWriter(segment)) {
+            for (long accountId = 1; accountId <= accounts; accountId++) {
+                for (int row = 0; row < 3; row++) {
+                    writer.append(transactionId++, accountId * 2, accountId + row, TransactionType.DEPOSIT, timestamp.plusSeconds(row));
+                }
+            }
+            writer.finish();
+        }
+
+        // Act
+        TransactionSegmentReader.Header header = TransactionSegmentReader.readHeader(segment);
+        // Assert
+        assertEquals(3, header.runChunkAccounts().length);
+        assertTrue(header.columnChunkOffsets()[0].length > 1);
+        // Account 1366 starts at row 4095, one row before the first column chunk ends
+        long crossing = TransactionSegmentWriter.ROWS_PER_CHUNK / 3 + 1;
+        for (long accountId : new long[]{1, crossing, TransactionSegmentWriter.RUNS_PER_CHUNK + 1, accounts}) {
+            List<Transaction> transactions = TransactionSegmentReader.readAccount(segment, accountId * 2);
+            assertEquals(3, transactions.size());
+            assertEquals((accountId - 1) * 3, transactions.get(0).getTransactionId());
+            assertEquals(accountId + 2.0, transactions.get(2).getAmount(), 0.0);
+            assertEquals(timestamp.plusSeconds(2), transactions.get(2).getTimestamp());
+        }
+        assertTrue(TransactionSegmentReader.readAccount(segment, crossing * 2 + 1).isEmpty());
+    }
+
+    // 1.4 Test case for exception handling for method: static List<Transaction> readAccount(Path segment, long accountId)
+    // Files that are not segments of the current version are rejected.
+    @Test
+    void testReadAccount_UnknownVersion() throws IOException {
+        // Arrange
+        Path segment = archiveDir.resolve("unknown.seg");
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(segment))) {
+            out.writeInt(8);
+            out.writeInt(TransactionSegmentWriter.MAGIC);
+            out.writeInt(TransactionSegmentWriter.VERSION + 1);
+        }
+
+        // Act & Assert
+        assertThrows(IOException.class, () -> TransactionSegmentReader.readAccount(segment, 7L));
+    }
+
+    // 2.1 Test case for exception handling for method: void append(long transactionId, long accountId, double amount, TransactionType transactionType, LocalDateTime timestamp)
+    // Rows must arrive in account order.
+    @Test
+    void testAppend_OutOfOrder() throws IOException {
+        try (TransactionSegmentWriter writer = new TransactionSegmentWriter(archiveDir.resolve("segment.seg"))) {
+            // Arrange
+            writer.append(10L, 5L, 100.0, TransactionType.DEPOSIT, LocalDateTime.now());
+
+            // Act & Assert
+            assertThrows(IllegalArgumentException.class,
+                    () -> writer.append(11L, 4L, 100.0, TransactionType.DEPOSIT, LocalDateTime.now()));
+        }
+    }
+
+    // 3.1 Test case for method: LocalDateTime horizon(int shard)
+    // Segments found on disk move the horizon to the month after the newest one.
+    @Test
+    void testHorizon_FollowsSegments() throws IOException {
+        // Arrange
+        TransactionArchive empty = new TransactionArchive(archiveDir.toString());
+        assertEquals(TransactionArchive.NO_HORIZON, empty.horizon(0));
+
+        Path segment = empty.segmentPath(0, YearMonth.of(2025, 1));
+        try (TransactionSegmentWriter writer = new TransactionSegmentWriter(segment)) {
+            writer.append(10L, 1L, 100.0, TransactionType.DEPOSIT, LocalDateTime.of(2025, 1, 20, 0, 0));
+            writer.finish();
+        }
+
+        // Act
+        TransactionArchive archive = new TransactionArchive(archiveDir.toString());
+
+        // Assert
+        assertEquals(LocalDateTime.of(2025, 2, 1, 0, 0), archive.horizon(0));
+        assertEquals(TransactionArchive.NO_HORIZON, archive.horizon(1));
+        assertEquals(1, archive.readHistory(0, 1L).size());
+        assertFalse(Files.list(archiveDir).anyMatch(file -> file.toString().endsWith(".tmp")));
+    }
+
+    // 4.1 Test case for method: void rescan()
+    // A segment written after the archive was built, as by another node, shows up with the next rescan.
+    @Test
+    void testRescan_PicksUpSegmentsOfOtherNodes() throws IOException {
+        // Arrange
+        TransactionArchive archive = new TransactionArchive(archiveDir.toString());
+        try (TransactionSegmentWriter writer = new TransactionSegmentWriter(archive.segmentPath(0, YearMonth.of(2025, 1)))) {
+            writer.append(10L, 1L, 100.0, TransactionType.DEPOSIT, LocalDateTime.of(2025, 1, 20, 0, 0));
+            writer.finish();
+        }
+        assertEquals(TransactionArchive.NO_HORIZON, archive.horizon(0));
+
+        // Act
+        archive.rescan();
+
+        // Assert
+        assertEquals(LocalDateTime.of(2025, 2, 1, 0, 0), archive.horizon(0));
+        assertEquals(1, archive.readHistory(0, 1L).size());
+    }
+}
@@ -0,0 +1,154 @@
+package com.med.banking.batch;
+
+import com.med.banking.sharding.ShardRouter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoSession;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+class AccountPurgeJobTest {
+
+    @Mock
+    private ShardRouter shardRouter;
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private ResultSet tombstones;
+
+    @Mock
+    private PreparedStatement selectTombstones;
+
+    @Mock
+    private PreparedStatement deleteTransactions;
+
+    @Mock
+    private PreparedStatement deleteActivity;
+
+    @Mock
+    private PreparedStatement deleteStandingOrders;
+
+    @Mock
+    private PreparedStatement deleteAccount;
+
+    private AccountPurgeJob job;
+
+    private MockitoSession mockitoSession;
+
+    @BeforeEach
+    void setUp() {
+        mockitoSession = Mockito.mockitoSession().initMocks(this).startMocking();
+        job = new AccountPurgeJob(shardRouter, 100, 0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        mockitoSession.finishMocking();
+    }
+
+    // 1.1 Test case for method: int purgeShard(int shard, AccrualThrottle throttle)
+    // Transactions go in batches until a batch comes back short, then the account goes in one transaction.
+    @Test
+    void testPurgeShard_HistoryInBatchesBeforeTheAccount() throws Exception {
+        // Arrange
+        givenTombstone(7L);
+        when(deleteTransactions.executeUpdate()).thenReturn(100, 100, 42);
+
+        // Act
+        int purged = job.purgeShard(0, new AccrualThrottle(0));
+
+        // Assert
+        assertEquals(1, purged);
+        verify(deleteTransactions).setLong(1, 7L);
+        verify(deleteTransactions).setInt(2, 100);
+        verify(deleteTransactions, times(3)).executeUpdate();
+        InOrder inOrder = inOrder(connection, deleteActivity, deleteStandingOrders, deleteAccount);
+        inOrder.verify(connection).setAutoCommit(false);
+        inOrder.verify(deleteActivity).executeUpdate();
+        inOrder.verify(deleteStandingOrders).executeUpdate();
+        inOrder.verify(deleteAccount).executeUpdate();
+        inOrder.verify(connection).commit();
+        verify(deleteAccount).setLong(1, 7L);
+    }
+
+    // 1.2 Test case for method: int purgeShard(int shard, AccrualThrottle throttle)
+    // Standing orders to the account that are kept on another shard are deactivated there.
+    @Test
+    void testPurgeShard_DeactivatesIncomingStandingOrdersOnOtherShards() throws Exception {
+        // Arrange
+        givenTombstone(7L);
+        DataSource otherDataSource = mock(DataSource.class);
+        Connection otherConnection = mock(Connection.class);
+        PreparedStatement deactivateIncoming = mock(PreparedStatement.class);
+        when(shardRouter.shardCount()).thenReturn(2);
+        when(shardRouter.primaryDataSource(1)).thenReturn(otherDataSource);
+        when(otherDataSource.getConnection()).thenReturn(otherConnection);
+        when(otherConnection.prepareStatement(AccountPurgeJob.DEACTIVATE_INCOMING_STANDING_ORDERS)).thenReturn(deactivateIncoming);
+
+        // Act
+        int purged = job.purgeShard(0, new AccrualThrottle(0));
+
+        // Assert
+        assertEquals(1, purged);
+        verify(deactivateIncoming).setLong(1, 7L);
+        verify(deactivateIncoming).executeUpdate();
+        verify(otherConnection).close();
+        verify(connection, never()).prepareStatement(AccountPurgeJob.DEACTIVATE_INCOMING_STANDING_ORDERS);
+    }
+
+    // 1.3 Test case for exception handling for method: int purgeShard(int shard, AccrualThrottle throttle)
+    // A failure keeps the account row, so the tombstone is picked up again on the next run.
+    @Test
+    void testPurgeShard_FailureKeepsTheTombstone() throws Exception {
+        // Arrange
+        givenTombstone(7L);
+        when(deleteStandingOrders.executeUpdate()).thenThrow(new SQLException("lock timeout"));
+
+        // Act
+        int purged = job.purgeShard(0, new AccrualThrottle(0));
+
+        // Assert
+        assertEquals(0, purged);
+        verify(connection).rollback();
+        verify(connection, never()).commit();
+        verify(deleteAccount, never()).executeUpdate();
+        verify(connection).setAutoCommit(true);
+    }
+
+    // Shard 0 holds one deleted account
+    private void givenTombstone(long id) throws SQLException {
+        when(shardRouter.primaryDataSource(0)).thenReturn(dataSource);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenAnswer(invocation -> statement(invocation.getArgument(0)));
+        when(tombstones.next()).thenReturn(true, false);
+        when(tombstones.getLong(1)).thenReturn(id);
+        when(selectTombstones.executeQuery()).thenReturn(tombstones);
+    }
+
+    private PreparedStatement statement(String sql) {
+        return switch (sql) {
+            case AccountPurgeJob.SELECT_TOMBSTONES -> selectTombstones;
+            case AccountPurgeJob.DELETE_TRANSACTIONS -> deleteTransactions;
+            case AccountPurgeJob.DELETE_ACTIVITY -> deleteActivity;
+            case AccountPurgeJob.DELETE_STANDING_ORDERS -> deleteStandingOrders;
+            case AccountPurgeJob.DELETE_ACCOUNT -> deleteAccount;
+            default -> throw new IllegalArgumentException(sql);
+        };
+    }
+}
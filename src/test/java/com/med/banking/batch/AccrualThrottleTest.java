@@ -0,0 +1,52 @@
+package com.med.banking.batch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AccrualThrottleTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    // 1.1 Test case for method: long reserve(int accounts, long nowNanos)
+    // Chunks are spaced so the accounts per second never exceed the limit.
+    @Test
+    void testReserve_SpacedToTheLimit() {
+        // Arrange
+        AccrualThrottle throttle = new AccrualThrottle(1000);
+        long now = -5 * SECOND;
+
+        // Act & Assert
+        assertEquals(0, throttle.reserve(500, now));
+        assertEquals(SECOND / 2, throttle.reserve(500, now));
+        assertEquals(SECOND, throttle.reserve(500, now));
+        assertEquals(SECOND / 2, throttle.reserve(500, now + SECOND));
+    }
+
+    // 1.2 Test case for method: long reserve(int accounts, long nowNanos)
+    // Idle time is not saved up for a burst later.
+    @Test
+    void testReserve_IdleTimeIsNotBanked() {
+        // Arrange
+        AccrualThrottle throttle = new AccrualThrottle(1000);
+
+        // Act & Assert
+        assertEquals(0, throttle.reserve(1000, 0));
+        assertEquals(0, throttle.reserve(1000, 10 * SECOND));
+        assertEquals(SECOND, throttle.reserve(1000, 10 * SECOND));
+    }
+
+    // 1.3 Test case for method: long reserve(int accounts, long nowNanos)
+    // A limit of zero turns throttling off.
+    @Test
+    void testReserve_Unlimited() {
+        // Arrange
+        AccrualThrottle throttle = new AccrualThrottle(0);
+
+        // Act & Assert
+        assertEquals(0, throttle.reserve(1_000_000, 0));
+        assertEquals(0, throttle.reserve(1_000_000, 0));
+    }
+}
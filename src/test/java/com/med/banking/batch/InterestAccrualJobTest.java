@@ -0,0 +1,220 @@
+package com.med.banking.batch;
+
+import com.med.banking.cache.AccountCacheInvalidator;
+import com.med.banking.sharding.ShardRouter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoSession;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.YearMonth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+class InterestAccrualJobTest {
+
+    @Mock
+    private ShardRouter shardRouter;
+
+    @Mock
+    private AccountCacheInvalidator accountCacheInvalidator;
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private PreparedStatement selectUnfinishedRuns;
+
+    @Mock
+    private PreparedStatement openRun;
+
+    @Mock
+    private PreparedStatement planBounds;
+
+    @Mock
+    private PreparedStatement insertPartition;
+
+    @Mock
+    private PreparedStatement selectOpenPartitions;
+
+    @Mock
+    private PreparedStatement chunkEnd;
+
+    @Mock
+    private PreparedStatement creditChunk;
+
+    @Mock
+    private PreparedStatement insertTransaction;
+
+    @Mock
+    private PreparedStatement advanceCheckpoint;
+
+    @Mock
+    private PreparedStatement closeRun;
+
+    private MockitoSession mockitoSession;
+
+    private InterestAccrualJob job;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        mockitoSession = Mockito.mockitoSession().initMocks(this).startMocking();
+        job = new InterestAccrualJob(shardRouter, accountCacheInvalidator, 0.12, 16, 1000, 1, 0, 250);
+        when(shardRouter.shardCount()).thenReturn(1);
+        when(shardRouter.primaryDataSource(0)).thenReturn(dataSource);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenAnswer(invocation -> statement(invocation.getArgument(0)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        mockitoSession.finishMocking();
+    }
+
+    // 1.1 Test case for method: InterestRunReport run(YearMonth month)
+    // A new run plans its partitions, credits each chunk and advances the checkpoint in the same transaction.
+    @Test
+    void testRun_CheckpointAdvancedWithTheChunk() throws Exception {
+        // Arrange
+        when(openRun.executeUpdate()).thenReturn(1);
+        ResultSet bounds = row(planBounds);
+        when(bounds.getLong(1)).thenReturn(10L);
+        givenOpenPartition(0L, 10L);
+        noRows(chunkEnd);
+        ResultSet credited = row(creditChunk);
+        when(credited.getLong(1)).thenReturn(7L);
+        when(credited.getDouble(2)).thenReturn(1.5);
+        when(advanceCheckpoint.executeUpdate()).thenReturn(1);
+
+        // Act
+        InterestRunReport report = job.run(YearMonth.of(2026, 9));
+
+        // Assert
+        assertEquals(1, report.creditedAccounts());
+        assertEquals(1.5, report.creditedAmount(), 0.0);
+        verify(insertPartition).setLong(4, 10L);
+        verify(insertTransaction).executeBatch();
+        verify(advanceCheckpoint).setLong(1, 10L);
+        verify(advanceCheckpoint).setLong(2, 1L);
+        verify(advanceCheckpoint).setBoolean(4, true);
+        verify(advanceCheckpoint).setLong(7, 0L);
+        verify(connection, times(2)).commit();
+        verify(closeRun).executeUpdate();
+        verify(accountCacheInvalidator).allAccountsChanged();
+    }
+
+    // 1.2 Test case for method: InterestRunReport run(YearMonth month)
+    // A run that already exists is not planned again and carries on from the committed last_id.
+    @Test
+    void testRun_ResumesFromTheCheckpoint() throws Exception {
+        // Arrange
+        givenOpenPartition(5L, 10L);
+        noRows(chunkEnd);
+        noRows(creditChunk);
+        when(advanceCheckpoint.executeUpdate()).thenReturn(1);
+
+        // Act
+        InterestRunReport report = job.run(YearMonth.of(2026, 9));
+
+        // Assert
+        assertEquals(1, report.chunks());
+        verify(connection, never()).prepareStatement(InterestAccrualJob.PLAN_BOUNDS);
+        verify(chunkEnd).setLong(1, 5L);
+        verify(creditChunk).setLong(2, 5L);
+        verify(creditChunk).setLong(3, 10L);
+        verify(insertTransaction, never()).executeBatch();
+        verify(advanceCheckpoint).setLong(7, 5L);
+    }
+
+    // 1.3 Test case for method: InterestRunReport run(YearMonth month)
+    // When another node has moved last_id on, the chunk is rolled back and the partition is left to that node.
+    @Test
+    void testRun_LostCheckpointRollsTheChunkBack() throws Exception {
+        // Arrange
+        givenOpenPartition(5L, 5000L);
+        ResultSet end = row(chunkEnd);
+        when(end.getLong(1)).thenReturn(1005L);
+        ResultSet credited = row(creditChunk);
+        when(credited.getLong(1)).thenReturn(7L);
+        when(credited.getDouble(2)).thenReturn(1.5);
+
+        // Act
+        InterestRunReport report = job.run(YearMonth.of(2026, 9));
+
+        // Assert
+        assertEquals(0, report.chunks());
+        assertEquals(0, report.creditedAccounts());
+        verify(advanceCheckpoint).setLong(7, 5L);
+        verify(connection).rollback();
+        verify(connection, times(1)).commit();
+        verify(chunkEnd, times(1)).executeQuery();
+    }
+
+    // 2.1 Test case for method: void resumeUnfinishedRuns()
+    // Every month that is not DONE is run again, oldest first, and a failure does not stop the next month.
+    @Test
+    void testResumeUnfinishedRuns() throws Exception {
+        // Arrange
+        InterestAccrualJob spiedJob = spy(job);
+        ResultSet unfinished = mock(ResultSet.class);
+        when(selectUnfinishedRuns.executeQuery()).thenReturn(unfinished);
+        when(unfinished.next()).thenReturn(true, true, false);
+        when(unfinished.getDate(1)).thenReturn(Date.valueOf("2026-08-01"), Date.valueOf("2026-09-01"));
+        doThrow(new IllegalStateException("failed")).when(spiedJob).run(YearMonth.of(2026, 8));
+        doReturn(null).when(spiedJob).run(YearMonth.of(2026, 9));
+
+        // Act
+        spiedJob.resumeUnfinishedRuns();
+
+        // Assert
+        verify(spiedJob).run(YearMonth.of(2026, 8));
+        verify(spiedJob).run(YearMonth.of(2026, 9));
+    }
+
+    private void givenOpenPartition(long lastId, long upperId) throws SQLException {
+        ResultSet partitions = row(selectOpenPartitions);
+        when(partitions.getInt(1)).thenReturn(0);
+        when(partitions.getLong(2)).thenReturn(lastId);
+        when(partitions.getLong(3)).thenReturn(upperId);
+        when(partitions.getDouble(4)).thenReturn(0.01);
+    }
+
+    private ResultSet row(PreparedStatement statement) throws SQLException {
+        ResultSet resultSet = mock(ResultSet.class);
+        when(statement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true, false);
+        return resultSet;
+    }
+
+    private void noRows(PreparedStatement statement) throws SQLException {
+        when(statement.executeQuery()).thenReturn(mock(ResultSet.class));
+    }
+
+    private PreparedStatement statement(String sql) {
+        return switch (sql) {
+            case InterestAccrualJob.SELECT_UNFINISHED_RUNS -> selectUnfinishedRuns;
+            case InterestAccrualJob.OPEN_RUN -> openRun;
+            case InterestAccrualJob.PLAN_BOUNDS -> planBounds;
+            case InterestAccrualJob.INSERT_PARTITION -> insertPartition;
+            case InterestAccrualJob.SELECT_OPEN_PARTITIONS -> selectOpenPartitions;
+            case InterestAccrualJob.CHUNK_END -> chunkEnd;
+            case InterestAccrualJob.CREDIT_CHUNK -> creditChunk;
+            case InterestAccrualJob.INSERT_TRANSACTION -> insertTransaction;
+            case InterestAccrualJob.ADVANCE_CHECKPOINT -> advanceCheckpoint;
+            case InterestAccrualJob.CLOSE_RUN -> closeRun;
+            default -> throw new IllegalArgumentException(sql);
+        };
+    }
+}
@@ -0,0 +1,139 @@
+package com.med.banking.cache;
+
+import com.med.banking.BankingAppApplication;
+import com.med.banking.dto.AccountDTO;
+import com.med.banking.service.AccountService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Read-heavy mix of account reads, history reads and deposits, run once with the second-level cache and once
+ * without, against the database in application.properties. Prints the hit ratio of the account region and the read
+ * latencies. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class AccountCacheBenchmarkTest {
+
+    private static final int ACCOUNTS = 1_000;
+    private static final int DEPOSITS_PER_ACCOUNT = 5;
+    private static final int WARMUP_OPERATIONS = 5_000;
+    private static final int MEASURED_OPERATIONS = 20_000;
+    // 80 % of the operations go to the first 20 % of the accounts
+    private static final double HOT_SHARE = 0.8;
+    private static final int HOT_ACCOUNTS = ACCOUNTS / 5;
+
+    @Test
+    void compareReadMixWithAndWithoutCache() {
+        Result cached = run("cached", "--spring.jpa.properties.hibernate.cache.use_second_level_cache=true");
+        Result uncached = run("uncached", "--spring.jpa.properties.hibernate.cache.use_second_level_cache=false");
+
+        assertTrue(cached.accountHitRatio() > 0.5, "Most account reads should be cache hits");
+        assertTrue(cached.readP50Micros() < uncached.readP50Micros(), "Cached reads should be faster");
+    }
+
+    private static Result run(String variant, String... properties) {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(BankingAppApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(properties)) {
+            AccountService accountService = context.getBean(AccountService.class);
+            Statistics statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+            List<Long> ids = createAccounts(accountService);
+            try {
+                SplittableRandom random = new SplittableRandom(42);
+                for (int i = 0; i < WARMUP_OPERATIONS; i++) {
+                    operation(accountService, ids, random);
+                }
+                statistics.clear();
+                long[] readNanos = new long[MEASURED_OPERATIONS];
+                int reads = 0;
+                long start = System.nanoTime();
+                for (int i = 0; i < MEASURED_OPERATIONS; i++) {
+                    long operationStart = System.nanoTime();
+                    if (operation(accountService, ids, random)) {
+                        readNanos[reads++] = System.nanoTime() - operationStart;
+                    }
+                }
+                double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+                Result result = new Result(hitRatio(statistics, AccountCacheInvalidator.ACCOUNT_REGION),
+                        percentileMicros(readNanos, reads, 0.5), percentileMicros(readNanos, reads, 0.99),
+                        MEASURED_OPERATIONS / seconds);
+                System.out.printf("%-9s account hits %5.1f %%  read p50 %7.1f us  p99 %8.1f us  %,8.0f ops/s%n",
+                        variant, result.accountHitRatio() * 100,
+                        result.readP50Micros(), result.readP99Micros(), result.operationsPerSecond());
+                return result;
+            } finally {
+                ids.forEach(accountService::deleteAccount);
+            }
+        }
+    }
+
+    private static List<Long> createAccounts(AccountService accountService) {
+        List<Long> ids = new ArrayList<>(ACCOUNTS);
+        for (int i = 0; i < ACCOUNTS; i++) {
+            Long id = accountService.createAccount(new AccountDTO(null, "Cache Benchmark " + i, 1_000)).id();
+            for (int deposit = 0; deposit < DEPOSITS_PER_ACCOUNT; deposit++) {
+                accountService.deposit(id, 10);
+            }
+            ids.add(id);
+        }
+        return ids;
+    }
+
+    // 70 % account reads, 20 % history reads, 10 % deposits; true for a read
+    private static boolean operation(AccountService accountService, List<Long> ids, SplittableRandom random) {
+        Long id = random.nextDouble() < HOT_SHARE
+                ? ids.get(random.nextInt(HOT_ACCOUNTS))
+                : ids.get(HOT_ACCOUNTS + random.nextInt(ids.size() - HOT_ACCOUNTS));
+        int kind = random.nextInt(10);
+        // Reads as GET /{id} and GET /{id}/transactions make them: the version from the database, then the body
+        if (kind < 7) {
+            accountService.getAccountById(id, accountService.getAccountVersion(id));
+            return true;
+        }
+        if (kind < 9) {
+            accountService.getAccountTransactions(id, accountService.getAccountVersion(id));
+            return true;
+        }
+        accountService.deposit(id, 1);
+        return false;
+    }
+
+    private static double hitRatio(Statistics statistics, String region) {
+        CacheRegionStatistics regionStatistics;
+        try {
+            regionStatistics = statistics.getDomainDataRegionStatistics(region);
+        } catch (IllegalArgumentException e) {
+            // No such region when the cache is off
+            return 0;
+        }
+        if (regionStatistics == null) {
+            return 0;
+        }
+        long requests = regionStatistics.getHitCount() + regionStatistics.getMissCount();
+        return requests == 0 ? 0 : (double) regionStatistics.getHitCount() / requests;
+    }
+
+    private static double percentileMicros(long[] nanos, int count, double percentile) {
+        long[] sorted = Arrays.copyOf(nanos, count);
+        Arrays.sort(sorted);
+        return sorted[(int) Math.min(count - 1, Math.floor(percentile * count))] / 1_000.0;
+    }
+
+    private record Result(double accountHitRatio, double readP50Micros, double readP99Micros,
+                          double operationsPerSecond) {
+    }
+}
@@ -0,0 +1,89 @@
+package com.med.banking.cache;
+
+import com.med.banking.entity.Account;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoSession;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.mockito.Mockito.*;
+
+class AccountCacheInvalidatorTest {
+
+    @Mock
+    private EntityManagerFactory entityManagerFactory;
+
+    @Mock
+    private SessionFactory sessionFactory;
+
+    @Mock
+    private Cache cache;
+
+    private AccountCacheInvalidator invalidator;
+
+    private MockitoSession mockitoSession;
+
+    @BeforeEach
+    void setUp() {
+        mockitoSession = Mockito.mockitoSession().initMocks(this).startMocking();
+        // The constructor looks the cache up once
+        when(entityManagerFactory.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+        when(sessionFactory.getCache()).thenReturn(cache);
+        invalidator = new AccountCacheInvalidator(entityManagerFactory);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        mockitoSession.finishMocking();
+    }
+
+    // 1.1 Test case for method: void accountsChanged(Long... ids)
+    // Inside a transaction the accounts are evicted at once and again after the commit.
+    @Test
+    void testAccountsChanged_EvictedAgainAfterCommit() {
+        // Arrange
+        TransactionSynchronizationManager.initSynchronization();
+
+        // Act
+        invalidator.accountsChanged(1L, 2L);
+
+        // Assert
+        verify(cache).evictEntityData(Account.class, 1L);
+        verify(cache).evictEntityData(Account.class, 2L);
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        verify(cache, times(2)).evictEntityData(Account.class, 1L);
+        verify(cache, times(2)).evictEntityData(Account.class, 2L);
+    }
+
+    // 1.2 Test case for method: void accountsChanged(Long... ids)
+    // Without a transaction the accounts are evicted once.
+    @Test
+    void testAccountsChanged_WithoutTransaction() {
+        // Act
+        invalidator.accountsChanged(1L);
+
+        // Assert
+        verify(cache, times(1)).evictEntityData(Account.class, 1L);
+    }
+
+    // 2.1 Test case for method: void allAccountsChanged()
+    // A bulk update drops every cached account.
+    @Test
+    void testAllAccountsChanged() {
+        // Act
+        invalidator.allAccountsChanged();
+
+        // Assert
+        verify(cache).evictEntityData(Account.class);
+    }
+}
@@ -0,0 +1,233 @@
+package com.med.banking.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoSession;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReadWriteRoutingDataSourceTest {
+
+    @Mock
+    private DataSource primary;
+
+    @Mock
+    private DataSource replica;
+
+    private ReadYourWritesGuard readYourWritesGuard;
+    private ReadWriteRoutingDataSource routingDataSource;
+
+    private MockitoSession mockitoSession;
+
+    @BeforeEach
+    void setUp() {
+        mockitoSession = Mockito.mockitoSession().initMocks(this).startMocking();
+        readYourWritesGuard = new ReadYourWritesGuard(60_000);
+        routingDataSource = new ReadWriteRoutingDataSource(primary, replica, readYourWritesGuard);
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        TransactionSynchronizationManager.clear();
+        RequestContextHolder.resetRequestAttributes();
+        mockitoSession.finishMocking();
+    }
+
+    // 1.1 Test case for method: Object determineCurrentLookupKey()
+    // Read-only transactions go to the replica.
+    @Test
+    void testDetermineCurrentLookupKey_ReadOnlyToReplica() {
+        // Arrange
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        // Act
+        Object route = routingDataSource.determineCurrentLookupKey();
+
+        // Assert
+        assertEquals(ReadWriteRoutingDataSource.Route.REPLICA, route);
+    }
+
+    // 1.2 Test case for method: Object determineCurrentLookupKey()
+    // Read-write transactions go to the primary.
+    @Test
+    void testDetermineCurrentLookupKey_ReadWriteToPrimary() {
+        // Arrange
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+
+        // Act
+        Object route = routingDataSource.determineCurrentLookupKey();
+
+        // Assert
+        assertEquals(ReadWriteRoutingDataSource.Route.PRIMARY, route);
+    }
+
+    // 1.3 Test case for method: Object determineCurrentLookupKey()
+    // Reads of a recently written account stay on the primary.
+    @Test
+    void testDetermineCurrentLookupKey_RecentlyWrittenAccountToPrimary() {
+        // Arrange
+        readYourWritesGuard.recordWrite(1L);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        readYourWritesGuard.routeRead(1L);
+
+        // Act
+        Object route = routingDataSource.determineCurrentLookupKey();
+
+        // Assert
+        assertEquals(ReadWriteRoutingDataSource.Route.PRIMARY, route);
+    }
+
+    // 1.4 Test case for method: Object determineCurrentLookupKey()
+    // Reads of other accounts are not affected by the window.
+    @Test
+    void testDetermineCurrentLookupKey_OtherAccountToReplica() {
+        // Arrange
+        readYourWritesGuard.recordWrite(1L);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        readYourWritesGuard.routeRead(2L);
+
+        // Act
+        Object route = routingDataSource.determineCurrentLookupKey();
+
+        // Assert
+        assertEquals(ReadWriteRoutingDataSource.Route.REPLICA, route);
+    }
+
+    // 2.1 Test case for method: void routeRead(Long accountId)
+    // The primary pin is released when the transaction completes.
+    @Test
+    void testRouteRead_PinClearedAfterCompletion() {
+        // Arrange
+        readYourWritesGuard.recordWrite(1L);
+        readYourWritesGuard.routeRead(1L);
+        assertTrue(readYourWritesGuard.isPrimaryPinned());
+
+        // Act
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+        // Assert
+        assertFalse(readYourWritesGuard.isPrimaryPinned());
+    }
+
+    // 3.1 Test case for method: boolean isRecentlyWritten(Long accountId)
+    // The window expires.
+    @Test
+    void testIsRecentlyWritten_WindowExpires() throws InterruptedException {
+        // Arrange
+        ReadYourWritesGuard expiredGuard = new ReadYourWritesGuard(1);
+        expiredGuard.recordWrite(1L);
+        Thread.sleep(5);
+
+        // Act
+        boolean recentlyWritten = expiredGuard.isRecentlyWritten(1L);
+
+        // Assert
+        assertFalse(recentlyWritten);
+    }
+
+    // 4.1 Test case for method: void routeRead(Long accountId)
+    // A client whose last write the replica has not replayed yet reads from the primary, on any node.
+    @Test
+    void testRouteRead_ReplicaBehindTheClientsWrite() throws SQLException {
+        // Arrange
+        readYourWritesGuard.registerReplica(0, primary, returning(replica, "0/10"));
+        givenRequest("0:0/20", null);
+
+        // Act
+        readYourWritesGuard.routeRead(1L);
+
+        // Assert
+        assertTrue(readYourWritesGuard.isPrimaryPinned());
+    }
+
+    // 4.2 Test case for method: void routeRead(Long accountId)
+    // Once the replica has replayed the client's write it serves the read.
+    @Test
+    void testRouteRead_ReplicaCaughtUp() throws SQLException {
+        // Arrange
+        readYourWritesGuard.registerReplica(0, primary, returning(replica, "0/30"));
+        givenRequest("0:0/20", null);
+
+        // Act
+        readYourWritesGuard.routeRead(1L);
+
+        // Assert
+        assertFalse(readYourWritesGuard.isPrimaryPinned());
+    }
+
+    // 5.1 Test case for method: void recordWrite(Long... accountIds)
+    // After the commit the response carries the primary's WAL position, merged with what the client sent.
+    @Test
+    void testRecordWrite_SendsReadAfterOnCommit() throws SQLException {
+        // Arrange
+        readYourWritesGuard.registerReplica(0, returning(primary, "0/20"), replica);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        givenRequest("1:0/5", response);
+
+        // Act
+        readYourWritesGuard.recordWrite(1L);
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        // Assert
+        assertEquals("0:0/20,1:0/5", response.getHeader(ReadYourWritesGuard.READ_AFTER_HEADER));
+    }
+
+    // 6.1 Test case for method: static Map<Integer, Long> parseReadAfter(String header)
+    // Positions are read and written the way PostgreSQL prints a pg_lsn; malformed headers are ignored.
+    @Test
+    void testParseReadAfter() {
+        // Act
+        Map<Integer, Long> positions = ReadYourWritesGuard.parseReadAfter("0:16/B374D848, 2:0/3000060");
+
+        // Assert
+        assertEquals(0x16B374D848L, positions.get(0));
+        assertEquals("0:16/B374D848,2:0/3000060", ReadYourWritesGuard.formatReadAfter(positions));
+        assertTrue(ReadYourWritesGuard.parseReadAfter("0:nonsense").isEmpty());
+    }
+
+    private static void givenRequest(String readAfter, MockHttpServletResponse response) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(ReadYourWritesGuard.READ_AFTER_HEADER, readAfter);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, response));
+    }
+
+    // The data source answers the single-value query with the given text
+    private static DataSource returning(DataSource dataSource, String value) throws SQLException {
+        Connection connection = mock(Connection.class);
+        Statement statement = mock(Statement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true, false);
+        when(resultSet.getMetaData()).thenReturn(metaData);
+        when(metaData.getColumnCount()).thenReturn(1);
+        when(resultSet.getString(1)).thenReturn(value);
+        return dataSource;
+    }
+}
@@ -0,0 +1,55 @@
+package com.med.banking.constants;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class StandingOrderFrequencyTest {
+
+    // 1.1 Test case for method: LocalDateTime next(LocalDateTime anchor, LocalDateTime execution)
+    // A monthly order on the 31st runs on the last day of February and on the 31st again afterwards.
+    @Test
+    void testNext_MonthlyKeepsDayOfMonthAcrossFebruary() {
+        // Arrange
+        LocalDateTime anchor = LocalDateTime.of(2025, 1, 31, 9, 0);
+
+        // Act
+        LocalDateTime february = StandingOrderFrequency.MONTHLY.next(anchor, anchor);
+        LocalDateTime march = StandingOrderFrequency.MONTHLY.next(anchor, february);
+        LocalDateTime april = StandingOrderFrequency.MONTHLY.next(anchor, march);
+
+        // Assert
+        assertEquals(LocalDateTime.of(2025, 2, 28, 9, 0), february);
+        assertEquals(LocalDateTime.of(2025, 3, 31, 9, 0), march);
+        assertEquals(LocalDateTime.of(2025, 4, 30, 9, 0), april);
+        assertEquals(LocalDateTime.of(2025, 5, 31, 9, 0), StandingOrderFrequency.MONTHLY.next(anchor, april));
+    }
+
+    // 1.2 Test case for method: LocalDateTime next(LocalDateTime anchor, LocalDateTime execution)
+    // Leap years get the 29th.
+    @Test
+    void testNext_MonthlyInLeapYear() {
+        // Arrange
+        LocalDateTime anchor = LocalDateTime.of(2023, 12, 30, 9, 0);
+
+        // Act
+        LocalDateTime february = StandingOrderFrequency.MONTHLY.next(anchor, LocalDateTime.of(2024, 1, 30, 9, 0));
+
+        // Assert
+        assertEquals(LocalDateTime.of(2024, 2, 29, 9, 0), february);
+    }
+
+    // 1.3 Test case for method: LocalDateTime next(LocalDateTime anchor, LocalDateTime execution)
+    // Daily and weekly orders step from the execution.
+    @Test
+    void testNext_DailyAndWeekly() {
+        // Arrange
+        LocalDateTime execution = LocalDateTime.of(2025, 2, 28, 9, 0);
+
+        // Act & Assert
+        assertEquals(LocalDateTime.of(2025, 3, 1, 9, 0), StandingOrderFrequency.DAILY.next(execution, execution));
+        assertEquals(LocalDateTime.of(2025, 3, 7, 9, 0), StandingOrderFrequency.WEEKLY.next(execution, execution));
+    }
+}
@@ -1,11 +1,30 @@
 package com.med.banking.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.med.banking.clock.CachedClock;
+import com.med.banking.constants.AccountSearchMode;
+import com.med.banking.constants.ImportFormat;
+import com.med.banking.constants.SummaryGranularity;
 import com.med.banking.constants.TransactionType;
+import com.med.banking.dto.AccountActivityDTO;
+import com.med.banking.dto.AccountBatchDTO;
+import com.med.banking.dto.AccountBatchRequestDTO;
 import com.med.banking.dto.AccountDTO;
+import com.med.banking.dto.AccountImportResultDTO;
+import com.med.banking.dto.AccountImportSummaryDTO;
+import com.med.banking.dto.AccountSearchPageDTO;
+import com.med.banking.dto.AccountSuggestionDTO;
 import com.med.banking.dto.TransactionDTO;
 import com.med.banking.dto.TransferFundDTO;
+import com.med.banking.dto.WithdrawRequestDTO;
+import com.med.banking.entity.Account;
+import com.med.banking.exception.InsufficientBalanceException;
+import com.med.banking.service.AccountImportService;
+import com.med.banking.service.AccountSearchService;
 import com.med.banking.service.AccountService;
+import com.med.banking.service.StatementExportService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -13,14 +32,22 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.io.Writer;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -36,6 +63,18 @@ class AccountControllerTest {
     @MockBean
     private AccountService accountService;
 
+    @MockBean
+    private AccountImportService accountImportService;
+
+    @MockBean
+    private AccountSearchService accountSearchService;
+
+    @MockBean
+    private StatementExportService statementExportService;
+
+    @MockBean
+    private CachedClock cachedClock;
+
     private ObjectMapper objectMapper;
 
     @BeforeEach
@@ -63,7 +102,7 @@ class AccountControllerTest {
     void testGetAccountById() throws Exception {
         AccountDTO accountDTO = new AccountDTO(1L, "John Doe", 1000.0);
 
-        Mockito.when(accountService.getAccountById(1L)).thenReturn(accountDTO);
+        Mockito.when(accountService.getAccountById(1L, 0L)).thenReturn(accountDTO);
 
         mockMvc.perform(get("/api/accounts/1"))
                 .andExpect(status().isOk())
@@ -119,7 +158,8 @@ class AccountControllerTest {
                 .andExpect(jsonPath("$[0].balance").value(1000.0))
                 .andExpect(jsonPath("$[1].id").value(2L))
                 .andExpect(jsonPath("$[1].accountHolderName").value("Jane Doe"))
-                .andExpect(jsonPath("$[1].balance").value(2000.0));
+                .andExpect(jsonPath("$[1].balance").value(2000.0))
+                .andExpect(header().stringValues("Vary", hasItem("Accept")));
     }
 
     @Test
@@ -151,7 +191,7 @@ class AccountControllerTest {
                 new TransactionDTO(2L, 1L, 50.0, TransactionType.WITHDRAW, LocalDateTime.now())
         );
 
-        Mockito.when(accountService.getAccountTransactions(1L)).thenReturn(transactions);
+        Mockito.when(accountService.getAccountTransactions(1L, 0L)).thenReturn(transactions);
 
         mockMvc.perform(get("/api/accounts/1/transactions"))
                 .andExpect(status().isOk())
@@ -163,4 +203,251 @@ class AccountControllerTest {
                 .andExpect(jsonPath("$[1].amount").value(50.0))
                 .andExpect(jsonPath("$[1].transactionType").value(TransactionType.WITHDRAW.toString()));
     }
+
+    @Test
+    void testGetAccountSummary() throws Exception {
+        List<AccountActivityDTO> summary = List.of(
+                new AccountActivityDTO(LocalDate.of(2026, 10, 1), 300.0, 2, 50.0, 1, 0.0, 0)
+        );
+
+        Mockito.when(accountService.getAccountSummary(1L, SummaryGranularity.MONTH)).thenReturn(summary);
+
+        mockMvc.perform(get("/api/accounts/1/summary").param("granularity", "month"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].depositTotal").value(300.0))
+                .andExpect(jsonPath("$[0].depositCount").value(2))
+                .andExpect(jsonPath("$[0].withdrawTotal").value(50.0));
+    }
+
+    @Test
+    void testGetAccountSummary_InvalidGranularity() throws Exception {
+        mockMvc.perform(get("/api/accounts/1/summary").param("granularity", "week"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errorCode").value("INVALID_REQUEST"));
+    }
+
+    @Test
+    void testSearchAccounts() throws Exception {
+        AccountSearchPageDTO page = new AccountSearchPageDTO(List.of(new AccountDTO(1L, "John Doe", 1000.0)), 1, 10, false);
+
+        Mockito.when(accountSearchService.searchAccounts("doe", AccountSearchMode.CONTAINS, 1, 10)).thenReturn(page);
+
+        mockMvc.perform(get("/api/accounts/search").param("q", "doe").param("mode", "contains")
+                        .param("page", "1").param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accounts[0].accountHolderName").value("John Doe"))
+                .andExpect(jsonPath("$.page").value(1))
+                .andExpect(jsonPath("$.hasMore").value(false));
+    }
+
+    @Test
+    void testSuggestAccounts() throws Exception {
+        Mockito.when(accountSearchService.suggestAccounts("jo", 10)).thenReturn(List.of(new AccountSuggestionDTO(1L, "John Doe")));
+
+        mockMvc.perform(get("/api/accounts/search/suggest").param("q", "jo"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1L))
+                .andExpect(jsonPath("$[0].accountHolderName").value("John Doe"));
+    }
+
+    @Test
+    void testImportAccounts() throws Exception {
+        Mockito.when(accountImportService.importAccounts(any(), eq(ImportFormat.CSV), any())).thenAnswer(invocation -> {
+            Consumer<AccountImportResultDTO> results = invocation.getArgument(2);
+            results.accept(new AccountImportResultDTO(2, 11L, null));
+            results.accept(new AccountImportResultDTO(3, null, "balance must be a number"));
+            return new AccountImportSummaryDTO(1, 1);
+        });
+
+        mockMvc.perform(post("/api/accounts/import")
+                        .contentType("text/csv")
+                        .content("accountHolderName,balance\nJohn Doe,100\nJane Doe,abc\n"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(
+                        "{\"line\":2,\"id\":11,\"error\":null}\n"
+                                + "{\"line\":3,\"id\":null,\"error\":\"balance must be a number\"}\n"
+                                + "{\"imported\":1,\"failed\":1}\n"));
+    }
+
+    @Test
+    void testGetAccountsByIds() throws Exception {
+        AccountBatchDTO batch = new AccountBatchDTO(
+                List.of(new AccountDTO(1L, "John Doe", 1000.0), new AccountDTO(3L, "Jane Doe", 50.0)),
+                List.of(2L));
+
+        Mockito.when(accountService.getAccountsByIds(List.of(1L, 2L, 3L))).thenReturn(batch);
+
+        mockMvc.perform(post("/api/accounts/batch-get")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new AccountBatchRequestDTO(List.of(1L, 2L, 3L)))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accounts.length()").value(2))
+                .andExpect(jsonPath("$.accounts[1].accountHolderName").value("Jane Doe"))
+                .andExpect(jsonPath("$.missingIds[0]").value(2));
+    }
+
+    @Test
+    void testGetAccountById_SetsETag() throws Exception {
+        Mockito.when(accountService.getAccountVersion(1L)).thenReturn(4L);
+        Mockito.when(accountService.getAccountById(1L, 4L)).thenReturn(new AccountDTO(1L, "John Doe", 1000.0));
+
+        mockMvc.perform(get("/api/accounts/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"a1-4\""));
+    }
+
+    @Test
+    void testGetAccountById_NotModified() throws Exception {
+        Mockito.when(accountService.getAccountVersion(1L)).thenReturn(4L);
+
+        mockMvc.perform(get("/api/accounts/1").header("If-None-Match", "\"a1-4\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        verify(accountService, times(0)).getAccountById(anyLong(), anyLong());
+    }
+
+    @Test
+    void testGetAccountTransactions_NotModified() throws Exception {
+        Mockito.when(accountService.getAccountVersion(1L)).thenReturn(7L);
+
+        mockMvc.perform(get("/api/accounts/1/transactions").header("If-None-Match", "\"t1-7-json\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().stringValues("Vary", hasItem("Accept")));
+
+        verify(accountService, times(0)).getAccountTransactions(anyLong(), anyLong());
+    }
+
+    @Test
+    void testGetAccountTransactions_ETagPerMediaType() throws Exception {
+        Mockito.when(accountService.getAccountVersion(1L)).thenReturn(7L);
+        Mockito.when(accountService.getAccountTransactions(1L, 7L)).thenReturn(List.of());
+
+        mockMvc.perform(get("/api/accounts/1/transactions").accept(MediaType.APPLICATION_CBOR)
+                        .header("If-None-Match", "\"t1-7-json\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"t1-7-cbor\""))
+                .andExpect(header().stringValues("Vary", hasItem("Accept")));
+        mockMvc.perform(get("/api/accounts/1/transactions").header("Accept", "application/cbor;q=0.5, application/x-jackson-smile"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"t1-7-x-jackson-smile\""));
+    }
+
+    @Test
+    void testGetAccountTransactions_ETagMatchesWrittenType() throws Exception {
+        Mockito.when(accountService.getAccountVersion(1L)).thenReturn(7L);
+        Mockito.when(accountService.getAccountTransactions(1L, 7L)).thenReturn(List.of());
+
+        mockMvc.perform(get("/api/accounts/1/transactions").header("Accept", "application/*;q=0.8, application/cbor"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_CBOR))
+                .andExpect(header().string("ETag", "\"t1-7-cbor\""));
+        mockMvc.perform(get("/api/accounts/1/transactions").header("Accept", "*/*"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(header().string("ETag", "\"t1-7-json\""));
+    }
+
+    @Test
+    void testDeposit_ConcurrentUpdate() throws Exception {
+        Mockito.when(accountService.deposit(eq(1L), any(Double.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Account.class, 1L));
+
+        mockMvc.perform(put("/api/accounts/1/deposit")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("amount", 500.0))))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.errorCode").value("CONCURRENT_UPDATE"));
+    }
+
+    @Test
+    void testDeposit_MissingAmount() throws Exception {
+        mockMvc.perform(put("/api/accounts/1/deposit")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"amout\":100}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errorCode").value("INVALID_REQUEST"));
+
+        verify(accountService, times(0)).deposit(anyLong(), anyDouble());
+    }
+
+    @Test
+    void testWithdraw_MissingAmount() throws Exception {
+        mockMvc.perform(put("/api/accounts/1/withdraw")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errorCode").value("INVALID_REQUEST"));
+
+        verify(accountService, times(0)).withdraw(anyLong(), anyDouble());
+    }
+
+    @Test
+    void testWithdraw_InsufficientBalance() throws Exception {
+        Mockito.when(accountService.withdraw(eq(1L), any(Double.class)))
+                .thenThrow(new InsufficientBalanceException("Low balance"));
+
+        mockMvc.perform(put("/api/accounts/1/withdraw")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new WithdrawRequestDTO(1500.0))))
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(jsonPath("$.message").value("Low balance"))
+                .andExpect(jsonPath("$.errorCode").value("INSUFFICIENT_BALANCE"));
+    }
+
+    @Test
+    void testGetAccountTransactions_Cbor() throws Exception {
+        List<TransactionDTO> transactions = List.of(
+                new TransactionDTO(1L, 1L, 100.0, TransactionType.DEPOSIT, LocalDateTime.of(2025, 1, 1, 9, 0))
+        );
+
+        Mockito.when(accountService.getAccountTransactions(1L, 0L)).thenReturn(transactions);
+
+        byte[] body = mockMvc.perform(get("/api/accounts/1/transactions").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode decoded = new ObjectMapper(new CBORFactory()).readTree(body);
+        assertEquals(1, decoded.size());
+        assertEquals(100.0, decoded.get(0).get("amount").asDouble(), 0.0);
+        assertEquals("DEPOSIT", decoded.get(0).get("transactionType").asText());
+    }
+
+    @Test
+    void testExportStatement() throws Exception {
+        Mockito.doAnswer(invocation -> {
+            Writer out = invocation.getArgument(3);
+            out.write("transaction_id,timestamp,transaction_type,amount\n1,2025-01-02T08:30:00,DEPOSIT,100.0\n");
+            return null;
+        }).when(statementExportService).writeStatement(eq(1L), eq(LocalDate.of(2025, 1, 1).atStartOfDay()),
+                eq(LocalDate.of(2025, 2, 1).atStartOfDay()), any());
+
+        mockMvc.perform(get("/api/accounts/1/statement.csv").param("from", "2025-01-01").param("to", "2025-01-31"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"statement-1.csv\""))
+                .andExpect(content().string("transaction_id,timestamp,transaction_type,amount\n1,2025-01-02T08:30:00,DEPOSIT,100.0\n"));
+    }
+
+    @Test
+    void testExportStatement_DefaultsToToday() throws Exception {
+        Mockito.when(cachedClock.today()).thenReturn(LocalDate.of(2025, 1, 31));
+
+        mockMvc.perform(get("/api/accounts/1/statement.csv").param("from", "2025-01-01"))
+                .andExpect(status().isOk());
+
+        verify(statementExportService).writeStatement(eq(1L), eq(LocalDate.of(2025, 1, 1).atStartOfDay()),
+                eq(LocalDate.of(2025, 2, 1).atStartOfDay()), any());
+    }
+
+    @Test
+    void testExportStatement_InvalidRange() throws Exception {
+        mockMvc.perform(get("/api/accounts/1/statement.csv").param("from", "2025-02-01").param("to", "2025-01-01"))
+                .andExpect(status().isBadRequest());
+
+        verify(statementExportService, times(0)).writeStatement(any(), any(), any(), any());
+    }
 }
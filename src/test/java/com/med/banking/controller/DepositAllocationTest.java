@@ -0,0 +1,219 @@
+package com.med.banking.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.med.banking.clock.CachedClock;
+import com.med.banking.config.ReadYourWritesGuard;
+import com.med.banking.dto.AccountDTO;
+import com.med.banking.dto.DepositRequestDTO;
+import com.med.banking.entity.Account;
+import com.med.banking.entity.Transaction;
+import com.med.banking.exception.AccountNotFoundException;
+import com.med.banking.exception.InsufficientBalanceException;
+import com.med.banking.repository.AccountActivityRepository;
+import com.med.banking.repository.AccountRepository;
+import com.med.banking.repository.TransactionRepository;
+import com.med.banking.service.impl.AccountServiceImpl;
+import com.med.banking.sharding.ShardRouter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoSession;
+import org.springframework.web.accept.ContentNegotiationManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.Mockito.when;
+
+/**
+ * Bytes allocated per deposit on the request thread, from the JSON body through the controller and the real
+ * service, with its Transaction row and clock reads, to the JSON response. The repositories are Mockito mocks;
+ * what the mocks allocate themselves is measured on its own and taken off. Hibernate is not part of it. The budgets
+ * are checked on every build with room for what the JIT does differently from run to run; the measured numbers are
+ * printed with {@code mvn test -Pbenchmark}.
+ */
+class DepositAllocationTest {
+
+    private static final long BYTES_PER_REQUEST_BUDGET = 3_072;
+    private static final long BYTES_PER_EXCEPTION_BUDGET = 128;
+    // Escape analysis does not always remove the same allocations, depending on what got compiled when
+    private static final double JIT_TOLERANCE = 1.5;
+    private static final int WARMUP_REQUESTS = 20_000;
+    private static final int MEASURED_REQUESTS = 10_000;
+
+    private static final byte[] BODY = "{\"amount\":100.0}".getBytes(StandardCharsets.UTF_8);
+
+    @Mock(stubOnly = true)
+    private AccountRepository accountRepository;
+
+    @Mock(stubOnly = true)
+    private TransactionRepository transactionRepository;
+
+    @Mock(stubOnly = true)
+    private AccountActivityRepository accountActivityRepository;
+
+    @Mock(stubOnly = true)
+    private ReadYourWritesGuard readYourWritesGuard;
+
+    @Mock(stubOnly = true)
+    private ShardRouter shardRouter;
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+    private final ByteArrayOutputStream response = new ByteArrayOutputStream(256);
+    private final Account account = new Account(1L, "John Doe", 1000.0);
+    private final Optional<Account> foundAccount = Optional.of(account);
+    private final Transaction transaction = new Transaction();
+    private final LocalDate today = LocalDate.now();
+    private AccountController accountController;
+
+    private MockitoSession mockitoSession;
+
+    @BeforeAll
+    static void checkSupport() {
+        assumeTrue(threadMXBean().isThreadAllocatedMemorySupported());
+    }
+
+    @BeforeEach
+    void setUp() {
+        mockitoSession = Mockito.mockitoSession().initMocks(this).startMocking();
+        AccountServiceImpl accountService = new AccountServiceImpl(accountRepository, transactionRepository,
+                readYourWritesGuard, shardRouter, null, null, null, accountActivityRepository, null, null, null,
+                new CachedClock(1), null);
+        accountController = new AccountController(accountService, null, null, null, objectMapper, new CachedClock(1),
+                new ContentNegotiationManager());
+    }
+
+    @AfterEach
+    void tearDown() {
+        mockitoSession.finishMocking();
+    }
+
+    // 1.1 Test case for method: ResponseEntity<AccountDTO> deposit(Long id, DepositRequestDTO request)
+    // A deposit through the controller and the service stays within the allocation budget.
+    @Test
+    void testDeposit_AllocationBudget() throws IOException {
+        // Arrange
+        when(accountRepository.findCurrentById(1L)).thenReturn(foundAccount);
+        when(accountRepository.save(account)).thenReturn(account);
+
+        // Act
+        long bytesPerRequest = measureDeposit();
+
+        // Assert
+        assertWithinBudget(bytesPerRequest, BYTES_PER_REQUEST_BUDGET, "A deposit allocated " + bytesPerRequest
+                + " bytes besides the mocks, the budget is " + BYTES_PER_REQUEST_BUDGET);
+    }
+
+    // 1.2 Test case for method: ResponseEntity<AccountDTO> deposit(Long id, DepositRequestDTO request)
+    // The typed body allocates less than the map it replaced.
+    @Test
+    void testDeposit_TypedBodyAllocatesLessThanMap() throws IOException {
+        // Arrange
+        TypeReference<Map<String, Double>> map = new TypeReference<>() {
+        };
+
+        // Act
+        long typed = measure(() -> objectMapper.readValue(BODY, DepositRequestDTO.class));
+        long untyped = measure(() -> objectMapper.readValue(BODY, map));
+
+        // Assert
+        assertTrue(typed < untyped, "Typed body " + typed + " bytes, map " + untyped + " bytes");
+    }
+
+    // 2.1 Test case for constructor: InsufficientBalanceException(String message)
+    // Domain exceptions do not capture a stack trace.
+    @Test
+    void testDomainExceptions_Stackless() throws IOException {
+        // Act
+        long bytesPerException = measure(() -> new InsufficientBalanceException("Low balance"));
+
+        // Assert
+        assertWithinBudget(bytesPerException, BYTES_PER_EXCEPTION_BUDGET,
+                "An exception allocated " + bytesPerException + " bytes, the budget is " + BYTES_PER_EXCEPTION_BUDGET);
+        assertTrue(new AccountNotFoundException("Account doesn't exist").getStackTrace().length == 0);
+    }
+
+    // 3.1 Test case for method: ResponseEntity<AccountDTO> deposit(Long id, DepositRequestDTO request)
+    // Prints what the paths above allocate; only with mvn test -Pbenchmark.
+    @Tag("benchmark")
+    @Test
+    void reportAllocations() throws IOException {
+        // Arrange
+        when(accountRepository.findCurrentById(1L)).thenReturn(foundAccount);
+        when(accountRepository.save(account)).thenReturn(account);
+        TypeReference<Map<String, Double>> map = new TypeReference<>() {
+        };
+
+        // Act
+        long deposit = measureDeposit();
+        long typed = measure(() -> objectMapper.readValue(BODY, DepositRequestDTO.class));
+        long untyped = measure(() -> objectMapper.readValue(BODY, map));
+        long exception = measure(() -> new InsufficientBalanceException("Low balance"));
+        System.out.printf("deposit %,d bytes (budget %,d)  typed body %,d bytes  map body %,d bytes  exception %,d bytes (budget %,d)%n",
+                deposit, BYTES_PER_REQUEST_BUDGET, typed, untyped, exception, BYTES_PER_EXCEPTION_BUDGET);
+    }
+
+    private long measureDeposit() throws IOException {
+        long mockBytes = measure(this::mockCalls);
+        return measure(this::deposit) - mockBytes;
+    }
+
+    private static void assertWithinBudget(long bytes, long budget, String message) {
+        assertTrue(bytes <= budget * JIT_TOLERANCE, message);
+    }
+
+    private Object deposit() throws IOException {
+        DepositRequestDTO request = objectMapper.readValue(BODY, DepositRequestDTO.class);
+        AccountDTO result = accountController.deposit(1L, request).getBody();
+        response.reset();
+        objectMapper.writeValue(response, result);
+        return result;
+    }
+
+    // The mock invocations of one deposit, with nothing else around them
+    private Object mockCalls() {
+        shardRouter.bind(1L);
+        Optional<Account> found = accountRepository.findCurrentById(1L);
+        accountRepository.save(account);
+        transactionRepository.save(transaction);
+        accountActivityRepository.addActivity(1L, today, today, "DEPOSIT", 100.0);
+        readYourWritesGuard.recordWrite(1L);
+        return found;
+    }
+
+    private static long measure(Request request) throws IOException {
+        Object sink = null;
+        for (int i = 0; i < WARMUP_REQUESTS; i++) {
+            sink = request.run();
+        }
+        long before = threadMXBean().getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < MEASURED_REQUESTS; i++) {
+            sink = request.run();
+        }
+        long bytes = (threadMXBean().getCurrentThreadAllocatedBytes() - before) / MEASURED_REQUESTS;
+        assertTrue(sink != null);
+        return bytes;
+    }
+
+    private static com.sun.management.ThreadMXBean threadMXBean() {
+        return (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    }
+
+    @FunctionalInterface
+    private interface Request {
+        Object run() throws IOException;
+    }
+}
@@ -0,0 +1,72 @@
+package com.med.banking.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.med.banking.constants.TransactionType;
+import com.med.banking.dto.TransactionDTO;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Payload size and encode time of a long transaction history in JSON, CBOR and Smile.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class SerializationBenchmarkTest {
+
+    private static final int HISTORY_SIZE = 100_000;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+
+    @Test
+    void compareHistoryEncodings() throws IOException {
+        List<TransactionDTO> history = history();
+        // Same settings as the application's ObjectMapper: java.time module, ISO dates
+        ObjectMapper json = JsonMapper.builder()
+                .findAndAddModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+
+        int jsonSize = measure("JSON", json, history);
+        int cborSize = measure("CBOR", json.copyWith(new CBORFactory()), history);
+        int smileSize = measure("Smile", json.copyWith(new SmileFactory()), history);
+
+        assertTrue(cborSize < jsonSize, "CBOR should be smaller than JSON");
+        assertTrue(smileSize < jsonSize, "Smile should be smaller than JSON");
+    }
+
+    private static int measure(String format, ObjectMapper mapper, List<TransactionDTO> history) throws IOException {
+        byte[] payload = null;
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            payload = mapper.writeValueAsBytes(history);
+        }
+        long start = System.nanoTime();
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            payload = mapper.writeValueAsBytes(history);
+        }
+        double millisPerRound = (System.nanoTime() - start) / 1_000_000.0 / MEASURED_ROUNDS;
+        System.out.printf("%-6s %,12d bytes %10.2f ms per %,d transactions%n", format, payload.length, millisPerRound, HISTORY_SIZE);
+        return payload.length;
+    }
+
+    private static List<TransactionDTO> history() {
+        TransactionType[] types = TransactionType.values();
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 9, 0);
+        List<TransactionDTO> history = new ArrayList<>(HISTORY_SIZE);
+        for (int i = 0; i < HISTORY_SIZE; i++) {
+            history.add(new TransactionDTO(1_000_000L + i, 42L, 10.0 + i % 1000 * 0.25, types[i % types.length],
+                    start.plusMinutes(i)));
+        }
+        return history;
+    }
+}
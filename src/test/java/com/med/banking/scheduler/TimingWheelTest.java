@@ -0,0 +1,83 @@
+package com.med.banking.scheduler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+
+    private static final long TICK = 1_000;
+
+    // 1.1 Test case for method: void advance(long nowMillis, Consumer<T> due)
+    // An item fires once the tick it falls in has passed, never before its expiration.
+    @Test
+    void testAdvance_FiresWithinOneTick() {
+        // Arrange
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, 60, 0);
+        List<String> due = new ArrayList<>();
+        assertTrue(wheel.add("a", 1_500));
+
+        // Act & Assert
+        wheel.advance(1_999, due::add);
+        assertTrue(due.isEmpty());
+
+        wheel.advance(2_000, due::add);
+        assertEquals(List.of("a"), due);
+        assertEquals(0, wheel.size());
+    }
+
+    // 1.2 Test case for method: void advance(long nowMillis, Consumer<T> due)
+    // Items beyond one rotation cascade down through the overflow wheels and fire in order.
+    @Test
+    void testAdvance_LongDelaysCascade() {
+        // Arrange
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, 60, 0);
+        List<String> due = new ArrayList<>();
+        wheel.add("hour", 3_600_500);
+        wheel.add("minute", 90_000);
+        wheel.add("second", 5_000);
+        assertEquals(3, wheel.size());
+
+        // Act & Assert
+        wheel.advance(3_600_999, due::add);
+        assertEquals(List.of("second", "minute"), due);
+
+        wheel.advance(3_601_000, due::add);
+        assertEquals(List.of("second", "minute", "hour"), due);
+        assertEquals(0, wheel.size());
+    }
+
+    // 1.3 Test case for method: void advance(long nowMillis, Consumer<T> due)
+    // An empty wheel jumps over idle time instead of ticking through it.
+    @Test
+    void testAdvance_IdleWheelJumpsToNow() {
+        // Arrange
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, 60, 0);
+        List<String> due = new ArrayList<>();
+        long later = 1_000_000_000_000L;
+
+        // Act
+        wheel.advance(later, due::add);
+        assertTrue(wheel.add("a", later + 500));
+        wheel.advance(later + TICK, due::add);
+
+        // Assert
+        assertEquals(List.of("a"), due);
+    }
+
+    // 2.1 Test case for method: boolean add(T item, long expirationMillis)
+    // An item that is already due is handed back instead of being scheduled.
+    @Test
+    void testAdd_AlreadyDue() {
+        // Arrange
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, 60, 10_000);
+
+        // Act & Assert
+        assertFalse(wheel.add("late", 9_999));
+        assertTrue(wheel.add("now", 10_000));
+        assertEquals(1, wheel.size());
+    }
+}
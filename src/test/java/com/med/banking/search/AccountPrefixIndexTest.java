@@ -0,0 +1,104 @@
+package com.med.banking.search;
+
+import com.med.banking.dto.AccountSuggestionDTO;
+import com.med.banking.sharding.ShardQueryExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoSession;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+class AccountPrefixIndexTest {
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private ShardQueryExecutor shardQueryExecutor;
+
+    private MockitoSession mockitoSession;
+
+    @BeforeEach
+    void setUp() {
+        mockitoSession = Mockito.mockitoSession().initMocks(this).startMocking();
+    }
+
+    @AfterEach
+    void tearDown() {
+        mockitoSession.finishMocking();
+    }
+
+    // 1.1 Test case for method: List<AccountSuggestionDTO> suggest(String prefix, int limit)
+    // Suggestions match the prefix ignoring case, in name order, up to the limit.
+    @Test
+    void testSuggest() {
+        // Arrange
+        AccountPrefixIndex index = loadedIndex();
+        index.accountCreated(3L, "John Doe");
+        index.accountCreated(1L, "joan Roe");
+        index.accountCreated(2L, "Johanna");
+        index.accountCreated(4L, "Mary Major");
+
+        // Act & Assert
+        assertEquals(List.of(new AccountSuggestionDTO(1L, "joan Roe"), new AccountSuggestionDTO(2L, "Johanna")),
+                index.suggest("JO", 2));
+        assertEquals(List.of(new AccountSuggestionDTO(3L, "John Doe")), index.suggest("john", 10));
+        assertEquals(List.of(), index.suggest("x", 10));
+    }
+
+    // 1.2 Test case for method: List<AccountSuggestionDTO> suggest(String prefix, int limit)
+    // Until it has been loaded, or when it is off, the index defers to the database.
+    @Test
+    void testSuggest_NotReady() {
+        // Arrange
+        AccountPrefixIndex disabled = new AccountPrefixIndex(dataSource, shardQueryExecutor, false);
+        disabled.reload();
+        disabled.accountCreated(1L, "John Doe");
+
+        // Act
+        List<AccountSuggestionDTO> suggestions = disabled.suggest("john", 10);
+
+        // Assert
+        assertNull(suggestions);
+        assertEquals(0, disabled.size());
+    }
+
+    // 2.1 Test case for method: void accountCreated(Long id, String name)
+    // Changes made in a transaction only show once it commits, and deletes remove the account.
+    @Test
+    void testAccountCreated_AppliesOnCommit() {
+        // Arrange
+        AccountPrefixIndex index = loadedIndex();
+        TransactionSynchronizationManager.initSynchronization();
+
+        // Act & Assert
+        try {
+            index.accountCreated(1L, "John Doe");
+            assertEquals(0, index.size());
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals(1, index.size());
+
+        index.accountDeleted(1L, "John Doe");
+        assertEquals(List.of(), index.suggest("john", 10));
+    }
+
+    private AccountPrefixIndex loadedIndex() {
+        AccountPrefixIndex index = new AccountPrefixIndex(dataSource, shardQueryExecutor, true);
+        when(shardQueryExecutor.queryAllShards(any())).thenReturn(List.of());
+        index.reload();
+        return index;
+    }
+}
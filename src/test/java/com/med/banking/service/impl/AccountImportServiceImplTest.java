@@ -0,0 +1,182 @@
+package com.med.banking.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.med.banking.constants.ImportFormat;
+import com.med.banking.dto.AccountDTO;
+import com.med.banking.dto.AccountImportResultDTO;
+import com.med.banking.dto.AccountImportSummaryDTO;
+import com.med.banking.exception.InvalidRequestException;
+import com.med.banking.sharding.ShardIds;
+import com.med.banking.sharding.ShardRouter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.*;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class AccountImportServiceImplTest {
+
+    @Mock
+    private ShardRouter shardRouter;
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private PreparedStatement statement;
+
+    private AccountImportServiceImpl accountImportService;
+
+    private MockitoSession mockitoSession;
+
+    @BeforeEach
+    void setUp() {
+        mockitoSession = Mockito.mockitoSession().initMocks(this).startMocking();
+        accountImportService = new AccountImportServiceImpl(shardRouter, new ObjectMapper(), 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        mockitoSession.finishMocking();
+    }
+
+    private void givenShardZero() throws SQLException {
+        when(shardRouter.nextShard()).thenReturn(0);
+        when(shardRouter.primaryDataSource(0)).thenReturn(dataSource);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+    }
+
+    // 1.1 Test case for method: AccountImportSummaryDTO importAccounts(Reader body, ImportFormat format, Consumer<AccountImportResultDTO> results)
+    // CSV rows are inserted in batches of the configured size and invalid rows are reported with their line.
+    @Test
+    void testImportCsv() throws IOException, SQLException {
+        // Arrange
+        givenShardZero();
+        String body = """
+                accountHolderName,balance
+                John Doe,100
+                "Doe, Jane",250.5
+                Nobody,abc
+                Richard Roe,10
+                """;
+        List<AccountImportResultDTO> results = new ArrayList<>();
+
+        // Act
+        AccountImportSummaryDTO summary = accountImportService.importAccounts(new StringReader(body), ImportFormat.CSV, results::add);
+
+        // Assert
+        assertEquals(3, summary.imported());
+        assertEquals(1, summary.failed());
+        assertEquals(4, results.size());
+        assertEquals(2, results.get(0).line());
+        assertEquals(0, ShardIds.shardOf(results.get(0).id()));
+        assertEquals(3, results.get(1).line());
+        assertNotEquals(results.get(0).id(), results.get(1).id());
+        assertEquals(new AccountImportResultDTO(4, null, "balance must be a number"), results.get(2));
+        assertEquals(5, results.get(3).line());
+        assertNotNull(results.get(3).id());
+
+        verify(statement).setString(2, "Doe, Jane");
+        verify(statement, times(3)).addBatch();
+        verify(statement, times(2)).executeBatch();
+        verify(connection, times(2)).commit();
+    }
+
+    // 1.2 Test case for method: AccountImportSummaryDTO importAccounts(Reader body, ImportFormat format, Consumer<AccountImportResultDTO> results)
+    // NDJSON lines go through the same validation.
+    @Test
+    void testImportNdjson() throws IOException, SQLException {
+        // Arrange
+        givenShardZero();
+        String body = """
+                {"accountHolderName":"John Doe","balance":100}
+                {"accountHolderName":"","balance":5}
+                {not json
+                """;
+        List<AccountImportResultDTO> results = new ArrayList<>();
+
+        // Act
+        AccountImportSummaryDTO summary = accountImportService.importAccounts(new StringReader(body), ImportFormat.NDJSON, results::add);
+
+        // Assert
+        assertEquals(new AccountImportSummaryDTO(1, 2), summary);
+        assertEquals("accountHolderName is required", results.get(0).error());
+        assertEquals("Malformed JSON", results.get(1).error());
+        assertEquals(1, results.get(2).line());
+        assertNotNull(results.get(2).id());
+        verify(statement, times(1)).executeBatch();
+    }
+
+    // 1.3 Test case for exception handling for method: AccountImportSummaryDTO importAccounts(Reader body, ImportFormat format, Consumer<AccountImportResultDTO> results)
+    // A chunk the database rejects is rolled back and inserted again row by row: only the bad line fails, with its SQL error.
+    @Test
+    void testImport_RejectedChunkRetriedRowByRow() throws IOException, SQLException {
+        // Arrange
+        givenShardZero();
+        when(statement.executeBatch()).thenThrow(new BatchUpdateException("Batch entry 1 was aborted", new int[0]));
+        when(statement.executeUpdate())
+                .thenReturn(1)
+                .thenThrow(new SQLException("ERROR: value too long for type character varying(255)"));
+        List<AccountImportResultDTO> results = new ArrayList<>();
+
+        // Act
+        AccountImportSummaryDTO summary = accountImportService.importAccounts(
+                new StringReader("John Doe,1\nJane Doe,2\n"), ImportFormat.CSV, results::add);
+
+        // Assert
+        assertEquals(new AccountImportSummaryDTO(1, 1), summary);
+        assertEquals(1, results.get(0).line());
+        assertNotNull(results.get(0).id());
+        assertEquals(new AccountImportResultDTO(2, null, "ERROR: value too long for type character varying(255)"), results.get(1));
+        verify(connection).rollback();
+        verify(connection, never()).commit();
+        verify(statement, times(2)).executeUpdate();
+    }
+
+    // 1.4 Test case for exception handling for method: AccountImportSummaryDTO importAccounts(Reader body, ImportFormat format, Consumer<AccountImportResultDTO> results)
+    // Without a connection every line of the chunk fails with the reason.
+    @Test
+    void testImport_NoConnection() throws IOException, SQLException {
+        // Arrange
+        when(shardRouter.nextShard()).thenReturn(0);
+        when(shardRouter.primaryDataSource(0)).thenReturn(dataSource);
+        when(dataSource.getConnection()).thenThrow(new SQLException("Connection refused"));
+        List<AccountImportResultDTO> results = new ArrayList<>();
+
+        // Act
+        AccountImportSummaryDTO summary = accountImportService.importAccounts(
+                new StringReader("John Doe,1\nJane Doe,2\n"), ImportFormat.CSV, results::add);
+
+        // Assert
+        assertEquals(new AccountImportSummaryDTO(0, 2), summary);
+        assertEquals(List.of(new AccountImportResultDTO(1, null, "Connection refused"),
+                new AccountImportResultDTO(2, null, "Connection refused")), results);
+    }
+
+    // 2.1 Test case for method: static AccountDTO parseCsvLine(String line)
+    // Quoted names may contain commas and escaped quotes.
+    @Test
+    void testParseCsvLine() {
+        // Act & Assert
+        assertEquals(new AccountDTO(null, "Doe, \"JD\" John", 12.5),
+                AccountImportServiceImpl.parseCsvLine("\"Doe, \"\"JD\"\" John\",12.5"));
+        assertThrows(InvalidRequestException.class, () -> AccountImportServiceImpl.parseCsvLine("\"John Doe,12"));
+        assertThrows(InvalidRequestException.class, () -> AccountImportServiceImpl.parseCsvLine("John Doe"));
+    }
+}
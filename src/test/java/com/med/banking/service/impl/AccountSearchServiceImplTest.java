@@ -0,0 +1,137 @@
+package com.med.banking.service.impl;
+
+import com.med.banking.constants.AccountSearchMode;
+import com.med.banking.dto.AccountSearchPageDTO;
+import com.med.banking.dto.AccountSuggestionDTO;
+import com.med.banking.exception.InvalidRequestException;
+import com.med.banking.repository.AccountRepository;
+import com.med.banking.repository.AccountSearchHit;
+import com.med.banking.search.AccountPrefixIndex;
+import com.med.banking.sharding.ShardQueryExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.*;
+
+import java.util.List;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class AccountSearchServiceImplTest {
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private ShardQueryExecutor shardQueryExecutor;
+
+    @Mock
+    private AccountPrefixIndex accountPrefixIndex;
+
+    @InjectMocks
+    private AccountSearchServiceImpl accountSearchService;
+
+    private MockitoSession mockitoSession;
+
+    @BeforeEach
+    void setUp() {
+        mockitoSession = Mockito.mockitoSession().initMocks(this).startMocking();
+    }
+
+    @AfterEach
+    void tearDown() {
+        mockitoSession.finishMocking();
+    }
+
+    // 1.1 Test case for method: AccountSearchPageDTO searchAccounts(String query, AccountSearchMode mode, int page, int size)
+    // Per-shard results are merged by name and the requested page is cut out of them.
+    @Test
+    void testSearchAccounts_Contains() {
+        // Arrange
+        givenTwoShards();
+        when(accountRepository.searchByContains("%doe\\_%", 5)).thenReturn(
+                List.of(new Hit(1L, "Adoe_", 1), new Hit(3L, "Cdoe_", 1)),
+                List.of(new Hit(2L, "Bdoe_", 1), new Hit(4L, "Ddoe_", 1), new Hit(5L, "Edoe_", 1)));
+
+        // Act
+        AccountSearchPageDTO result = accountSearchService.searchAccounts(" doe_ ", AccountSearchMode.CONTAINS, 1, 2);
+
+        // Assert
+        assertEquals(List.of(3L, 4L), result.accounts().stream().map(account -> account.id()).toList());
+        assertTrue(result.hasMore());
+    }
+
+    // 1.2 Test case for method: AccountSearchPageDTO searchAccounts(String query, AccountSearchMode mode, int page, int size)
+    // Fuzzy matches come most similar first whichever shard they are on.
+    @Test
+    void testSearchAccounts_Fuzzy() {
+        // Arrange
+        givenTwoShards();
+        when(accountRepository.searchBySimilarity("jon do", 21)).thenReturn(
+                List.of(new Hit(1L, "John Doe", 0.6), new Hit(3L, "Jane Doe", 0.3)),
+                List.of(new Hit(2L, "Jon Doe", 0.9)));
+
+        // Act
+        AccountSearchPageDTO result = accountSearchService.searchAccounts("jon do", AccountSearchMode.FUZZY, 0, 20);
+
+        // Assert
+        assertEquals(List.of(2L, 1L, 3L), result.accounts().stream().map(account -> account.id()).toList());
+        assertFalse(result.hasMore());
+    }
+
+    // 1.3 Test case for exception handling for method: AccountSearchPageDTO searchAccounts(String query, AccountSearchMode mode, int page, int size)
+    // Searches the indexes cannot serve are rejected.
+    @Test
+    void testSearchAccounts_InvalidRequests() {
+        // Act & Assert
+        assertThrows(InvalidRequestException.class, () -> accountSearchService.searchAccounts(" ", AccountSearchMode.PREFIX, 0, 20));
+        assertThrows(InvalidRequestException.class, () -> accountSearchService.searchAccounts("do", AccountSearchMode.CONTAINS, 0, 20));
+        assertThrows(InvalidRequestException.class, () -> accountSearchService.searchAccounts("doe", AccountSearchMode.PREFIX, 0, 500));
+        assertThrows(InvalidRequestException.class, () -> accountSearchService.searchAccounts("doe", AccountSearchMode.PREFIX, 100, 100));
+        verifyNoInteractions(shardQueryExecutor);
+    }
+
+    // 2.1 Test case for method: List<AccountSuggestionDTO> suggestAccounts(String prefix, int limit)
+    // Suggestions come from the prefix index when it is loaded, otherwise from a prefix query.
+    @Test
+    void testSuggestAccounts() {
+        // Arrange
+        givenTwoShards();
+        List<AccountSuggestionDTO> fromIndex = List.of(new AccountSuggestionDTO(1L, "John Doe"));
+        when(accountPrefixIndex.suggest("Jo", 2)).thenReturn(fromIndex, (List<AccountSuggestionDTO>) null);
+        when(accountRepository.searchByPrefix("jo", "jo" + Character.MAX_VALUE, 2)).thenReturn(
+                List.of(new Hit(1L, "John Doe", 1), new Hit(3L, "Jon", 1)),
+                List.of(new Hit(2L, "Joan", 1)));
+
+        // Act & Assert
+        assertSame(fromIndex, accountSearchService.suggestAccounts("Jo", 2));
+        assertEquals(List.of(new AccountSuggestionDTO(2L, "Joan"), new AccountSuggestionDTO(1L, "John Doe")),
+                accountSearchService.suggestAccounts("Jo", 2));
+    }
+
+    // 3.1 Test case for method: static String escapeLike(String text)
+    // LIKE wildcards in the text are matched literally.
+    @Test
+    void testEscapeLike() {
+        // Act & Assert
+        assertEquals("100\\% a\\_b c\\\\d", AccountSearchServiceImpl.escapeLike("100% a_b c\\d"));
+    }
+
+    private record Hit(Long id, String name, double score) implements AccountSearchHit {
+        public Long getId() { return id; }
+        public String getAccountHolderName() { return name; }
+        public double getBalance() { return 100.0; }
+        public String getSortKey() { return name.toLowerCase(); }
+        public double getScore() { return score; }
+    }
+
+    // Runs the query on two shards
+    private void givenTwoShards() {
+        when(shardQueryExecutor.<AccountSearchHit>queryAllShards(any())).thenAnswer(invocation -> {
+            IntFunction<List<AccountSearchHit>> query = invocation.getArgument(0);
+            return List.of(query.apply(0), query.apply(1));
+        });
+    }
+}
@@ -1,24 +1,48 @@
 package com.med.banking.service.impl;
 
+import com.med.banking.archive.TransactionArchive;
+import com.med.banking.cache.AccountCacheInvalidator;
+import com.med.banking.clock.CachedClock;
+import com.med.banking.config.ReadYourWritesGuard;
+import com.med.banking.constants.SummaryGranularity;
 import com.med.banking.constants.TransactionType;
+import com.med.banking.dto.AccountActivityDTO;
+import com.med.banking.dto.AccountBatchDTO;
 import com.med.banking.dto.AccountDTO;
 import com.med.banking.dto.TransactionDTO;
 import com.med.banking.dto.TransferFundDTO;
 import com.med.banking.entity.Account;
+import com.med.banking.entity.AccountActivity;
+import com.med.banking.entity.AccountActivityId;
 import com.med.banking.entity.Transaction;
-import com.med.banking.exception.AccountException;
+import com.med.banking.exception.AccountNotFoundException;
+import com.med.banking.exception.InsufficientBalanceException;
+import com.med.banking.exception.InvalidRequestException;
+import com.med.banking.exception.VelocityLimitException;
+import com.med.banking.repository.AccountActivityRepository;
 import com.med.banking.repository.AccountRepository;
+import com.med.banking.repository.StandingOrderRepository;
 import com.med.banking.repository.TransactionRepository;
+import com.med.banking.search.AccountPrefixIndex;
+import com.med.banking.sharding.CrossShardTransferCoordinator;
+import com.med.banking.sharding.ShardQueryExecutor;
+import com.med.banking.sharding.ShardRouter;
+import com.med.banking.velocity.VelocityLimiter;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
+import org.springframework.orm.ObjectRetrievalFailureException;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.IntFunction;
+import java.util.stream.LongStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -30,6 +54,39 @@ class AccountServiceImplTest {
     @Mock
     private TransactionRepository transactionRepository;
 
+    @Mock
+    private ReadYourWritesGuard readYourWritesGuard;
+
+    @Mock
+    private ShardRouter shardRouter;
+
+    @Mock
+    private ShardQueryExecutor shardQueryExecutor;
+
+    @Mock
+    private CrossShardTransferCoordinator crossShardTransferCoordinator;
+
+    @Mock
+    private TransactionArchive transactionArchive;
+
+    @Mock
+    private AccountActivityRepository accountActivityRepository;
+
+    @Mock
+    private StandingOrderRepository standingOrderRepository;
+
+    @Mock
+    private VelocityLimiter velocityLimiter;
+
+    @Mock
+    private AccountPrefixIndex accountPrefixIndex;
+
+    @Mock
+    private AccountCacheInvalidator accountCacheInvalidator;
+
+    @Spy
+    private CachedClock cachedClock = new CachedClock(1);
+
     @InjectMocks
     private AccountServiceImpl accountService;
 
@@ -64,6 +121,7 @@ class AccountServiceImplTest {
         assertEquals("John Doe", result.accountHolderName());
         assertEquals(1000.0, result.balance(), 0.0);
         assertEquals(1L, result.id());
+        verify(accountPrefixIndex).accountCreated(1L, "John Doe");
     }
 
     // 2.1 Test case for method: AccountDTO getAccountById(Long id)
@@ -86,6 +144,7 @@ class AccountServiceImplTest {
 
         // Verify that the repository findById method was called once
         verify(accountRepository, times(1)).findById(accountId);
+        verify(readYourWritesGuard, times(1)).routeRead(accountId);
     }
 
     // 2.2 Test case for Exception handling for method: AccountDTO getAccountById(Long id)
@@ -97,7 +156,7 @@ class AccountServiceImplTest {
         when(accountRepository.findById(accountId)).thenReturn(Optional.empty());
 
         // Act & Assert
-        AccountException exception = assertThrows(AccountException.class, () -> {
+        AccountNotFoundException exception = assertThrows(AccountNotFoundException.class, () -> {
             accountService.getAccountById(accountId);
         });
 
@@ -107,6 +166,66 @@ class AccountServiceImplTest {
         verify(accountRepository, times(1)).findById(accountId);
     }
 
+    // 2.3 Test case for method: AccountDTO getAccountById(Long id, long minVersion)
+    // A cached copy older than the version the ETag was taken from is read again from the database.
+    @Test
+    void testGetAccountById_StaleCachedCopy() {
+        // Arrange
+        Long accountId = 1L;
+        Account account = new Account(accountId, "John Doe", 1000.0);
+        account.setVersion(3);
+
+        when(accountRepository.findById(accountId)).thenReturn(Optional.of(account));
+        when(accountRepository.refresh(account)).thenAnswer(invocation -> {
+            account.setBalance(1500.0);
+            account.setVersion(4);
+            return account;
+        });
+
+        // Act
+        AccountDTO result = accountService.getAccountById(accountId, 4);
+
+        // Assert
+        assertEquals(1500.0, result.balance(), 0.0);
+        verify(accountRepository, times(1)).refresh(account);
+    }
+
+    // 2.4 Test case for method: AccountDTO getAccountById(Long id, long minVersion)
+    // A cached copy that is current is served without another read.
+    @Test
+    void testGetAccountById_CurrentCachedCopy() {
+        // Arrange
+        Long accountId = 1L;
+        Account account = new Account(accountId, "John Doe", 1000.0);
+        account.setVersion(4);
+
+        when(accountRepository.findById(accountId)).thenReturn(Optional.of(account));
+
+        // Act
+        AccountDTO result = accountService.getAccountById(accountId, 4);
+
+        // Assert
+        assertEquals(1000.0, result.balance(), 0.0);
+        verify(accountRepository, never()).refresh(any());
+    }
+
+    // 2.5 Test case for exception handling for method: AccountDTO getAccountById(Long id, long minVersion)
+    // The account was tombstoned on another node while this node still had it cached.
+    @Test
+    void testGetAccountById_DeletedSinceCached() {
+        // Arrange
+        Long accountId = 1L;
+        Account account = new Account(accountId, "John Doe", 1000.0);
+
+        when(accountRepository.findById(accountId)).thenReturn(Optional.of(account));
+        when(accountRepository.refresh(account)).thenThrow(new ObjectRetrievalFailureException(Account.class, accountId));
+
+        // Act & Assert
+        AccountNotFoundException exception = assertThrows(AccountNotFoundException.class, () -> accountService.getAccountById(accountId, 1));
+
+        assertEquals("Account doesn't exist", exception.getMessage());
+    }
+
     // 3.1 Test case for method: AccountDTO deposit(Long id, double amount)
     @Test
     void testDeposit() {
@@ -117,7 +236,7 @@ class AccountServiceImplTest {
         Account updatedAccount = new Account(accountId, "John Doe", 1500.0);
         Transaction transaction = new Transaction(1L, accountId, depositAmount, TransactionType.DEPOSIT, LocalDateTime.now());
 
-        when(accountRepository.findById(accountId)).thenReturn(Optional.of(account));
+        when(accountRepository.findCurrentById(accountId)).thenReturn(Optional.of(account));
         when(accountRepository.save(any(Account.class))).thenReturn(updatedAccount);
         when(transactionRepository.save(any(Transaction.class))).thenReturn(transaction);
 
@@ -130,9 +249,12 @@ class AccountServiceImplTest {
         assertEquals(1500.0, result.balance(), 0.0);
 
         // Verify that the repository methods were called
-        verify(accountRepository, times(1)).findById(accountId);
+        verify(accountRepository, times(1)).findCurrentById(accountId);
         verify(accountRepository, times(1)).save(account);
         verify(transactionRepository, times(1)).save(any(Transaction.class));
+        verify(accountActivityRepository, times(1)).addActivity(eq(accountId), any(LocalDate.class), any(LocalDate.class),
+                eq(TransactionType.DEPOSIT.name()), eq(depositAmount));
+        verify(readYourWritesGuard, times(1)).recordWrite(accountId);
     }
 
     // 3.2 Test case for Exception handling for  method: AccountDTO deposit(Long id, double amount)
@@ -142,17 +264,17 @@ class AccountServiceImplTest {
         Long accountId = 1L;
         double depositAmount = 500.0;
 
-        when(accountRepository.findById(accountId)).thenReturn(Optional.empty());
+        when(accountRepository.findCurrentById(accountId)).thenReturn(Optional.empty());
 
         // Act & Assert
-        AccountException exception = assertThrows(AccountException.class, () -> {
+        AccountNotFoundException exception = assertThrows(AccountNotFoundException.class, () -> {
             accountService.deposit(accountId, depositAmount);
         });
 
         assertEquals("Account doesn't exist", exception.getMessage());
 
-        // Verify that the repository findById method was called once
-        verify(accountRepository, times(1)).findById(accountId);
+        // Verify that the repository findCurrentById method was called once
+        verify(accountRepository, times(1)).findCurrentById(accountId);
         verify(accountRepository, times(0)).save(any(Account.class));
         verify(transactionRepository, times(0)).save(any(Transaction.class));
     }
@@ -167,7 +289,7 @@ class AccountServiceImplTest {
         Account updatedAccount = new Account(accountId, "John Doe", 500.0);
         Transaction transaction = new Transaction(1L, accountId, withdrawAmount, TransactionType.WITHDRAW, LocalDateTime.now());
 
-        when(accountRepository.findById(accountId)).thenReturn(Optional.of(account));
+        when(accountRepository.findCurrentById(accountId)).thenReturn(Optional.of(account));
         when(accountRepository.save(any(Account.class))).thenReturn(updatedAccount);
         when(transactionRepository.save(any(Transaction.class))).thenReturn(transaction);
 
@@ -180,7 +302,7 @@ class AccountServiceImplTest {
         assertEquals(500.0, result.balance(), 0.0);
 
         // Verify that the repository methods were called
-        verify(accountRepository, times(1)).findById(accountId);
+        verify(accountRepository, times(1)).findCurrentById(accountId);
         verify(accountRepository, times(1)).save(account);
         verify(transactionRepository, times(1)).save(any(Transaction.class));
     }
@@ -192,17 +314,17 @@ class AccountServiceImplTest {
         Long accountId = 1L;
         double withdrawAmount = 500.0;
 
-        when(accountRepository.findById(accountId)).thenReturn(Optional.empty());
+        when(accountRepository.findCurrentById(accountId)).thenReturn(Optional.empty());
 
         // Act & Assert
-        AccountException exception = assertThrows(AccountException.class, () -> {
+        AccountNotFoundException exception = assertThrows(AccountNotFoundException.class, () -> {
             accountService.withdraw(accountId, withdrawAmount);
         });
 
         assertEquals("Account doesn't exist", exception.getMessage());
 
-        // Verify that the repository findById method was called once
-        verify(accountRepository, times(1)).findById(accountId);
+        // Verify that the repository findCurrentById method was called once
+        verify(accountRepository, times(1)).findCurrentById(accountId);
         verify(accountRepository, times(0)).save(any(Account.class));
         verify(transactionRepository, times(0)).save(any(Transaction.class));
     }
@@ -215,21 +337,40 @@ class AccountServiceImplTest {
         double withdrawAmount = 1500.0;
         Account account = new Account(accountId, "John Doe", 1000.0);
 
-        when(accountRepository.findById(accountId)).thenReturn(Optional.of(account));
+        when(accountRepository.findCurrentById(accountId)).thenReturn(Optional.of(account));
 
         // Act & Assert
-        AccountException exception = assertThrows(AccountException.class, () -> {
+        InsufficientBalanceException exception = assertThrows(InsufficientBalanceException.class, () -> {
             accountService.withdraw(accountId, withdrawAmount);
         });
 
         assertEquals("Low balance", exception.getMessage());
+        assertEquals(0, exception.getStackTrace().length);
 
         // Verify that the repository methods were called
-        verify(accountRepository, times(1)).findById(accountId);
+        verify(accountRepository, times(1)).findCurrentById(accountId);
         verify(accountRepository, times(0)).save(any(Account.class));
         verify(transactionRepository, times(0)).save(any(Transaction.class));
     }
 
+    // 4.4 Test case for exception handling (Velocity limit)for method: AccountDTO withdraw(Long id, double amount)
+    @Test
+    void testWithdraw_VelocityLimitExceeded() {
+        // Arrange
+        Long accountId = 1L;
+        Account account = new Account(accountId, "John Doe", 1000.0);
+
+        when(accountRepository.findCurrentById(accountId)).thenReturn(Optional.of(account));
+        doThrow(new VelocityLimitException("Account 1 has reached its limit of debits per minute"))
+                .when(velocityLimiter).check(accountId, 100.0);
+
+        // Act & Assert
+        assertThrows(VelocityLimitException.class, () -> accountService.withdraw(accountId, 100.0));
+        assertEquals(1000.0, account.getBalance(), 0.0);
+        verify(accountRepository, never()).save(any(Account.class));
+        verify(transactionRepository, never()).save(any(Transaction.class));
+    }
+
     // 5.1 Test case for method:List<AccountDTO> getAllAccounts()
     @Test
     void testGetAllAccounts() {
@@ -238,7 +379,8 @@ class AccountServiceImplTest {
         Account account2 = new Account(2L, "Jane Doe", 2000.0);
         List<Account> accounts = Arrays.asList(account1, account2);
 
-        when(accountRepository.findAll()).thenReturn(accounts);
+        when(accountRepository.findAllByOrderByIdAsc()).thenReturn(accounts);
+        whenQueryingAllShards();
 
         // Act
         List<AccountDTO> result = accountService.getAllAccounts();
@@ -253,15 +395,16 @@ class AccountServiceImplTest {
         assertEquals("Jane Doe", result.get(1).accountHolderName());
         assertEquals(2000.0, result.get(1).balance(), 0.0);
 
-        // Verify that the repository findAll method was called once
-        verify(accountRepository, times(1)).findAll();
+        // Verify that the repository findAllByOrderByIdAsc method was called once
+        verify(accountRepository, times(1)).findAllByOrderByIdAsc();
     }
 
     // 5.2 Test case when no accounts are found for method :List<AccountDTO> getAllAccounts()
     @Test
     void testGetAllAccounts_NoAccounts() {
         // Arrange
-        when(accountRepository.findAll()).thenReturn(Collections.emptyList());
+        when(accountRepository.findAllByOrderByIdAsc()).thenReturn(Collections.emptyList());
+        whenQueryingAllShards();
 
         // Act
         List<AccountDTO> result = accountService.getAllAccounts();
@@ -270,8 +413,8 @@ class AccountServiceImplTest {
         assertNotNull(result);
         assertEquals(0, result.size());
 
-        // Verify that the repository findAll method was called once
-        verify(accountRepository, times(1)).findAll();
+        // Verify that the repository findAllByOrderByIdAsc method was called once
+        verify(accountRepository, times(1)).findAllByOrderByIdAsc();
     }
 
     //6.1 Test case for method:void deleteAccount(Long id)
@@ -279,15 +422,20 @@ class AccountServiceImplTest {
     void testDeleteAccount() {
         // Arrange
         Long accountId = 1L;
-        when(accountRepository.findById(accountId)).thenReturn(Optional.of(new Account(accountId, "John Doe", 1000.0)));
+        when(accountRepository.markDeleted(eq(accountId), any(LocalDateTime.class))).thenReturn(1);
+        when(accountRepository.findHolderNameById(accountId)).thenReturn(Optional.of("John Doe"));
 
         // Act
         accountService.deleteAccount(accountId);
 
         // Assert
-        // Verify that the repository methods were called
-        verify(accountRepository, times(1)).findById(accountId);
-        verify(accountRepository, times(1)).deleteById(accountId);
+        // Only the tombstone is written: the account is neither loaded nor deleted
+        verify(accountRepository, times(1)).markDeleted(eq(accountId), any(LocalDateTime.class));
+        verify(accountRepository, never()).findById(accountId);
+        verify(accountRepository, never()).deleteById(accountId);
+        verify(accountPrefixIndex).accountDeleted(accountId, "John Doe");
+        // Standing orders from and to the account stop with the tombstone
+        verify(standingOrderRepository).deactivateForAccount(accountId);
     }
 
     //6.2  Test case for exception handling for method:void deleteAccount(Long id)
@@ -295,18 +443,19 @@ class AccountServiceImplTest {
     void testDeleteAccount_AccountNotFound() {
         // Arrange
         Long accountId = 1L;
-        when(accountRepository.findById(accountId)).thenReturn(Optional.empty());
+        when(accountRepository.markDeleted(eq(accountId), any(LocalDateTime.class))).thenReturn(0);
 
         // Act & Assert
-        AccountException exception = assertThrows(AccountException.class, () -> {
+        AccountNotFoundException exception = assertThrows(AccountNotFoundException.class, () -> {
             accountService.deleteAccount(accountId);
         });
 
         assertEquals("Account doesn't exist", exception.getMessage());
 
         // Verify that the repository methods were called
-        verify(accountRepository, times(1)).findById(accountId);
-        verify(accountRepository, times(0)).deleteById(accountId);
+        verify(accountRepository, times(1)).markDeleted(eq(accountId), any(LocalDateTime.class));
+        verify(accountPrefixIndex, never()).accountDeleted(any(), any());
+        verify(standingOrderRepository, never()).deactivateForAccount(any());
     }
 
     // 7.1  Test case for method: public void transferFunds(TransferFundDTO transferFundDTO)
@@ -322,8 +471,8 @@ class AccountServiceImplTest {
         Account toAccount = new Account(toAccountId, "Jane Doe", 2000.0);
         TransferFundDTO transferFundDTO = new TransferFundDTO(fromAccountId, toAccountId, transferAmount);
 
-        when(accountRepository.findById(fromAccountId)).thenReturn(Optional.of(fromAccount));
-        when(accountRepository.findById(toAccountId)).thenReturn(Optional.of(toAccount));
+        when(accountRepository.findCurrentById(fromAccountId)).thenReturn(Optional.of(fromAccount));
+        when(accountRepository.findCurrentById(toAccountId)).thenReturn(Optional.of(toAccount));
 
         // Act
         accountService.transferFunds(transferFundDTO);
@@ -333,11 +482,13 @@ class AccountServiceImplTest {
         assertEquals(2500.0, toAccount.getBalance(), 0.0);
 
         // Verify that the repository methods were called
-        verify(accountRepository, times(1)).findById(fromAccountId);
-        verify(accountRepository, times(1)).findById(toAccountId);
+        verify(accountRepository, times(1)).findCurrentById(fromAccountId);
+        verify(accountRepository, times(1)).findCurrentById(toAccountId);
         verify(accountRepository, times(1)).save(fromAccount);
         verify(accountRepository, times(1)).save(toAccount);
         verify(transactionRepository, times(1)).save(any(Transaction.class));
+        verify(readYourWritesGuard, times(1)).recordWrite(fromAccountId, toAccountId);
+        verify(crossShardTransferCoordinator, never()).transfer(any(TransferFundDTO.class), any());
     }
 
     // 7.2  Test case for exception handling for method: public void transferFunds(TransferFundDTO transferFundDTO)
@@ -350,18 +501,18 @@ class AccountServiceImplTest {
         double transferAmount = 500.0;
         TransferFundDTO transferFundDTO = new TransferFundDTO(fromAccountId, toAccountId, transferAmount);
 
-        when(accountRepository.findById(fromAccountId)).thenReturn(Optional.empty());
+        when(accountRepository.findCurrentById(fromAccountId)).thenReturn(Optional.empty());
 
         // Act & Assert
-        AccountException exception = assertThrows(AccountException.class, () -> {
+        AccountNotFoundException exception = assertThrows(AccountNotFoundException.class, () -> {
             accountService.transferFunds(transferFundDTO);
         });
 
         assertEquals("Account doesn't exist", exception.getMessage());
 
         // Verify that the repository methods were called
-        verify(accountRepository, times(1)).findById(fromAccountId);
-        verify(accountRepository, times(0)).findById(toAccountId);
+        verify(accountRepository, times(1)).findCurrentById(fromAccountId);
+        verify(accountRepository, times(0)).findCurrentById(toAccountId);
         verify(accountRepository, times(0)).save(any(Account.class));
         verify(transactionRepository, times(0)).save(any(Transaction.class));
     }
@@ -377,19 +528,19 @@ class AccountServiceImplTest {
         Account fromAccount = new Account(fromAccountId, "John Doe", 1000.0);
         TransferFundDTO transferFundDTO = new TransferFundDTO(fromAccountId, toAccountId, transferAmount);
 
-        when(accountRepository.findById(fromAccountId)).thenReturn(Optional.of(fromAccount));
-        when(accountRepository.findById(toAccountId)).thenReturn(Optional.empty());
+        when(accountRepository.findCurrentById(fromAccountId)).thenReturn(Optional.of(fromAccount));
+        when(accountRepository.findCurrentById(toAccountId)).thenReturn(Optional.empty());
 
         // Act & Assert
-        AccountException exception = assertThrows(AccountException.class, () -> {
+        AccountNotFoundException exception = assertThrows(AccountNotFoundException.class, () -> {
             accountService.transferFunds(transferFundDTO);
         });
 
         assertEquals("Account doesn't exist", exception.getMessage());
 
         // Verify that the repository methods were called
-        verify(accountRepository, times(1)).findById(fromAccountId);
-        verify(accountRepository, times(1)).findById(toAccountId);
+        verify(accountRepository, times(1)).findCurrentById(fromAccountId);
+        verify(accountRepository, times(1)).findCurrentById(toAccountId);
         verify(accountRepository, times(0)).save(any(Account.class));
         verify(transactionRepository, times(0)).save(any(Transaction.class));
     }
@@ -406,52 +557,98 @@ class AccountServiceImplTest {
         Account toAccount = new Account(toAccountId, "Jane Doe", 2000.0);
         TransferFundDTO transferFundDTO = new TransferFundDTO(fromAccountId, toAccountId, transferAmount);
 
-        when(accountRepository.findById(fromAccountId)).thenReturn(Optional.of(fromAccount));
+        when(accountRepository.findCurrentById(fromAccountId)).thenReturn(Optional.of(fromAccount));
 
         // Act & Assert
-        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
+        InsufficientBalanceException exception = assertThrows(InsufficientBalanceException.class, () -> {
             accountService.transferFunds(transferFundDTO);
         });
 
         assertEquals("you have insufficient balance to make the transfer", exception.getMessage());
 
         // Verify that the repository methods were called
-        verify(accountRepository, times(1)).findById(fromAccountId);
-        verify(accountRepository, never()).findById(toAccountId);
+        verify(accountRepository, times(1)).findCurrentById(fromAccountId);
+        verify(accountRepository, never()).findCurrentById(toAccountId);
         verify(accountRepository, times(0)).save(any(Account.class));
         verify(transactionRepository, times(0)).save(any(Transaction.class));
     }
 
+    //7.5  Test case for method: public void transferFunds(TransferFundDTO transferFundDTO)
+    //Transfer between accounts on different shards goes through the two-phase coordinator.
+    @Test
+    void testTransferFunds_CrossShard() {
+        // Arrange
+        Long fromAccountId = 1L;
+        Long toAccountId = 2L;
+        TransferFundDTO transferFundDTO = new TransferFundDTO(fromAccountId, toAccountId, 500.0);
+
+        when(shardRouter.isCrossShard(fromAccountId, toAccountId)).thenReturn(true);
+
+        // Act
+        accountService.transferFunds(transferFundDTO);
+
+        // Assert
+        verify(crossShardTransferCoordinator, times(1)).transfer(transferFundDTO, null);
+        verify(readYourWritesGuard, times(1)).recordWrite(fromAccountId, toAccountId);
+        verify(accountCacheInvalidator, times(1)).accountsChanged(fromAccountId, toAccountId);
+        verify(accountRepository, never()).findCurrentById(any());
+        verify(transactionRepository, never()).save(any(Transaction.class));
+    }
+
+    //7.6  Test case for exception handling for method: public void transferFunds(TransferFundDTO transferFundDTO)
+    //Transfer over the velocity limit of the source account is rejected before any account is read.
+    @Test
+    void testTransferFunds_VelocityLimitExceeded() {
+        // Arrange
+        TransferFundDTO transferFundDTO = new TransferFundDTO(1L, 2L, 500.0);
+
+        doThrow(new VelocityLimitException("Account 1 has reached its limit of debits per hour"))
+                .when(velocityLimiter).check(1L, 500.0);
+
+        // Act & Assert
+        assertThrows(VelocityLimitException.class, () -> accountService.transferFunds(transferFundDTO));
+        verify(crossShardTransferCoordinator, never()).transfer(any(TransferFundDTO.class), any());
+        verify(accountRepository, never()).findCurrentById(any());
+    }
+
     // 8.1 Test case for method: public List<TransactionDTO> getAccountTransactions(Long accountId)
     @Test
     void testGetAccountTransactions() {
         // Arrange
         Long accountId = 1L;
         Account account = new Account(accountId, "John Doe", 1000.0);
+        LocalDateTime horizon = LocalDateTime.now().minusMonths(12);
         List<Transaction> transactions = Arrays.asList(
                 new Transaction(1L, accountId, 100.0, TransactionType.DEPOSIT, LocalDateTime.now()),
                 new Transaction(2L, accountId, 200.0, TransactionType.WITHDRAW, LocalDateTime.now())
         );
+        List<Transaction> archivedTransactions = List.of(
+                new Transaction(0L, accountId, 300.0, TransactionType.DEPOSIT, horizon.minusMonths(1))
+        );
 
         when(accountRepository.findById(accountId)).thenReturn(Optional.of(account));
-        when(transactionRepository.findByAccountIdOrderByTimestampDesc(accountId)).thenReturn(transactions);
+        when(transactionArchive.horizon(0)).thenReturn(horizon);
+        when(transactionRepository.findLiveHistory(accountId, horizon)).thenReturn(transactions);
+        when(transactionArchive.readHistory(0, accountId)).thenReturn(archivedTransactions);
 
         // Act
         List<TransactionDTO> result = accountService.getAccountTransactions(accountId);
 
         // Assert
         assertNotNull(result);
-        assertEquals(2, result.size());
-        assertEquals(1L, result.get(0).id());
-        assertEquals(100.0, result.get(0).amount(), 0.0);
-        assertEquals(TransactionType.DEPOSIT, result.get(0).transactionType());
-        assertEquals(2L, result.get(1).id());
-        assertEquals(200.0, result.get(1).amount(), 0.0);
-        assertEquals(TransactionType.WITHDRAW, result.get(1).transactionType());
+        assertEquals(3, result.size());
+        assertEquals(0L, result.get(0).id());
+        assertEquals(300.0, result.get(0).amount(), 0.0);
+        assertEquals(1L, result.get(1).id());
+        assertEquals(100.0, result.get(1).amount(), 0.0);
+        assertEquals(TransactionType.DEPOSIT, result.get(1).transactionType());
+        assertEquals(2L, result.get(2).id());
+        assertEquals(200.0, result.get(2).amount(), 0.0);
+        assertEquals(TransactionType.WITHDRAW, result.get(2).transactionType());
 
         // Verify that the repository methods were called
         verify(accountRepository, times(1)).findById(accountId);
-        verify(transactionRepository, times(1)).findByAccountIdOrderByTimestampDesc(accountId);
+        verify(transactionRepository, times(1)).findLiveHistory(accountId, horizon);
     }
 
     //8.2   Test case for exception handling for method: public List<TransactionDTO> getAccountTransactions(Long accountId)
@@ -463,7 +660,7 @@ class AccountServiceImplTest {
         when(accountRepository.findById(accountId)).thenReturn(Optional.empty());
 
         // Act & Assert
-        AccountException exception = assertThrows(AccountException.class, () -> {
+        AccountNotFoundException exception = assertThrows(AccountNotFoundException.class, () -> {
             accountService.getAccountTransactions(accountId);
         });
 
@@ -471,9 +668,157 @@ class AccountServiceImplTest {
 
         // Verify that the repository methods were called
         verify(accountRepository, times(1)).findById(accountId);
-        verify(transactionRepository, times(0)).findByAccountIdOrderByTimestampDesc(accountId);
+        verify(transactionRepository, times(0)).findLiveHistory(any(), any());
+        verify(transactionArchive, never()).readHistory(anyInt(), anyLong());
     }
 
+    // 8.3 Test case for method: public List<TransactionDTO> getAccountTransactions(Long accountId, long minVersion)
+    // An account the cache already holds at the requested version is not read again.
+    @Test
+    void testGetAccountTransactions_ForVersion() {
+        // Arrange
+        Long accountId = 1L;
+        Account account = new Account(accountId, "John Doe", 1000.0);
+        account.setVersion(7);
+        LocalDateTime horizon = LocalDateTime.now().minusMonths(12);
 
-}
+        when(accountRepository.findById(accountId)).thenReturn(Optional.of(account));
+        when(transactionArchive.horizon(0)).thenReturn(horizon);
+        when(transactionRepository.findLiveHistory(accountId, horizon)).thenReturn(List.of());
+        when(transactionArchive.readHistory(0, accountId)).thenReturn(List.of());
+
+        // Act
+        List<TransactionDTO> result = accountService.getAccountTransactions(accountId, 7);
+
+        // Assert
+        assertTrue(result.isEmpty());
+        verify(transactionRepository, times(1)).findLiveHistory(accountId, horizon);
+        verify(accountRepository, never()).refresh(any());
+    }
+
+    // 9.1 Test case for method: public List<AccountActivityDTO> getAccountSummary(Long accountId, SummaryGranularity granularity)
+    @Test
+    void testGetAccountSummary() {
+        // Arrange
+        Long accountId = 1L;
+        Account account = new Account(accountId, "John Doe", 1000.0);
+        LocalDate month = LocalDate.of(2026, 9, 1);
+        List<AccountActivity> activity = List.of(
+                new AccountActivity(new AccountActivityId(accountId, SummaryGranularity.MONTH, month), 300.0, 2, 50.0, 1, 0.0, 0),
+                new AccountActivity(new AccountActivityId(accountId, SummaryGranularity.MONTH, month.plusMonths(1)), 0.0, 0, 0.0, 0, 25.0, 1)
+        );
+
+        when(accountRepository.findById(accountId)).thenReturn(Optional.of(account));
+        when(accountActivityRepository.findSummary(accountId, SummaryGranularity.MONTH)).thenReturn(activity);
+
+        // Act
+        List<AccountActivityDTO> result = accountService.getAccountSummary(accountId, SummaryGranularity.MONTH);
+
+        // Assert
+        assertEquals(2, result.size());
+        assertEquals(month, result.get(0).periodStart());
+        assertEquals(300.0, result.get(0).depositTotal(), 0.0);
+        assertEquals(2, result.get(0).depositCount());
+        assertEquals(50.0, result.get(0).withdrawTotal(), 0.0);
+        assertEquals(25.0, result.get(1).transferTotal(), 0.0);
+        assertEquals(1, result.get(1).transferCount());
+
+        // Verify that the summary came from the aggregates, not from the history
+        verify(accountActivityRepository, times(1)).findSummary(accountId, SummaryGranularity.MONTH);
+        verify(transactionRepository, never()).findLiveHistory(any(), any());
+    }
+
+    // 9.2 Test case for exception handling for method: getAccountSummary(Long accountId, SummaryGranularity granularity)
+    @Test
+    void testGetAccountSummary_AccountNotFound() {
+        // Arrange
+        Long accountId = 1L;
 
+        when(accountRepository.findById(accountId)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        AccountNotFoundException exception = assertThrows(AccountNotFoundException.class, () -> {
+            accountService.getAccountSummary(accountId, SummaryGranularity.DAY);
+        });
+
+        assertEquals("Account not found", exception.getMessage());
+        verify(accountActivityRepository, never()).findSummary(any(), any());
+    }
+
+    // 10.1 Test case for method: AccountBatchDTO getAccountsByIds(List<Long> ids)
+    @Test
+    void testGetAccountsByIds() {
+        // Arrange
+        Account first = new Account(1L, "John Doe", 1000.0);
+        Account third = new Account(3L, "Jane Doe", 50.0);
+        List<Long> ids = List.of(3L, 2L, 1L, 3L);
+
+        when(shardQueryExecutor.queryShards(eq(Set.of(0)), any())).thenAnswer(invocation ->
+                List.of(invocation.<IntFunction<List<Account>>>getArgument(1).apply(0)));
+        when(accountRepository.multiLoad(List.of(3L, 2L, 1L))).thenReturn(Arrays.asList(third, null, first));
+
+        // Act
+        AccountBatchDTO result = accountService.getAccountsByIds(ids);
+
+        // Assert
+        assertEquals(2, result.accounts().size());
+        assertEquals(3L, result.accounts().get(0).id());
+        assertEquals(1L, result.accounts().get(1).id());
+        assertEquals(List.of(2L), result.missingIds());
+
+        // Verify that all ids were loaded with a single call and recent writes are read from the primary
+        verify(accountRepository, times(1)).multiLoad(anyList());
+        verify(accountRepository, never()).findById(any());
+        verify(readYourWritesGuard, times(3)).routeRead(anyLong());
+    }
+
+    // 10.2 Test case for exception handling for method: getAccountsByIds(List<Long> ids)
+    @Test
+    void testGetAccountsByIds_TooManyIds() {
+        // Arrange
+        List<Long> ids = LongStream.rangeClosed(1, 1001).boxed().toList();
+
+        // Act & Assert
+        assertThrows(InvalidRequestException.class, () -> accountService.getAccountsByIds(ids));
+        verify(accountRepository, never()).multiLoad(anyList());
+    }
+
+    // 11.1 Test case for method: long getAccountVersion(Long id)
+    @Test
+    void testGetAccountVersion() {
+        // Arrange
+        Long accountId = 1L;
+
+        when(accountRepository.findVersionById(accountId)).thenReturn(Optional.of(3L));
+
+        // Act
+        long version = accountService.getAccountVersion(accountId);
+
+        // Assert
+        assertEquals(3L, version);
+
+        // Verify that only the version was read, not the account
+        verify(accountRepository, never()).findById(any());
+        verify(readYourWritesGuard, times(1)).routeRead(accountId);
+    }
+
+    // 11.2 Test case for exception handling for method: getAccountVersion(Long id)
+    @Test
+    void testGetAccountVersion_AccountNotFound() {
+        // Arrange
+        Long accountId = 1L;
+
+        when(accountRepository.findVersionById(accountId)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        AccountNotFoundException exception = assertThrows(AccountNotFoundException.class, () -> accountService.getAccountVersion(accountId));
+        assertEquals("Account doesn't exist", exception.getMessage());
+    }
+
+    // Runs the scatter-gather query against a single shard
+    @SuppressWarnings("unchecked")
+    private void whenQueryingAllShards() {
+        when(shardQueryExecutor.queryAllShards(any())).thenAnswer(invocation ->
+                List.of(((IntFunction<List<Account>>) invocation.getArgument(0)).apply(0)));
+    }
+}
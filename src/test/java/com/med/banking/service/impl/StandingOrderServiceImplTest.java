@@ -0,0 +1,152 @@
+package com.med.banking.service.impl;
+
+import com.med.banking.config.ReadYourWritesGuard;
+import com.med.banking.constants.StandingOrderFrequency;
+import com.med.banking.dto.StandingOrderDTO;
+import com.med.banking.entity.StandingOrder;
+import com.med.banking.exception.InvalidRequestException;
+import com.med.banking.exception.StandingOrderException;
+import com.med.banking.repository.AccountRepository;
+import com.med.banking.repository.StandingOrderRepository;
+import com.med.banking.scheduler.StandingOrderFiring;
+import com.med.banking.scheduler.StandingOrderScheduler;
+import com.med.banking.sharding.ShardRouter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.*;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class StandingOrderServiceImplTest {
+
+    private static final LocalDateTime NEXT_EXECUTION = LocalDateTime.of(2024, 6, 1, 9, 0);
+
+    @Mock
+    private StandingOrderRepository standingOrderRepository;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private ShardRouter shardRouter;
+
+    @Mock
+    private ReadYourWritesGuard readYourWritesGuard;
+
+    @Mock
+    private StandingOrderScheduler standingOrderScheduler;
+
+    @InjectMocks
+    private StandingOrderServiceImpl standingOrderService;
+
+    private MockitoSession mockitoSession;
+
+    @BeforeEach
+    void setUp() {
+        mockitoSession = Mockito.mockitoSession().initMocks(this).startMocking();
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+        mockitoSession.finishMocking();
+    }
+
+    // 1.1 Test case for method: StandingOrderDTO createStandingOrder(StandingOrderDTO standingOrderDTO)
+    // A new order is saved on the shard of the debited account and goes on the wheel once committed.
+    @Test
+    void testCreateStandingOrder() {
+        // Arrange
+        StandingOrderDTO request = new StandingOrderDTO(null, 1L, 2L, 50.0, StandingOrderFrequency.MONTHLY,
+                NEXT_EXECUTION.plusNanos(123_456_789), null, null, false);
+        when(accountRepository.existsById(1L)).thenReturn(true);
+        when(standingOrderRepository.save(any(StandingOrder.class))).thenAnswer(invocation -> {
+            StandingOrder order = invocation.getArgument(0);
+            order.setId(10L);
+            return order;
+        });
+
+        // Act
+        StandingOrderDTO result = standingOrderService.createStandingOrder(request);
+        verify(standingOrderScheduler, never()).schedule(any());
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        // Assert
+        assertEquals(10L, result.id());
+        assertTrue(result.active());
+        assertEquals(NEXT_EXECUTION, result.nextExecution());
+        verify(standingOrderRepository).save(argThat(order -> NEXT_EXECUTION.equals(order.getAnchorExecution())));
+        verify(shardRouter).bind(1L);
+        verify(standingOrderScheduler).schedule(new StandingOrderFiring(10L, NEXT_EXECUTION));
+    }
+
+    // 1.2 Test case for exception handling for method: StandingOrderDTO createStandingOrder(StandingOrderDTO standingOrderDTO)
+    // An order from an account to itself is rejected before anything is read.
+    @Test
+    void testCreateStandingOrder_SameAccount() {
+        // Arrange
+        StandingOrderDTO request = new StandingOrderDTO(null, 1L, 1L, 50.0, StandingOrderFrequency.DAILY,
+                NEXT_EXECUTION, null, null, true);
+
+        // Act & Assert
+        assertThrows(InvalidRequestException.class, () -> standingOrderService.createStandingOrder(request));
+        verifyNoInteractions(standingOrderRepository, accountRepository);
+    }
+
+    // 2.1 Test case for exception handling for method: StandingOrderDTO getStandingOrderById(Long id)
+    // An unknown order is reported as such.
+    @Test
+    void testGetStandingOrderById_NotFound() {
+        // Arrange
+        when(standingOrderRepository.findById(10L)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        StandingOrderException exception = assertThrows(StandingOrderException.class,
+                () -> standingOrderService.getStandingOrderById(10L));
+        assertEquals("Standing order doesn't exist", exception.getMessage());
+    }
+
+    // 3.1 Test case for exception handling for method: StandingOrderDTO updateStandingOrder(Long id, StandingOrderDTO standingOrderDTO)
+    // The debited account of an order cannot be changed, as it decides the shard of the order.
+    @Test
+    void testUpdateStandingOrder_OtherFromAccount() {
+        // Arrange
+        StandingOrder order = new StandingOrder(10L, 1L, 2L, 50.0, StandingOrderFrequency.DAILY,
+                NEXT_EXECUTION, NEXT_EXECUTION, null, null, true);
+        when(standingOrderRepository.findById(10L)).thenReturn(Optional.of(order));
+
+        // Act & Assert
+        assertThrows(InvalidRequestException.class, () -> standingOrderService.updateStandingOrder(10L,
+                new StandingOrderDTO(10L, 3L, 2L, 50.0, StandingOrderFrequency.DAILY, NEXT_EXECUTION, null, null, true)));
+        verify(standingOrderRepository, never()).save(any());
+    }
+
+    // 3.2 Test case for method: StandingOrderDTO updateStandingOrder(Long id, StandingOrderDTO standingOrderDTO)
+    // Changing only the amount keeps the anchor, so a monthly order clamped to the 28th goes back to the 31st.
+    @Test
+    void testUpdateStandingOrder_KeepsAnchor() {
+        // Arrange
+        LocalDateTime anchor = LocalDateTime.of(2025, 1, 31, 9, 0);
+        LocalDateTime clamped = LocalDateTime.of(2025, 2, 28, 9, 0);
+        StandingOrder order = new StandingOrder(10L, 1L, 2L, 50.0, StandingOrderFrequency.MONTHLY,
+                anchor, clamped, null, null, true);
+        when(standingOrderRepository.findById(10L)).thenReturn(Optional.of(order));
+        when(standingOrderRepository.save(order)).thenReturn(order);
+
+        // Act
+        standingOrderService.updateStandingOrder(10L,
+                new StandingOrderDTO(10L, 1L, 2L, 75.0, StandingOrderFrequency.MONTHLY, clamped, null, null, true));
+
+        // Assert
+        assertEquals(anchor, order.getAnchorExecution());
+        assertEquals(75.0, order.getAmount(), 0.0);
+    }
+}
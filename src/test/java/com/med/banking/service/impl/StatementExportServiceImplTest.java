@@ -0,0 +1,100 @@
+package com.med.banking.service.impl;
+
+import com.med.banking.archive.TransactionArchive;
+import com.med.banking.archive.TransactionSegmentWriter;
+import com.med.banking.config.ReadYourWritesGuard;
+import com.med.banking.constants.TransactionType;
+import com.med.banking.sharding.ShardRouter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.*;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class StatementExportServiceImplTest {
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ShardRouter shardRouter;
+
+    @Mock
+    private ReadYourWritesGuard readYourWritesGuard;
+
+    @TempDir
+    Path archiveDir;
+
+    private MockitoSession mockitoSession;
+
+    @BeforeEach
+    void setUp() {
+        mockitoSession = Mockito.mockitoSession().initMocks(this).startMocking();
+    }
+
+    @AfterEach
+    void tearDown() {
+        mockitoSession.finishMocking();
+    }
+
+    // 1.1 Test case for method: void writeStatement(Long accountId, LocalDateTime from, LocalDateTime to, Writer out)
+    // Archived rows inside the range are written oldest first; the live table is not queried below the horizon.
+    @Test
+    void testWriteStatementFromArchive() throws IOException {
+        // Arrange
+        TransactionArchive transactionArchive = new TransactionArchive(archiveDir.toString());
+        Path segment = transactionArchive.segmentPath(0, YearMonth.of(2025, 1));
+        try (TransactionSegmentWriter writer = new TransactionSegmentWriter(segment)) {
+            writer.append(10L, 1L, 100.0, TransactionType.DEPOSIT, LocalDateTime.of(2025, 1, 2, 8, 30));
+            writer.append(11L, 1L, 40.5, TransactionType.WITHDRAW, LocalDateTime.of(2025, 1, 20, 17, 5, 9, 123_000));
+            writer.append(12L, 1L, 7.0, TransactionType.DEPOSIT, LocalDateTime.of(2025, 1, 31, 23, 0));
+            writer.append(13L, 2L, 5.0, TransactionType.DEPOSIT, LocalDateTime.of(2025, 1, 3, 0, 0));
+            writer.finish();
+        }
+        transactionArchive.register(0, YearMonth.of(2025, 1), segment);
+        StatementExportServiceImpl statementExportService = new StatementExportServiceImpl(
+                dataSource, transactionManager, shardRouter, readYourWritesGuard, transactionArchive);
+        StringWriter out = new StringWriter();
+
+        when(shardRouter.shardOf(1L)).thenReturn(0);
+
+        // Act
+        statementExportService.writeStatement(1L, LocalDateTime.of(2025, 1, 2, 0, 0), LocalDateTime.of(2025, 1, 31, 0, 0), out);
+
+        // Assert
+        assertEquals(StatementExportServiceImpl.HEADER
+                + "10,2025-01-02T08:30:00,DEPOSIT,100.0\n"
+                + "11,2025-01-20T17:05:09.000123,WITHDRAW,40.5\n", out.toString());
+
+        // Verify that no live rows were read
+        verifyNoInteractions(transactionManager, readYourWritesGuard);
+    }
+
+    // 2.1 Test case for method: static void appendTimestamp(StringBuilder row, LocalDateTime timestamp)
+    // Timestamps are written as ISO-8601 without a formatter.
+    @Test
+    void testAppendTimestamp() {
+        // Arrange
+        StringBuilder row = new StringBuilder();
+
+        // Act
+        StatementExportServiceImpl.appendTimestamp(row, LocalDateTime.of(2026, 10, 9, 7, 4, 3, 500_000_000));
+
+        // Assert
+        assertEquals("2026-10-09T07:04:03.500000", row.toString());
+    }
+}
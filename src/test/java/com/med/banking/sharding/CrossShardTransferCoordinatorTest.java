@@ -0,0 +1,208 @@
+package com.med.banking.sharding;
+
+import com.med.banking.clock.CachedClock;
+import com.med.banking.dto.TransferFundDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoSession;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CrossShardTransferCoordinatorTest {
+
+    @Mock
+    private ShardRouter shardRouter;
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private Statement statement;
+
+    @Mock
+    private PreparedStatement compareAndSet;
+
+    @Mock
+    private PreparedStatement statusQuery;
+
+    private CrossShardTransferCoordinator coordinator;
+
+    private MockitoSession mockitoSession;
+
+    @BeforeEach
+    void setUp() {
+        mockitoSession = Mockito.mockitoSession().initMocks(this).startMocking();
+        coordinator = new CrossShardTransferCoordinator(shardRouter, new CachedClock(1), 60);
+    }
+
+    @AfterEach
+    void tearDown() {
+        mockitoSession.finishMocking();
+    }
+
+    // 1.1 Test case for method: void transfer(TransferFundDTO transferFundDTO)
+    // Recovery aborted the transfer while both legs were being prepared: the coordinator rolls both back.
+    @Test
+    void testTransfer_AbortedByRecovery() throws SQLException {
+        // Arrange
+        when(shardRouter.shardOf(1L)).thenReturn(0);
+        when(shardRouter.shardOf(2L)).thenReturn(1);
+        when(shardRouter.primaryDataSource(anyInt())).thenReturn(dataSource);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.createStatement()).thenReturn(statement);
+        PreparedStatement balance = mock(PreparedStatement.class);
+        PreparedStatement write = mock(PreparedStatement.class);
+        ResultSet balanceRow = mock(ResultSet.class);
+        when(balanceRow.next()).thenReturn(true);
+        when(balanceRow.getDouble(1)).thenReturn(1000.0);
+        when(balance.executeQuery()).thenReturn(balanceRow);
+        when(write.executeUpdate()).thenReturn(1);
+        when(compareAndSet.executeUpdate()).thenReturn(0);
+        when(connection.prepareStatement(anyString())).thenAnswer(invocation -> {
+            String sql = invocation.getArgument(0);
+            if (sql.contains("AND status = ?")) {
+                return compareAndSet;
+            }
+            return sql.startsWith("SELECT balance") ? balance : write;
+        });
+
+        // Act & Assert
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> coordinator.transfer(new TransferFundDTO(1L, 2L, 100.0)));
+
+        assertTrue(exception.getMessage().endsWith("was aborted by recovery"));
+        verify(statement, times(2)).execute(startsWith("ROLLBACK PREPARED"));
+        verify(statement, never()).execute(startsWith("COMMIT PREPARED"));
+    }
+
+    // 1.2 Test case for method: void transfer(TransferFundDTO transferFundDTO, String transferKey)
+    // A key that already committed is not transferred again.
+    @Test
+    void testTransfer_RepeatedKey() throws SQLException {
+        // Arrange
+        when(shardRouter.shardOf(1L)).thenReturn(0);
+        when(shardRouter.shardOf(2L)).thenReturn(1);
+        when(shardRouter.primaryDataSource(0)).thenReturn(dataSource);
+        when(dataSource.getConnection()).thenReturn(connection);
+        PreparedStatement logInsert = mock(PreparedStatement.class);
+        ResultSet status = singleColumn("DONE");
+        when(statusQuery.executeQuery()).thenReturn(status);
+        when(connection.prepareStatement(anyString())).thenAnswer(invocation ->
+                ((String) invocation.getArgument(0)).startsWith("SELECT status") ? statusQuery : logInsert);
+
+        // Act
+        coordinator.transfer(new TransferFundDTO(1L, 2L, 100.0), "so-7-1700000000");
+
+        // Assert
+        verify(logInsert).setString(1, "xfer-so-7-1700000000");
+        verify(shardRouter, never()).primaryDataSource(1);
+        verify(connection, never()).createStatement();
+    }
+
+    // 2.1 Test case for method: void recover()
+    // The coordinator decided to commit before recovery could claim the transfer: the leg is committed.
+    @Test
+    void testRecover_CoordinatorCommitted() throws SQLException {
+        // Arrange
+        givenOrphans("xfer-1-d");
+        when(compareAndSet.executeUpdate()).thenReturn(0);
+        ResultSet status = singleColumn("COMMITTING");
+        when(statusQuery.executeQuery()).thenReturn(status);
+        when(connection.prepareStatement(anyString())).thenAnswer(invocation ->
+                ((String) invocation.getArgument(0)).startsWith("SELECT status") ? statusQuery : compareAndSet);
+
+        // Act
+        coordinator.recover();
+
+        // Assert
+        verify(statement).execute("COMMIT PREPARED 'xfer-1-d'");
+        verify(statement, never()).execute("ROLLBACK PREPARED 'xfer-1-d'");
+    }
+
+    // 2.2 Test case for method: void recover()
+    // Recovery claims the undecided transfer as ABORTED before rolling the leg back.
+    @Test
+    void testRecover_ClaimsBeforeRollback() throws SQLException {
+        // Arrange
+        givenOrphans("xfer-1-d");
+        when(compareAndSet.executeUpdate()).thenReturn(1);
+        when(connection.prepareStatement(anyString())).thenReturn(compareAndSet);
+
+        // Act
+        coordinator.recover();
+
+        // Assert
+        verify(compareAndSet).setString(1, "ABORTED");
+        verify(compareAndSet).setString(3, "PREPARING");
+        verify(statement).execute("ROLLBACK PREPARED 'xfer-1-d'");
+        verify(statusQuery, never()).executeQuery();
+    }
+
+    // 2.3 Test case for exception handling for method: void recover()
+    // A leg that cannot be resolved is left for the next pass; the others are still resolved.
+    @Test
+    void testRecover_FailureDoesNotStopThePass() throws SQLException {
+        // Arrange
+        givenOrphans("xfer-1-d", "xfer-2-d");
+        when(compareAndSet.executeUpdate()).thenReturn(1);
+        when(connection.prepareStatement(anyString())).thenReturn(compareAndSet);
+        when(statement.execute(anyString())).thenAnswer(invocation -> {
+            if ("ROLLBACK PREPARED 'xfer-1-d'".equals(invocation.getArgument(0))) {
+                throw new SQLException("prepared transaction is locked");
+            }
+            return false;
+        });
+
+        // Act
+        assertDoesNotThrow(() -> coordinator.recover());
+
+        // Assert
+        verify(statement).execute("ROLLBACK PREPARED 'xfer-1-d'");
+        verify(statement).execute("ROLLBACK PREPARED 'xfer-2-d'");
+    }
+
+    // Shard 0 holds the given prepared legs, shard 1 none
+    private void givenOrphans(String... preparedGids) throws SQLException {
+        when(shardRouter.shardCount()).thenReturn(2);
+        when(shardRouter.primaryDataSource(anyInt())).thenReturn(dataSource);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.createStatement()).thenReturn(statement);
+        ResultSet orphans = singleColumn(preparedGids);
+        ResultSet none = mock(ResultSet.class);
+        when(statement.executeQuery(startsWith("SELECT gid"))).thenReturn(orphans, none);
+    }
+
+    private static ResultSet singleColumn(String... values) throws SQLException {
+        ResultSet resultSet = mock(ResultSet.class);
+        ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(metaData.getColumnCount()).thenReturn(1);
+        when(resultSet.getMetaData()).thenReturn(metaData);
+        when(resultSet.next()).thenReturn(true, withFalse(values.length));
+        when(resultSet.getString(1)).thenReturn(values[0], Arrays.copyOfRange(values, 1, values.length));
+        return resultSet;
+    }
+
+    // The remaining answers of next() after the first: true for every further row, then false
+    private static Boolean[] withFalse(int rows) {
+        Boolean[] answers = new Boolean[rows];
+        Arrays.fill(answers, true);
+        answers[rows - 1] = false;
+        return answers;
+    }
+}
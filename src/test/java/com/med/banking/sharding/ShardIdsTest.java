@@ -0,0 +1,76 @@
+package com.med.banking.sharding;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardIdsTest {
+
+    // 1.1 Test case for method: static long next(int shard)
+    // The shard can be recovered from every generated id.
+    @Test
+    void testNext_ShardIsEncodedInId() {
+        for (int shard = 0; shard < 8; shard++) {
+            // Act
+            long id = ShardIds.next(shard);
+
+            // Assert
+            assertEquals(shard, ShardIds.shardOf(id));
+        }
+    }
+
+    // 1.2 Test case for method: static long next(int shard)
+    // Ids are unique and increasing even when generated faster than one per millisecond.
+    @Test
+    void testNext_UniqueAndIncreasing() {
+        // Arrange
+        Set<Long> ids = new HashSet<>();
+        long previous = 0;
+
+        for (int i = 0; i < 100_000; i++) {
+            // Act
+            long id = ShardIds.next(3);
+
+            // Assert
+            assertTrue(id > previous);
+            assertTrue(ids.add(id));
+            previous = id;
+        }
+    }
+
+    // 1.3 Test case for exception handling for method: static long next(int shard)
+    // Shards outside the id layout are rejected.
+    @Test
+    void testNext_InvalidShard() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> ShardIds.next(ShardIds.MAX_SHARDS));
+    }
+
+    // 2.1 Test case for method: static int shardOf(long id)
+    // Ids issued by the old IDENTITY columns live on shard 0.
+    @Test
+    void testShardOf_LegacyIdsBelongToShardZero() {
+        // Act & Assert
+        assertEquals(0, ShardIds.shardOf(1L));
+        assertEquals(0, ShardIds.shardOf(ShardIds.LEGACY_ID_CEILING - 1));
+        assertTrue(ShardIds.next(0) >= ShardIds.LEGACY_ID_CEILING);
+    }
+
+    // 3.1 Test case for method: static <T> List<T> mergeSorted(List<List<T>> sortedLists, Comparator<? super T> comparator)
+    // Per-shard sorted results are merged into one sorted list.
+    @Test
+    void testMergeSorted() {
+        // Arrange
+        List<List<Long>> perShard = List.of(List.of(1L, 4L, 9L), List.of(), List.of(2L, 3L, 10L));
+
+        // Act
+        List<Long> merged = ShardQueryExecutor.mergeSorted(perShard, Long::compare);
+
+        // Assert
+        assertEquals(List.of(1L, 2L, 3L, 4L, 9L, 10L), merged);
+    }
+}
@@ -0,0 +1,52 @@
+package com.med.banking.velocity;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SlidingWindowCounterTest {
+
+    private static final long MINUTE = 60_000;
+
+    // 1.1 Test case for method: long sum(long nowMillis)
+    // Adds leave the sum one bucket at a time as the window slides past them.
+    @Test
+    void testSum_WindowSlides() {
+        // Arrange
+        SlidingWindowCounter counter = new SlidingWindowCounter(MINUTE, 60);
+
+        // Act & Assert
+        assertEquals(5, counter.add(1_000, 5));
+        assertEquals(8, counter.add(30_500, 3));
+        assertEquals(8, counter.sum(60_999));
+        assertEquals(3, counter.sum(61_000));
+        assertEquals(0, counter.sum(91_000));
+    }
+
+    // 2.1 Test case for method: long add(long nowMillis, long delta)
+    // A bucket that comes round again starts from zero, and late adds for an older bucket are dropped.
+    @Test
+    void testAdd_ReusedBucketIsReset() {
+        // Arrange
+        SlidingWindowCounter counter = new SlidingWindowCounter(MINUTE, 60);
+        counter.add(2_000, 4);
+
+        // Act & Assert
+        assertEquals(1, counter.add(62_000, 1));
+        assertEquals(0, counter.add(2_500, 7));
+        assertEquals(1, counter.sum(62_000));
+    }
+
+    // 2.2 Test case for method: long add(long nowMillis, long delta)
+    // Taking an add back never goes below zero.
+    @Test
+    void testAdd_Negative() {
+        // Arrange
+        SlidingWindowCounter counter = new SlidingWindowCounter(MINUTE, 60);
+        counter.add(0, 2);
+
+        // Act & Assert
+        assertEquals(1, counter.add(0, -1));
+        assertEquals(0, counter.add(0, -5));
+    }
+}
@@ -0,0 +1,147 @@
+package com.med.banking.velocity;
+
+import com.med.banking.exception.VelocityLimitException;
+import com.med.banking.repository.TransactionRepository;
+import com.med.banking.sharding.ShardQueryExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoSession;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+class VelocityLimiterTest {
+
+    private static final long MINUTE = 60_000;
+    private static final long START = 1_700_000_000_000L;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private ShardQueryExecutor shardQueryExecutor;
+
+    private final AtomicLong clock = new AtomicLong(START);
+
+    private VelocityLimiter limiter(int maxCount, long maxCents) {
+        return new VelocityLimiter(transactionRepository, shardQueryExecutor, clock::get,
+                List.of(new VelocityLimiter.Limit("minute", MINUTE, maxCount, maxCents)));
+    }
+
+    private MockitoSession mockitoSession;
+
+    @BeforeEach
+    void setUp() {
+        mockitoSession = Mockito.mockitoSession().initMocks(this).startMocking();
+    }
+
+    @AfterEach
+    void tearDown() {
+        mockitoSession.finishMocking();
+    }
+
+    // 1.1 Test case for exception handling for method: void check(Long accountId, double amount)
+    // The count limit rejects the debit over it until the window has moved on.
+    @Test
+    void testCheck_CountLimit() {
+        // Arrange
+        VelocityLimiter limiter = limiter(2, 0);
+        limiter.check(1L, 10.0);
+        limiter.check(1L, 10.0);
+
+        // Act & Assert
+        assertThrows(VelocityLimitException.class, () -> limiter.check(1L, 10.0));
+        assertDoesNotThrow(() -> limiter.check(2L, 10.0));
+
+        clock.addAndGet(MINUTE);
+        assertDoesNotThrow(() -> limiter.check(1L, 10.0));
+    }
+
+    // 1.2 Test case for exception handling for method: void check(Long accountId, double amount)
+    // A rejected debit does not use up any of the amount limit.
+    @Test
+    void testCheck_AmountLimit() {
+        // Arrange
+        VelocityLimiter limiter = limiter(0, 100_00);
+        limiter.check(1L, 60.0);
+
+        // Act & Assert
+        assertThrows(VelocityLimitException.class, () -> limiter.check(1L, 50.0));
+        assertDoesNotThrow(() -> limiter.check(1L, 40.0));
+        assertThrows(VelocityLimitException.class, () -> limiter.check(1L, 0.01));
+    }
+
+    // 1.3 Test case for method: void check(Long accountId, double amount)
+    // A debit whose transaction rolls back is taken back out of the window.
+    @Test
+    void testCheck_RollbackReleasesDebit() {
+        // Arrange
+        VelocityLimiter limiter = limiter(1, 0);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            limiter.check(1L, 10.0);
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // Act & Assert
+        assertDoesNotThrow(() -> limiter.check(1L, 10.0));
+    }
+
+    // 2.1 Test case for method: void evictIdleAccounts()
+    // Accounts without debits in the window are evicted.
+    @Test
+    void testEvictIdleAccounts() {
+        // Arrange
+        VelocityLimiter limiter = limiter(5, 0);
+        limiter.check(1L, 10.0);
+        clock.addAndGet(30_000);
+        limiter.check(2L, 10.0);
+        clock.addAndGet(45_000);
+
+        // Act
+        limiter.evictIdleAccounts();
+
+        // Assert
+        assertEquals(1, limiter.trackedAccounts());
+    }
+
+    // 3.1 Test case for method: void rebuild()
+    // Withdrawals from before the start fill the windows again.
+    @Test
+    void testRebuild() {
+        // Arrange
+        VelocityLimiter limiter = limiter(2, 0);
+        LocalDateTime recently = LocalDateTime.ofInstant(Instant.ofEpochMilli(START - 10_000), ZoneId.systemDefault());
+        LocalDateTime longAgo = LocalDateTime.ofInstant(Instant.ofEpochMilli(START - 5 * MINUTE), ZoneId.systemDefault());
+        when(transactionRepository.streamWithdrawals(any(), any())).thenReturn(Stream.of(
+                new ReplayedDebit(1L, 10.0, recently),
+                new ReplayedDebit(1L, 10.0, recently),
+                new ReplayedDebit(2L, 10.0, longAgo)));
+        when(shardQueryExecutor.<Long>queryAllShards(any())).thenAnswer(invocation ->
+                List.of(invocation.<IntFunction<List<Long>>>getArgument(0).apply(0)));
+
+        // Act
+        limiter.rebuild();
+
+        // Assert
+        assertThrows(VelocityLimitException.class, () -> limiter.check(1L, 10.0));
+        assertDoesNotThrow(() -> limiter.check(2L, 10.0));
+    }
+}
@@ -0,0 +1,154 @@
+package com.med.banking.warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.med.banking.constants.AccountSearchMode;
+import com.med.banking.dto.TransferFundDTO;
+import com.med.banking.entity.Account;
+import com.med.banking.repository.AccountRepository;
+import com.med.banking.service.AccountSearchService;
+import com.med.banking.service.AccountService;
+import com.med.banking.sharding.ShardRouter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoSession;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class WarmUpRunnerTest {
+
+    @Mock
+    private AccountService accountService;
+
+    @Mock
+    private AccountSearchService accountSearchService;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private ShardRouter shardRouter;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+    private final SimpleTransactionStatus status = new SimpleTransactionStatus();
+
+    private MockitoSession mockitoSession;
+
+    @BeforeEach
+    void setUp() {
+        mockitoSession = Mockito.mockitoSession().initMocks(this).startMocking();
+    }
+
+    @AfterEach
+    void tearDown() {
+        mockitoSession.finishMocking();
+    }
+
+    // 1.1 Test case for method: void iteration()
+    // An iteration runs the money-moving and read paths on synthetic accounts and never commits them.
+    @Test
+    void testIteration_RolledBack() {
+        // Arrange
+        givenTransactions();
+        WarmUpRunner runner = runner(true, 1);
+
+        // Act
+        runner.iteration();
+
+        // Assert
+        assertTrue(status.isRollbackOnly());
+        verify(shardRouter).bindNewAccount();
+        verify(accountService).deposit(1L, 100.0);
+        verify(accountService).withdraw(1L, 50.0);
+        verify(accountService).transferFunds(new TransferFundDTO(1L, 2L, 25));
+        verify(accountService).getAccountTransactions(2L, 0L);
+        verify(accountService).getAccountsByIds(List.of(1L, 2L));
+        for (AccountSearchMode mode : AccountSearchMode.values()) {
+            verify(accountSearchService).searchAccounts("Warm-up", mode, 0, 20);
+        }
+    }
+
+    // 2.1 Test case for method: void run(ApplicationArguments args)
+    // The configured number of iterations runs while readiness is held back.
+    @Test
+    void testRun_IterationsBeforeReadiness() {
+        // Arrange
+        givenTransactions();
+        WarmUpRunner runner = runner(true, 3);
+
+        // Act
+        runner.run(null);
+
+        // Assert
+        verify(eventPublisher).publishEvent(argThat((ApplicationEvent event) -> event instanceof AvailabilityChangeEvent<?> change
+                && change.getState() == ReadinessState.REFUSING_TRAFFIC));
+        verify(accountService, times(3)).transferFunds(any());
+        assertTrue(runner.durationMillis() >= 0);
+    }
+
+    // 2.2 Test case for exception handling for method: void run(ApplicationArguments args)
+    // A failure ends the warm-up without failing the start.
+    @Test
+    void testRun_FailureStopsWarmUp() {
+        // Arrange
+        givenTransactions();
+        WarmUpRunner runner = runner(true, 3);
+        when(accountService.withdraw(anyLong(), anyDouble())).thenThrow(new IllegalStateException("database is down"));
+
+        // Act & Assert
+        assertDoesNotThrow(() -> runner.run(null));
+
+        verify(accountService, times(1)).withdraw(anyLong(), anyDouble());
+        verify(accountService, never()).transferFunds(any());
+    }
+
+    // 2.3 Test case for method: void run(ApplicationArguments args)
+    // Off by default: nothing runs.
+    @Test
+    void testRun_Disabled() {
+        // Arrange
+        WarmUpRunner runner = runner(false, 3);
+
+        // Act
+        runner.run(null);
+
+        // Assert
+        verifyNoInteractions(accountService, accountSearchService, accountRepository, eventPublisher);
+    }
+
+    private WarmUpRunner runner(boolean enabled, int iterations) {
+        return new WarmUpRunner(accountService, accountSearchService, accountRepository, shardRouter, objectMapper,
+                transactionManager, eventPublisher, new SimpleMeterRegistry(), enabled, iterations, 60);
+    }
+
+    // Synthetic accounts get ids 1, 2, ... and every transaction is the same status
+    private void givenTransactions() {
+        AtomicLong ids = new AtomicLong();
+        when(transactionManager.getTransaction(any())).thenReturn(status);
+        when(accountRepository.save(any(Account.class))).thenAnswer(invocation -> {
+            Account account = invocation.getArgument(0);
+            account.setId(ids.incrementAndGet());
+            return account;
+        });
+    }
+}